@@ -0,0 +1,127 @@
+package com.study.querydsl.benchmark;
+
+import com.study.querydsl.QuerydslApplication;
+import com.study.querydsl.dto.MemberIngestRow;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.service.BulkIngestionService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 적재 처리량 (임베디드 H2), 결과의 rows 항목이 초당 적재한 행 수다.
+ * - rowByRow: 한 건씩 persist + flush (insert 한 건마다 DB 왕복 한 번)
+ * - batched: BulkIngestionService (시퀀스 id 로 batch_size 건씩 JDBC batch)
+ * 한 번 호출에 적재하는 행 수는 -p rows=1000,10000 처럼 바꿀 수 있다. 적재한 회원은 iteration 마다 지운다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IngestionBenchmark {
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private BulkIngestionService bulkIngestionService;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager em;
+    private List<MemberIngestRow> memberRows;
+
+    /**
+     * 적재한 행 수, 처리량 모드라서 초당 행 수로 보고된다.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RowCounter {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:ingestion;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--querydsl.sql-budget.enabled=false",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn");
+        bulkIngestionService = context.getBean(BulkIngestionService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        em = context.getBean(EntityManager.class);
+
+        List<Long> teamIds = bulkIngestionService.ingestTeams(Arrays.asList("teamA", "teamB"));
+        memberRows = new AbstractList<MemberIngestRow>() {
+            @Override
+            public MemberIngestRow get(int index) {
+                return new MemberIngestRow("member" + index, index % 100, teamIds.get(index % teamIds.size()));
+            }
+
+            @Override
+            public int size() {
+                return rows;
+            }
+        };
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteMembers() {
+        transactionTemplate.executeWithoutResult(status ->
+                em.createQuery("delete from Member m").executeUpdate());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 매번 clear 해서 영속성 컨텍스트가 커지는 비용은 빼고 DB 왕복 차이만 남긴다.
+     */
+    @Benchmark
+    public void rowByRow(RowCounter counter) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (MemberIngestRow row : memberRows) {
+                em.persist(new Member(row.getMemberName(), row.getAge(), em.getReference(Team.class, row.getTeamId())));
+                em.flush();
+                em.clear();
+            }
+        });
+        counter.rows += rows;
+    }
+
+    @Benchmark
+    public void batched(RowCounter counter) {
+        counter.rows += bulkIngestionService.ingestMembers(memberRows);
+    }
+}
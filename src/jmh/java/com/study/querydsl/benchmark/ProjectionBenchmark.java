@@ -0,0 +1,97 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.QMemberDto;
+import com.study.querydsl.projection.CompiledProjections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.study.querydsl.entity.QMember.member;
+
+/**
+ * 프로젝션 방식별 DTO 생성 비용 (1M 행)
+ * DB 조회 결과 행(Object[])을 DTO 로 바꾸는 부분만 측정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    private Object[][] rows;
+
+    private FactoryExpression<MemberDto> bean;
+    private FactoryExpression<MemberDto> fields;
+    private FactoryExpression<MemberDto> constructor;
+    private FactoryExpression<MemberDto> queryProjection;
+    private FactoryExpression<MemberDto> compiledBean;
+    private FactoryExpression<MemberDto> compiledConstructor;
+
+    @Setup
+    public void setup() {
+        rows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[]{"member" + i, i % 100};
+        }
+        bean = Projections.bean(MemberDto.class, member.memberName, member.age);
+        fields = Projections.fields(MemberDto.class, member.memberName, member.age);
+        constructor = Projections.constructor(MemberDto.class, member.memberName, member.age);
+        queryProjection = new QMemberDto(member.memberName, member.age);
+        compiledBean = CompiledProjections.bean(MemberDto.class, member.memberName, member.age);
+        compiledConstructor = CompiledProjections.constructor(MemberDto.class, member.memberName, member.age);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void bean(Blackhole bh) {
+        hydrate(bean, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fields(Blackhole bh) {
+        hydrate(fields, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void constructor(Blackhole bh) {
+        hydrate(constructor, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void queryProjection(Blackhole bh) {
+        hydrate(queryProjection, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void compiledBean(Blackhole bh) {
+        hydrate(compiledBean, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void compiledConstructor(Blackhole bh) {
+        hydrate(compiledConstructor, bh);
+    }
+
+    private void hydrate(FactoryExpression<MemberDto> projection, Blackhole bh) {
+        for (Object[] row : rows) {
+            bh.consume(projection.newInstance(row));
+        }
+    }
+}
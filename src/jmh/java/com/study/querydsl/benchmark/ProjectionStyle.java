@@ -0,0 +1,15 @@
+package com.study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * projection 벤치마크에만 적용되는 파라미터
+ */
+@State(Scope.Benchmark)
+public class ProjectionStyle {
+
+    @Param({"bean", "fields", "constructor", "queryProjection", "compiled"})
+    String style;
+}
@@ -0,0 +1,134 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.QuerydslApplication;
+import com.study.querydsl.dto.MemberIngestRow;
+import com.study.querydsl.service.BulkIngestionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 쿼리 실행까지 포함한 지연 시간 (임베디드 H2)
+ * 데이터 양은 -p members=1000,100000 처럼 바꿀 수 있다. 팀은 회원 100명당 하나.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryBenchmark {
+
+    @Param({"1000", "100000"})
+    private int members;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+    private TransactionTemplate readOnly;
+    private String memberName;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--querydsl.sql-budget.enabled=false",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn");
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        memberName = "member" + (members / 2);
+        seed(context.getBean(BulkIngestionService.class));
+    }
+
+    private void seed(BulkIngestionService bulkIngestionService) {
+        List<String> teamNames = new ArrayList<>();
+        for (int i = 0; i <= members / 100; i++) {
+            teamNames.add("team" + i);
+        }
+        List<Long> teamIds = bulkIngestionService.ingestTeams(teamNames);
+        bulkIngestionService.ingestMembers(new AbstractList<MemberIngestRow>() {
+            @Override
+            public MemberIngestRow get(int index) {
+                return new MemberIngestRow("member" + index, index % 100, teamIds.get(index / 100));
+            }
+
+            @Override
+            public int size() {
+                return members;
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object simplePredicate() {
+        return inTransaction(qf -> QueryShapes.simplePredicate(qf, memberName).fetch());
+    }
+
+    @Benchmark
+    public Object booleanBuilder() {
+        return inTransaction(qf -> QueryShapes.booleanBuilder(qf, memberName, null).fetch());
+    }
+
+    @Benchmark
+    public Object whereParam() {
+        return inTransaction(qf -> QueryShapes.whereParam(qf, memberName, null).fetch());
+    }
+
+    @Benchmark
+    public Object fetchJoin() {
+        return inTransaction(qf -> QueryShapes.fetchJoin(qf, memberName).fetch());
+    }
+
+    @Benchmark
+    public Object subQuery() {
+        return inTransaction(qf -> QueryShapes.subQuery(qf).fetch());
+    }
+
+    @Benchmark
+    public Object subQueryAvg() {
+        return inTransaction(qf -> QueryShapes.subQueryAvg(qf, 100).fetch());
+    }
+
+    @Benchmark
+    public Object groupBy() {
+        return inTransaction(qf -> QueryShapes.groupBy(qf).fetch());
+    }
+
+    @Benchmark
+    public Object projection(ProjectionStyle projection) {
+        return inTransaction(qf -> QueryShapes.projection(qf, projection.style, 1000).fetch());
+    }
+
+    private Object inTransaction(Function<JPAQueryFactory, Object> query) {
+        return readOnly.execute(status -> query.apply(queryFactory));
+    }
+}
@@ -0,0 +1,70 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 쿼리 빌드 비용: 표현식 트리 생성 + JPQL 직렬화
+ * DB 없이 측정한다. (EntityManager 없이 HQLTemplates 로 직렬화)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryBuildBenchmark {
+
+    private final JPAQueryFactory queryFactory = new JPAQueryFactory(HQLTemplates.DEFAULT, (EntityManager) null);
+
+    @Benchmark
+    public String simplePredicate() {
+        return serialize(QueryShapes.simplePredicate(queryFactory, "member42"));
+    }
+
+    @Benchmark
+    public String booleanBuilder() {
+        return serialize(QueryShapes.booleanBuilder(queryFactory, "member42", null));
+    }
+
+    @Benchmark
+    public String whereParam() {
+        return serialize(QueryShapes.whereParam(queryFactory, "member42", null));
+    }
+
+    @Benchmark
+    public String fetchJoin() {
+        return serialize(QueryShapes.fetchJoin(queryFactory, "member42"));
+    }
+
+    @Benchmark
+    public String subQuery() {
+        return serialize(QueryShapes.subQuery(queryFactory));
+    }
+
+    @Benchmark
+    public String subQueryAvg() {
+        return serialize(QueryShapes.subQueryAvg(queryFactory, 100));
+    }
+
+    @Benchmark
+    public String groupBy() {
+        return serialize(QueryShapes.groupBy(queryFactory));
+    }
+
+    @Benchmark
+    public String projection(ProjectionStyle projection) {
+        return serialize(QueryShapes.projection(queryFactory, projection.style, 100));
+    }
+
+    private static String serialize(JPAQuery<?> query) {
+        return query.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.QMemberDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.QMember;
+import com.study.querydsl.projection.CompiledProjections;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * QuerydslBasicTest 의 쿼리 모양들
+ * 빌드 비용(QueryBuildBenchmark)과 실행 비용(QueryBenchmark)을 같은 쿼리로 측정하기 위해 한 곳에 모은다.
+ */
+final class QueryShapes {
+
+    private QueryShapes() {
+    }
+
+    static JPAQuery<Member> simplePredicate(JPAQueryFactory queryFactory, String memberName) {
+        return queryFactory
+                .selectFrom(member)
+                .where(member.memberName.eq(memberName));
+    }
+
+    static JPAQuery<Member> booleanBuilder(JPAQueryFactory queryFactory, String memberName, Integer age) {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (memberName != null) {
+            builder.and(member.memberName.eq(memberName));
+        }
+        if (age != null) {
+            builder.and(member.age.eq(age));
+        }
+        return queryFactory
+                .selectFrom(member)
+                .where(builder);
+    }
+
+    static JPAQuery<Member> whereParam(JPAQueryFactory queryFactory, String memberName, Integer age) {
+        return queryFactory
+                .selectFrom(member)
+                .where(memberNameEq(memberName), ageEq(age));
+    }
+
+    static JPAQuery<Member> fetchJoin(JPAQueryFactory queryFactory, String memberName) {
+        return queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(member.memberName.eq(memberName));
+    }
+
+    static JPAQuery<Member> subQuery(JPAQueryFactory queryFactory) {
+        QMember memberSub = new QMember("memberSub");
+        return queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(
+                        JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub)));
+    }
+
+    static JPAQuery<Member> subQueryAvg(JPAQueryFactory queryFactory, long limit) {
+        QMember memberSub = new QMember("memberSub");
+        return queryFactory
+                .selectFrom(member)
+                .where(member.age.goe(
+                        JPAExpressions
+                                .select(memberSub.age.avg())
+                                .from(memberSub)))
+                .limit(limit);
+    }
+
+    static JPAQuery<Tuple> groupBy(JPAQueryFactory queryFactory) {
+        return queryFactory
+                .select(team.name, member.age.avg())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name);
+    }
+
+    static JPAQuery<MemberDto> projection(JPAQueryFactory queryFactory, String style, long limit) {
+        return queryFactory
+                .select(dto(style))
+                .from(member)
+                .limit(limit);
+    }
+
+    private static Expression<MemberDto> dto(String style) {
+        switch (style) {
+            case "bean":
+                return Projections.bean(MemberDto.class, member.memberName, member.age);
+            case "fields":
+                return Projections.fields(MemberDto.class, member.memberName, member.age);
+            case "constructor":
+                return Projections.constructor(MemberDto.class, member.memberName, member.age);
+            case "queryProjection":
+                return new QMemberDto(member.memberName, member.age);
+            case "compiled":
+                return CompiledProjections.constructor(MemberDto.class, member.memberName, member.age);
+            default:
+                throw new IllegalArgumentException("unknown projection style: " + style);
+        }
+    }
+
+    private static Predicate memberNameEq(String memberName) {
+        return memberName != null ? member.memberName.eq(memberName) : null;
+    }
+
+    private static Predicate ageEq(Integer age) {
+        return age != null ? member.age.eq(age) : null;
+    }
+}
@@ -0,0 +1,131 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.QuerydslApplication;
+import com.study.querydsl.dto.MemberIngestRow;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.service.BulkIngestionService;
+import com.study.querydsl.snapshot.MemberSnapshot;
+import com.study.querydsl.snapshot.MemberSnapshotService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 같은 조건을 SQL(임베디드 H2) 과 회원 스냅샷으로 검색한 지연 시간
+ * 데이터는 QueryBenchmark 와 같다. (팀은 회원 100명당 하나)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SnapshotBenchmark {
+
+    @Param({"1000", "100000"})
+    private int members;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+    private TransactionTemplate readOnly;
+    private MemberSnapshot snapshot;
+    private Predicate[] teamAndAge;
+    private Predicate[] namePrefix;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--querydsl.sql-budget.enabled=false",
+                        "--querydsl.member-snapshot.refresh-enabled=false",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn");
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        seed(context.getBean(BulkIngestionService.class));
+        snapshot = context.getBean(MemberSnapshotService.class).refresh();
+
+        teamAndAge = new Predicate[]{member.team.name.eq("team" + (members / 200)), member.age.between(20, 40)};
+        namePrefix = new Predicate[]{member.memberName.startsWith("member" + (members / 20))};
+    }
+
+    private void seed(BulkIngestionService bulkIngestionService) {
+        List<String> teamNames = new ArrayList<>();
+        for (int i = 0; i <= members / 100; i++) {
+            teamNames.add("team" + i);
+        }
+        List<Long> teamIds = bulkIngestionService.ingestTeams(teamNames);
+        bulkIngestionService.ingestMembers(new AbstractList<MemberIngestRow>() {
+            @Override
+            public MemberIngestRow get(int index) {
+                return new MemberIngestRow("member" + index, index % 100, teamIds.get(index / 100));
+            }
+
+            @Override
+            public int size() {
+                return members;
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object teamAndAgeSql() {
+        return sql(teamAndAge);
+    }
+
+    @Benchmark
+    public Object teamAndAgeSnapshot() {
+        return snapshot.findMembers(teamAndAge);
+    }
+
+    @Benchmark
+    public Object namePrefixSql() {
+        return sql(namePrefix);
+    }
+
+    @Benchmark
+    public Object namePrefixSnapshot() {
+        return snapshot.findMembers(namePrefix);
+    }
+
+    private Object sql(Predicate[] where) {
+        return readOnly.execute(status -> queryFactory
+                .select(new QMemberTeamDto(member.id, member.memberName, member.age, team.id, team.name))
+                .from(member)
+                .join(member.team, team)
+                .where(where)
+                .fetch());
+    }
+}
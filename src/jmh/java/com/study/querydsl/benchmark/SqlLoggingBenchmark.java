@@ -0,0 +1,120 @@
+package com.study.querydsl.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.QuerydslApplication;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.study.querydsl.entity.QMember.member;
+
+/**
+ * SQL 로그 설정별 처리량 (임베디드 H2, 로그는 build/jmh-sql-logging.log 파일로)
+ * - off: SQL 로그 없음
+ * - full: 기본 설정 (org.hibernate.SQL debug + org.hibernate.type trace + p6spy 전체 로그)
+ * - sampled: 운영 설정 (querydsl.sql-log, 1/1000 표본 + 느린 SQL, 비동기 작성)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class SqlLoggingBenchmark {
+
+    private static final int MEMBERS = 1000;
+
+    @Param({"off", "full", "sampled"})
+    private String logging;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=jdbc:h2:mem:sql-logging;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--querydsl.sql-budget.enabled=false",
+                "--querydsl.index-advisor.enabled=false",
+                "--logging.file.name=build/jmh-sql-logging.log"));
+        args.addAll(Arrays.asList(loggingArgs(logging)));
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+        // 콘솔 출력은 JMH 프로세스로 넘어가므로 빼고 파일에만 쓴다.
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).detachAppender("CONSOLE");
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        seed();
+    }
+
+    private static String[] loggingArgs(String logging) {
+        switch (logging) {
+            case "off":
+                return new String[]{
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn"};
+            case "full":
+                return new String[]{};
+            case "sampled":
+                return new String[]{"--spring.profiles.active=prod"};
+            default:
+                throw new IllegalArgumentException(logging);
+        }
+    }
+
+    private void seed() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        EntityManager em = context.getBean(EntityManager.class);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("team");
+            em.persist(team);
+            for (int i = 0; i < MEMBERS; i++) {
+                em.persist(new Member("member" + i, i % 100, team));
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object findByMemberName() {
+        String memberName = "member" + ThreadLocalRandom.current().nextInt(MEMBERS);
+        return readOnly.execute(status -> queryFactory
+                .selectFrom(member)
+                .where(member.memberName.eq(memberName))
+                .fetch());
+    }
+}
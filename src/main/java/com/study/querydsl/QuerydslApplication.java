@@ -1,7 +1,14 @@
 package com.study.querydsl;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.metrics.QueryMetrics;
+import com.study.querydsl.singleflight.SingleFlight;
+import com.study.querydsl.singleflight.SingleFlightJPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import javax.persistence.EntityManager;
 
 @SpringBootApplication
 public class QuerydslApplication {
@@ -10,4 +17,9 @@ public class QuerydslApplication {
         SpringApplication.run(QuerydslApplication.class, args);
     }
 
+    @Bean
+    JPAQueryFactory jpaQueryFactory(EntityManager em, QueryMetrics queryMetrics, SingleFlight singleFlight) {
+        return new SingleFlightJPAQueryFactory(em, queryMetrics, singleFlight);
+    }
+
 }
@@ -0,0 +1,38 @@
+package com.study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 스프링 빈으로 등록된 Hibernate 엔티티 이벤트 리스너를 SessionFactory 에 붙인다.
+ * 리스너는 구현한 인터페이스(PostInsert/PostUpdate/PostDelete)에 해당하는 이벤트에만 등록된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class HibernateListenerRegistrar {
+
+    private final EntityManagerFactory emf;
+    private final ObjectProvider<PostInsertEventListener> postInsertListeners;
+    private final ObjectProvider<PostUpdateEventListener> postUpdateListeners;
+    private final ObjectProvider<PostDeleteEventListener> postDeleteListeners;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        postInsertListeners.orderedStream().forEach(listener -> registry.appendListeners(EventType.POST_INSERT, listener));
+        postUpdateListeners.orderedStream().forEach(listener -> registry.appendListeners(EventType.POST_UPDATE, listener));
+        postDeleteListeners.orderedStream().forEach(listener -> registry.appendListeners(EventType.POST_DELETE, listener));
+    }
+}
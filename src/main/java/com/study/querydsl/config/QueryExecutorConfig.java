@@ -0,0 +1,30 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.sql.SqlBudgetTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class QueryExecutorConfig {
+
+    /**
+     * 페이지 count 쿼리를 본문 쿼리와 동시에 실행할 때 사용하는 스레드풀
+     * 큐가 차면 호출한 스레드에서 실행해서 커넥션 풀 이상으로 쿼리가 쌓이지 않게 한다.
+     * count 쿼리도 호출한 요청의 SQL 예산에 집계한다.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor countQueryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(16);
+        executor.setThreadNamePrefix("count-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setTaskDecorator(new SqlBudgetTaskDecorator());
+        return executor;
+    }
+}
@@ -0,0 +1,37 @@
+package com.study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.cache")
+public class SecondLevelCacheProperties {
+
+    /**
+     * 리전 이름별 설정, 여기 있는 리전은 시작할 때 미리 만들고 메트릭을 등록한다.
+     */
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+
+        /**
+         * 쓰기 후 만료 시간, null 이면 만료하지 않는다.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * 최대 항목 수, 넘으면 오래 안 쓴 항목부터 내보낸다.
+         */
+        private long maximumSize = 10_000;
+    }
+}
@@ -0,0 +1,40 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.sql.IndexAdvice;
+import com.study.querydsl.sql.IndexAdvisor;
+import com.study.querydsl.sql.IndexAdvisorListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 인증 없이 DB 에 EXPLAIN 을 실행하므로 index-advisor 를 켠 운영(prod) 외 환경에서만 연다.
+ */
+@RestController
+@Profile("!prod")
+@ConditionalOnProperty(prefix = "querydsl.index-advisor", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class IndexAdvisorController {
+
+    private final IndexAdvisor indexAdvisor;
+    private final IndexAdvisorListener indexAdvisorListener;
+
+    /**
+     * 예) /admin/index-advice?minExecutions=10
+     */
+    @GetMapping("/admin/index-advice")
+    public List<IndexAdvice> advice(@RequestParam(defaultValue = "1") long minExecutions) {
+        return indexAdvisor.advise(minExecutions);
+    }
+
+    @DeleteMapping("/admin/index-advice")
+    public void reset() {
+        indexAdvisorListener.reset();
+    }
+}
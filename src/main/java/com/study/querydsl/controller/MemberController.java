@@ -0,0 +1,44 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.dto.KeysetPage;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.repository.MemberKeysetRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberController {
+
+    private final MemberKeysetRepository memberKeysetRepository;
+
+    /**
+     * 예) /members/keyset?sort=memberName desc,id desc&size=20&cursor=...
+     */
+    @GetMapping("/members/keyset")
+    public KeysetPage<MemberDto> keyset(@RequestParam(required = false) String sort,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "20") int size) {
+        KeysetPage<Member> page = memberKeysetRepository.findPage(sort, cursor, Math.min(size, 100));
+        List<MemberDto> content = page.getContent().stream()
+                .map(m -> new MemberDto(m.getMemberName(), m.getAge()))
+                .collect(Collectors.toList());
+        return new KeysetPage<>(content, page.getSize(), page.getNextCursor(), page.getPrevCursor());
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, InvalidDataAccessApiUsageException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badRequest(RuntimeException e) {
+        return e.getMessage();
+    }
+}
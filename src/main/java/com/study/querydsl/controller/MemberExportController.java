@@ -0,0 +1,42 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.service.MemberExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
+    private final MemberExportService memberExportService;
+
+    @GetMapping("/members/export.ndjson")
+    public ResponseEntity<StreamingResponseBody> exportNdjson() {
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(memberExportService::exportNdjson);
+    }
+
+    /**
+     * partitioned=true 면 member.id 구간을 동시에 읽는다. (순서와 내용은 같다)
+     */
+    @GetMapping("/members/export.csv")
+    public ResponseEntity<StreamingResponseBody> exportCsv(@RequestParam(defaultValue = "false") boolean partitioned) {
+        StreamingResponseBody body = partitioned
+                ? memberExportService::exportCsvPartitioned
+                : memberExportService::exportCsv;
+        return ResponseEntity.ok()
+                .contentType(CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"members.csv\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,39 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.metrics.QueryMetrics;
+import com.study.querydsl.metrics.QueryShapeStats;
+import com.study.querydsl.metrics.SlowQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class QueryMetricsController {
+
+    private final QueryMetrics queryMetrics;
+
+    /**
+     * 쿼리 모양별 실행 횟수/시간, shape 태그 값으로 /actuator/metrics/querydsl.query.execution?tag=shape:... 와 맞춰 본다.
+     */
+    @GetMapping("/admin/query-metrics")
+    public List<QueryShapeStats> queryMetrics() {
+        return queryMetrics.stats();
+    }
+
+    /**
+     * 바인딩 값 없이 기록한 느린 쿼리, 실행 계획은 SlowQueryExplainController 로 본다.
+     */
+    @GetMapping("/admin/slow-queries")
+    public List<SlowQuery> slowQueries() {
+        return queryMetrics.slowQueries();
+    }
+
+    @DeleteMapping("/admin/slow-queries")
+    public void reset() {
+        queryMetrics.reset();
+    }
+}
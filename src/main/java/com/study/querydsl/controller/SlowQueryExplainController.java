@@ -0,0 +1,28 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.metrics.QueryMetrics;
+import com.study.querydsl.metrics.SlowQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 인증 없이 DB 에 EXPLAIN 을 실행하므로 query-metrics.explain 을 켠 운영(prod) 외 환경에서만 연다.
+ */
+@RestController
+@Profile("!prod")
+@ConditionalOnProperty(prefix = "querydsl.query-metrics", name = "explain", havingValue = "true")
+@RequiredArgsConstructor
+public class SlowQueryExplainController {
+
+    private final QueryMetrics queryMetrics;
+
+    @GetMapping("/admin/slow-queries/explain")
+    public List<SlowQuery> explain() {
+        return queryMetrics.explainSlowQueries();
+    }
+}
@@ -0,0 +1,28 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.dto.TeamStatisticsDto;
+import com.study.querydsl.statistics.TeamStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamStatisticsController {
+
+    private final TeamStatisticsService teamStatisticsService;
+
+    @GetMapping("/teams/statistics")
+    public List<TeamStatisticsDto> statistics() {
+        return teamStatisticsService.findAll();
+    }
+
+    @GetMapping("/teams/{teamId}/statistics")
+    public ResponseEntity<TeamStatisticsDto> statistics(@PathVariable Long teamId) {
+        return ResponseEntity.of(teamStatisticsService.find(teamId));
+    }
+}
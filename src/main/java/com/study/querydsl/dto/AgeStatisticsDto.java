@@ -0,0 +1,43 @@
+package com.study.querydsl.dto;
+
+import com.study.querydsl.repository.support.PartialAggregate;
+import lombok.Value;
+
+/**
+ * 회원 나이 집계, 구간별 결과를 combine 으로 합친다. (평균은 합치지 않고 sum / count 로 계산)
+ */
+@Value
+public class AgeStatisticsDto implements PartialAggregate<AgeStatisticsDto> {
+
+    public static final AgeStatisticsDto EMPTY = new AgeStatisticsDto(0, 0, null, null);
+
+    long memberCount;
+    long ageSum;
+    Integer minAge;
+    Integer maxAge;
+
+    /**
+     * sum 은 DB 마다 Integer/Long/BigDecimal 로 올 수 있어서 Number 로 받는다.
+     */
+    public static AgeStatisticsDto of(Number memberCount, Number ageSum, Integer minAge, Integer maxAge) {
+        long count = memberCount != null ? memberCount.longValue() : 0;
+        return count == 0 ? EMPTY
+                : new AgeStatisticsDto(count, ageSum != null ? ageSum.longValue() : 0, minAge, maxAge);
+    }
+
+    public Double getAverageAge() {
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+
+    @Override
+    public AgeStatisticsDto combine(AgeStatisticsDto other) {
+        if (other.memberCount == 0) {
+            return this;
+        }
+        if (memberCount == 0) {
+            return other;
+        }
+        return new AgeStatisticsDto(memberCount + other.memberCount, ageSum + other.ageSum,
+                Math.min(minAge, other.minAge), Math.max(maxAge, other.maxAge));
+    }
+}
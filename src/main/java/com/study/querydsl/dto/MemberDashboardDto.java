@@ -0,0 +1,13 @@
+package com.study.querydsl.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class MemberDashboardDto {
+
+    List<MemberTeamDto> members;
+    List<TeamStatisticsDto> teams;
+    long totalMembers;
+}
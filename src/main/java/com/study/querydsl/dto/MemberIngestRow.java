@@ -0,0 +1,13 @@
+package com.study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MemberIngestRow {
+
+    private String memberName;
+    private int age;
+    private Long teamId;
+}
@@ -0,0 +1,13 @@
+package com.study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberSearchCondition {
+
+    private String memberName;
+    private String teamName;
+    private Integer ageGoe;
+    private Integer ageLoe;
+    private MemberSearchSort sort;
+}
@@ -0,0 +1,12 @@
+package com.study.querydsl.dto;
+
+/**
+ * 회원 검색 정렬, 각 정렬은 member 인덱스 하나로 처리되도록 골랐다.
+ * 같은 값 안에서는 member.id 로 순서를 고정한다.
+ */
+public enum MemberSearchSort {
+    ID,
+    MEMBER_NAME,
+    AGE,
+    AGE_DESC
+}
@@ -0,0 +1,23 @@
+package com.study.querydsl.dto;
+
+import com.study.querydsl.entity.TeamStatistics;
+import lombok.Value;
+
+@Value
+public class TeamStatisticsDto {
+
+    Long teamId;
+    long memberCount;
+    long ageSum;
+    Integer minAge;
+    Integer maxAge;
+
+    public static TeamStatisticsDto of(TeamStatistics statistics) {
+        return new TeamStatisticsDto(statistics.getTeamId(), statistics.getMemberCount(),
+                statistics.getAgeSum(), statistics.getMinAge(), statistics.getMaxAge());
+    }
+
+    public Double getAverageAge() {
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+}
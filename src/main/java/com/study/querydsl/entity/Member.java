@@ -4,16 +4,26 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.Hibernate;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        // 이름 검색/정렬 (+나이 범위), member_id 는 PK 로 함께 들어가서 검색 결과 컬럼을 모두 덮는다.
+        @Index(name = "idx_member_name_age", columnList = "memberName, age, team_id"),
+        // 나이 범위 검색/정렬
+        @Index(name = "idx_member_age", columnList = "age, team_id"),
+        // 팀 이름 검색 시 team 에서 member 로 조인 (+나이 범위)
+        @Index(name = "idx_member_team_age", columnList = "team_id, age, memberName")
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(exclude = {"team"})
 public class Member {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
 
@@ -33,8 +43,22 @@ public class Member {
         }
     }
 
+    /**
+     * 팀의 members 는 이미 메모리에 올라와 있을 때만 맞춰 준다.
+     * 올라와 있지 않으면 나중에 읽을 때 DB 에서 가져오므로, 회원 하나를 옮기려고 팀 전체 회원을 읽지 않는다.
+     * (같은 트랜잭션에서 flush 전에 members 를 처음 읽으면 이 회원은 빠져 있다.)
+     */
     public void changeTeam(Team team) {
+        if (this.team != null && isLoaded(this.team)) {
+            this.team.getMembers().remove(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        if (isLoaded(team)) {
+            team.getMembers().add(this);
+        }
+    }
+
+    private static boolean isLoaded(Team team) {
+        return Hibernate.isInitialized(team) && Hibernate.isInitialized(team.getMembers());
     }
 }
@@ -0,0 +1,58 @@
+package com.study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.Objects;
+
+/**
+ * 팀별 회원 통계 요약 테이블
+ * 회원이 추가/삭제/이동될 때 TeamStatisticsListener 가 같은 트랜잭션 안에서 증분으로 갱신한다.
+ */
+@Entity
+@Table(name = "team_statistics")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStatistics {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "member_count")
+    private long memberCount;
+
+    @Column(name = "age_sum")
+    private long ageSum;
+
+    @Column(name = "min_age")
+    private Integer minAge;
+
+    @Column(name = "max_age")
+    private Integer maxAge;
+
+    public TeamStatistics(Long teamId) {
+        this.teamId = teamId;
+    }
+
+    public void overwrite(long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+
+    public boolean matches(long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        return this.memberCount == memberCount
+                && this.ageSum == ageSum
+                && Objects.equals(this.minAge, minAge)
+                && Objects.equals(this.maxAge, maxAge);
+    }
+}
@@ -0,0 +1,209 @@
+package com.study.querydsl.generator;
+
+import com.study.querydsl.entity.Item;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.nearcache.ProjectionCache;
+import com.study.querydsl.snapshot.MemberSnapshotService;
+import com.study.querydsl.statistics.TeamStatisticsService;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * 부하 테스트/벤치마크용 데이터 생성 (Team, Member, Item)
+ * - 팀 크기는 Zipf 분포로 치우치고, 나이는 AGE_HISTOGRAM 을 따르며, 일부 회원은 이름/팀이 없다.
+ * - 엔티티를 persist 하지 않고 JDBC batch insert 로 넣는다. id 는 엔티티의 id 생성기(pooled-lo 시퀀스)에서 받으므로
+ *   이후 persist 와 겹치지 않고, 테이블/컬럼 이름은 엔티티 매핑에서 가져온다.
+ * - SplittableRandom(seed) 하나에서 종류별 난수열을 나눠 쓰므로 같은 seed 는 같은 데이터를 만든다.
+ * 엔티티 이벤트가 없으므로 끝난 뒤 팀 통계를 맞추고, 2차 캐시, 회원 스냅샷, 프로젝션 캐시를 비운다.
+ */
+@Slf4j
+@Service
+public class DataGenerator {
+
+    /**
+     * 나이 구간 [from, to] 과 비율(%)
+     */
+    private static final int[][] AGE_HISTOGRAM = {
+            {0, 9, 3}, {10, 19, 12}, {20, 29, 25}, {30, 39, 24},
+            {40, 49, 16}, {50, 59, 11}, {60, 79, 7}, {80, 99, 2}
+    };
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final TeamStatisticsService teamStatisticsService;
+    private final MemberSnapshotService memberSnapshotService;
+    private final ProjectionCache projectionCache;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize;
+
+    public DataGenerator(EntityManager em, PlatformTransactionManager transactionManager,
+                         TeamStatisticsService teamStatisticsService,
+                         MemberSnapshotService memberSnapshotService,
+                         ProjectionCache projectionCache) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.teamStatisticsService = teamStatisticsService;
+        this.memberSnapshotService = memberSnapshotService;
+        this.projectionCache = projectionCache;
+    }
+
+    public GeneratedData generate(DataGeneratorProperties spec) {
+        long started = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(spec.getSeed());
+        SplittableRandom teamRandom = random.split();
+        SplittableRandom memberRandom = random.split();
+
+        List<Long> teamIds = new ArrayList<>(spec.getTeams());
+        insert(Team.class, spec.getTeams(), spec.getCommitSize(), teamIds::add, (statement, index) ->
+                statement.setString(2, "team" + index), "name");
+
+        TeamPicker teamPicker = new TeamPicker(teamIds, spec.getTeamSkew(), teamRandom);
+        long members = insert(Member.class, spec.getMembers(), spec.getCommitSize(), id -> { }, (statement, index) -> {
+            boolean nullName = memberRandom.nextDouble() < spec.getNullNameRatio();
+            boolean noTeam = teamIds.isEmpty() || memberRandom.nextDouble() < spec.getNoTeamRatio();
+            if (nullName) {
+                statement.setNull(2, Types.VARCHAR);
+            } else {
+                statement.setString(2, "member" + index);
+            }
+            statement.setInt(3, age(memberRandom));
+            if (noTeam) {
+                statement.setNull(4, Types.BIGINT);
+            } else {
+                statement.setLong(4, teamPicker.pick(memberRandom));
+            }
+        }, "memberName", "age", "team");
+
+        long items = insert(Item.class, spec.getItems(), spec.getCommitSize(), id -> { }, (statement, index) ->
+                statement.setString(2, "item" + index), "name");
+
+        if (!teamIds.isEmpty() || members > 0) {
+            teamStatisticsService.reconcile();
+            memberSnapshotService.invalidateAll();
+        }
+        em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictAllRegions();
+        projectionCache.invalidateAll();
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        log.info("generated {} teams, {} members, {} items in {} ms (seed {})",
+                teamIds.size(), members, items, elapsed.toMillis(), spec.getSeed());
+        return new GeneratedData(teamIds, members, items, elapsed);
+    }
+
+    private static int age(SplittableRandom random) {
+        int percent = random.nextInt(100);
+        for (int[] bucket : AGE_HISTOGRAM) {
+            percent -= bucket[2];
+            if (percent < 0) {
+                return random.nextInt(bucket[0], bucket[1] + 1);
+            }
+        }
+        int[] last = AGE_HISTOGRAM[AGE_HISTOGRAM.length - 1];
+        return random.nextInt(last[0], last[1] + 1);
+    }
+
+    /**
+     * count 행을 commitSize 씩 트랜잭션으로 나눠 넣는다. 첫 번째 파라미터는 id, 나머지는 properties 순서
+     */
+    private long insert(Class<?> entityClass, long count, int commitSize, LongConsumer ids, RowBinder binder,
+                        String... properties) {
+        long inserted = 0;
+        while (inserted < count) {
+            long from = inserted;
+            long to = Math.min(count, from + commitSize);
+            transactionTemplate.executeWithoutResult(status -> {
+                SessionImplementor session = em.unwrap(Session.class).unwrap(SessionImplementor.class);
+                AbstractEntityPersister persister = (AbstractEntityPersister) session.getFactory()
+                        .getMetamodel().entityPersister(entityClass);
+                String sql = insertSql(persister, properties);
+                session.doWork(connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        for (long index = from; index < to; index++) {
+                            long id = ((Number) persister.getIdentifierGenerator().generate(session, null)).longValue();
+                            statement.setLong(1, id);
+                            binder.bind(statement, index);
+                            statement.addBatch();
+                            ids.accept(id);
+                            if ((index - from + 1) % batchSize == 0) {
+                                statement.executeBatch();
+                            }
+                        }
+                        statement.executeBatch();
+                    }
+                });
+            });
+            inserted = to;
+            log.debug("{}: {}/{} rows", entityClass.getSimpleName(), inserted, count);
+        }
+        return inserted;
+    }
+
+    private static String insertSql(AbstractEntityPersister persister, String... properties) {
+        List<String> columns = new ArrayList<>();
+        columns.add(persister.getIdentifierColumnNames()[0]);
+        Arrays.stream(properties).forEach(property -> columns.add(persister.getPropertyColumnNames(property)[0]));
+        return "insert into " + persister.getTableName()
+                + " (" + String.join(", ", columns) + ")"
+                + " values (" + columns.stream().map(c -> "?").collect(Collectors.joining(", ")) + ")";
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+
+        void bind(PreparedStatement statement, long index) throws SQLException;
+    }
+
+    /**
+     * 순위 k 팀의 가중치가 1 / (k + 1)^skew 인 Zipf 분포
+     * 순위는 팀 id 순서가 아니라 섞어서 배정한다. (먼저 만든 팀이 항상 큰 팀이 되지 않게)
+     */
+    private static class TeamPicker {
+
+        private final long[] rankedTeamIds;
+        private final double[] cumulative;
+
+        TeamPicker(List<Long> teamIds, double skew, SplittableRandom random) {
+            rankedTeamIds = teamIds.stream().mapToLong(Long::longValue).toArray();
+            for (int i = rankedTeamIds.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                long swap = rankedTeamIds[i];
+                rankedTeamIds[i] = rankedTeamIds[j];
+                rankedTeamIds[j] = swap;
+            }
+            cumulative = new double[rankedTeamIds.length];
+            double total = 0;
+            for (int rank = 0; rank < cumulative.length; rank++) {
+                total += 1 / Math.pow(rank + 1, skew);
+                cumulative[rank] = total;
+            }
+        }
+
+        long pick(SplittableRandom random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int rank = Arrays.binarySearch(cumulative, target);
+            rank = rank >= 0 ? rank : Math.min(-rank - 1, cumulative.length - 1);
+            return rankedTeamIds[rank];
+        }
+    }
+}
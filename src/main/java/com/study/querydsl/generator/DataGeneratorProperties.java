@@ -0,0 +1,49 @@
+package com.study.querydsl.generator;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.generator")
+public class DataGeneratorProperties {
+
+    /**
+     * true 면 애플리케이션 시작 후 데이터를 만든다. (DataGeneratorRunner)
+     */
+    private boolean enabled = false;
+
+    /**
+     * 같은 seed 면 같은 데이터(이름, 나이, 팀 배정)가 만들어진다. id 는 시퀀스를 따른다.
+     */
+    private long seed = 42;
+
+    private int teams = 100;
+
+    private long members = 10_000;
+
+    private long items = 1_000;
+
+    /**
+     * 팀 크기 치우침 (Zipf 지수), 0 이면 균등, 클수록 몇몇 팀에 회원이 몰린다.
+     */
+    private double teamSkew = 1.0;
+
+    /**
+     * 이름이 없는(null) 회원 비율
+     */
+    private double nullNameRatio = 0.01;
+
+    /**
+     * 팀이 없는 회원 비율
+     */
+    private double noTeamRatio = 0.01;
+
+    /**
+     * 트랜잭션 하나에 넣을 행 수, 아주 큰 생성도 트랜잭션/언두 로그가 커지지 않게 나눠서 커밋한다.
+     */
+    private int commitSize = 50_000;
+}
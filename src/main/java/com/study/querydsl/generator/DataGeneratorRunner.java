@@ -0,0 +1,24 @@
+package com.study.querydsl.generator;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 시작할 때 querydsl.generator 설정대로 데이터를 만든다.
+ * 예) --querydsl.generator.enabled=true --querydsl.generator.members=10000000 --querydsl.generator.seed=7
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "querydsl.generator", name = "enabled", havingValue = "true")
+public class DataGeneratorRunner implements CommandLineRunner {
+
+    private final DataGenerator dataGenerator;
+    private final DataGeneratorProperties properties;
+
+    @Override
+    public void run(String... args) {
+        dataGenerator.generate(properties);
+    }
+}
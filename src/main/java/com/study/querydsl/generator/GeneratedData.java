@@ -0,0 +1,15 @@
+package com.study.querydsl.generator;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.List;
+
+@Value
+public class GeneratedData {
+
+    List<Long> teamIds;
+    long members;
+    long items;
+    Duration elapsed;
+}
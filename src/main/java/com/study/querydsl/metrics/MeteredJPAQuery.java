@@ -0,0 +1,120 @@
+package com.study.querydsl.metrics;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.Session;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * fetch/fetchOne(fetchFirst)/fetchResults/fetchCount 의 시간과 행 수를 QueryMetrics 에 남기는 JPAQuery
+ * - build: createQuery 안에서 JPQL 직렬화 + em.createQuery 에 걸린 시간
+ * - execution: 나머지 (SQL 실행, 결과 변환, 즉시 로딩 연관관계 select)
+ * - hydrated: 실행 전후 영속성 컨텍스트의 엔티티 수 차이 (이미 올라와 있던 엔티티는 세지 않는다)
+ * iterate()/stream() 은 결과를 다 읽는 시점을 알 수 없어 기록하지 않는다.
+ */
+public class MeteredJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryMetrics metrics;
+    private String jpql;
+    private long buildNanos;
+
+    public MeteredJPAQuery(EntityManager em, QueryMetrics metrics) {
+        super(em);
+        this.metrics = metrics;
+    }
+
+    public MeteredJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetrics metrics) {
+        super(em, templates);
+        this.metrics = metrics;
+    }
+
+    public MeteredJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata, QueryMetrics metrics) {
+        super(em, templates, metadata);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public List<T> fetch() {
+        return measure(super::fetch, List::size);
+    }
+
+    @Override
+    public T fetchOne() {
+        return measure(super::fetchOne, result -> result == null ? 0 : 1);
+    }
+
+    @Override
+    public QueryResults<T> fetchResults() {
+        return measure(super::fetchResults, results -> results.getResults().size());
+    }
+
+    @Override
+    public long fetchCount() {
+        return measure(super::fetchCount, count -> 1);
+    }
+
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        long start = System.nanoTime();
+        try {
+            return super.createQuery(modifiers, forCount);
+        } finally {
+            buildNanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    protected void logQuery(String queryString) {
+        super.logQuery(queryString);
+        jpql = queryString;
+    }
+
+    @Override
+    public MeteredJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        MeteredJPAQuery<T> q = new MeteredJPAQuery<>(entityManager, templates, getMetadata().clone(), metrics);
+        q.clone(this);
+        return q;
+    }
+
+    private <R> R measure(Supplier<R> execution, ToIntFunction<R> rows) {
+        if (!metrics.isEnabled()) {
+            return execution.get();
+        }
+        jpql = null;
+        buildNanos = 0;
+        int managedBefore = managedEntities();
+        QueryStatementCapture capture = QueryStatementCapture.begin();
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = execution.get();
+        } finally {
+            capture.end();
+        }
+        long elapsed = System.nanoTime() - start;
+        int hydrated = managedBefore < 0 ? -1 : Math.max(0, managedEntities() - managedBefore);
+        if (jpql != null) {
+            metrics.record(jpql, buildNanos, elapsed - buildNanos, rows.applyAsInt(result), hydrated, capture);
+        }
+        return result;
+    }
+
+    /**
+     * 트랜잭션 밖에서는 공유 EntityManager 가 호출마다 새로 만들어지므로 셀 수 없다. (-1)
+     */
+    private int managedEntities() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return -1;
+        }
+        return entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+    }
+}
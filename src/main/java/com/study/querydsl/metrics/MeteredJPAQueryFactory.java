@@ -0,0 +1,27 @@
+package com.study.querydsl.metrics;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+
+/**
+ * select/selectFrom/from 이 모두 query() 를 거치므로 여기서 MeteredJPAQuery 를 돌려주면
+ * 쿼리를 만드는 코드는 바꾸지 않아도 된다. (update/delete/insert 는 기록하지 않는다)
+ */
+public class MeteredJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final QueryMetrics metrics;
+
+    public MeteredJPAQueryFactory(EntityManager entityManager, QueryMetrics metrics) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new MeteredJPAQuery<Void>(entityManager, metrics);
+    }
+}
@@ -0,0 +1,163 @@
+package com.study.querydsl.metrics;
+
+import com.study.querydsl.sql.ExplainPlan;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 쿼리 모양(정규화한 JPQL)별 Micrometer 미터와 느린 쿼리 기록
+ * - querydsl.query.build / querydsl.query.execution (Timer), querydsl.query.rows / querydsl.query.hydrated (DistributionSummary)
+ * - 모든 미터에 shape 태그(JPQL 지문)를 붙이고, 지문 → JPQL 은 /admin/query-metrics 로 본다.
+ * - 느린 쿼리는 바인딩 값 없이 남기고, EXPLAIN 은 요청 스레드에서 돌리지 않고 explainSlowQueries 를 부를 때 실행한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryMetrics {
+
+    static final String OTHER = "other";
+
+    private final MeterRegistry registry;
+    private final QueryMetricsProperties properties;
+    private final DataSource dataSource;
+    // Querydsl 은 같은 쿼리를 항상 같은 JPQL 로 직렬화하므로 원본 JPQL 로 찾고, 처음 볼 때만 정규화한다.
+    private final ConcurrentMap<String, QueryShape> byJpql = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, QueryShape> byFingerprint = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ConcurrentLinkedDeque<>();
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public QueryShape shape(String jpql) {
+        QueryShape shape = byJpql.get(jpql);
+        if (shape != null) {
+            return shape;
+        }
+        if (byJpql.size() >= properties.getMaxShapes()) {
+            return byFingerprint.computeIfAbsent(OTHER, f -> new QueryShape(f, OTHER, registry, properties.isHistogram()));
+        }
+        String fingerprint = QueryShape.fingerprint(jpql);
+        shape = byFingerprint.computeIfAbsent(fingerprint,
+                f -> new QueryShape(f, QueryShape.normalize(jpql), registry, properties.isHistogram()));
+        byJpql.putIfAbsent(jpql, shape);
+        return shape;
+    }
+
+    /**
+     * hydrated 가 음수면 (트랜잭션 밖이라 영속성 컨텍스트를 볼 수 없으면) 기록하지 않는다.
+     */
+    public void record(String jpql, long buildNanos, long executionNanos, int rows, int hydrated,
+                       QueryStatementCapture capture) {
+        QueryShape shape = shape(jpql);
+        shape.getBuild().record(buildNanos, TimeUnit.NANOSECONDS);
+        shape.getExecution().record(executionNanos, TimeUnit.NANOSECONDS);
+        shape.getRows().record(rows);
+        if (hydrated >= 0) {
+            shape.getHydrated().record(hydrated);
+        }
+        if (buildNanos + executionNanos >= properties.getSlowThreshold().toNanos()) {
+            SlowQuery slowQuery = new SlowQuery(shape.getFingerprint(), shape.getJpql(), capture.sql(),
+                    millis(buildNanos + executionNanos), millis(buildNanos), rows, capture.getStatements(),
+                    LocalDateTime.now());
+            log.warn("slow query {} {}ms rows={} statements={}: {}", slowQuery.getFingerprint(),
+                    slowQuery.getElapsedMs(), rows, slowQuery.getStatements(), slowQuery.getJpql());
+            slowQueries.addFirst(slowQuery);
+            while (slowQueries.size() > properties.getSlowQueries()) {
+                slowQueries.pollLast();
+            }
+        }
+    }
+
+    /**
+     * 전체 실행 시간이 큰 순서
+     */
+    public List<QueryShapeStats> stats() {
+        return byFingerprint.values().stream()
+                .map(QueryMetrics::stats)
+                .sorted(Comparator.comparingDouble(QueryShapeStats::getTotalMs).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 최근 것부터
+     */
+    public List<SlowQuery> slowQueries() {
+        return new ArrayList<>(slowQueries);
+    }
+
+    /**
+     * 최근 것부터, 아직 실행 계획이 없는 select 는 여기서 EXPLAIN 한다. (가짜 값을 바인딩한다, ExplainPlan 참고)
+     */
+    public List<SlowQuery> explainSlowQueries() {
+        List<SlowQuery> result = slowQueries();
+        List<SlowQuery> unexplained = result.stream()
+                .filter(q -> q.getPlan() == null)
+                .collect(Collectors.toList());
+        if (unexplained.isEmpty()) {
+            return result;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            for (SlowQuery slowQuery : unexplained) {
+                slowQuery.setPlan(explain(connection, slowQuery.getSql()));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("EXPLAIN 실행 실패", e);
+        }
+        return result;
+    }
+
+    public void reset() {
+        slowQueries.clear();
+    }
+
+    private static List<String> explain(Connection connection, String sql) {
+        if (sql == null || !sql.trim().toLowerCase(Locale.ROOT).startsWith("select")) {
+            return Collections.emptyList();
+        }
+        try {
+            return ExplainPlan.of(connection, sql).getLines();
+        } catch (SQLException e) {
+            // 쿼리 하나의 EXPLAIN 실패로 목록 전체를 못 보게 하지 않는다.
+            return Collections.singletonList("EXPLAIN 실패: " + e.getMessage());
+        }
+    }
+
+    private static QueryShapeStats stats(QueryShape shape) {
+        Timer execution = shape.getExecution();
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (ValueAtPercentile value : execution.takeSnapshot().percentileValues()) {
+            percentiles.put(String.valueOf(value.percentile()), value.value(TimeUnit.MILLISECONDS));
+        }
+        return new QueryShapeStats(shape.getFingerprint(), shape.getJpql(), execution.count(),
+                execution.totalTime(TimeUnit.MILLISECONDS), execution.mean(TimeUnit.MILLISECONDS),
+                execution.max(TimeUnit.MILLISECONDS), percentiles, shape.getBuild().mean(TimeUnit.MILLISECONDS),
+                shape.getRows().mean(), shape.getHydrated().mean());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.study.querydsl.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.query-metrics")
+public class QueryMetricsProperties {
+
+    /**
+     * JPAQueryFactory 로 만든 쿼리의 시간/행 수를 기록할지 여부
+     */
+    private boolean enabled = true;
+
+    /**
+     * 실행 시간 백분위 히스토그램을 내보낼지 여부 (모양마다 버킷 수만큼 시계열이 늘어난다)
+     */
+    private boolean histogram = false;
+
+    /**
+     * 기록할 쿼리 모양 수, 넘으면 새 모양은 shape=other 로 묶는다. (태그 수 제한)
+     */
+    private int maxShapes = 200;
+
+    /**
+     * 이보다 오래 걸린 쿼리는 SQL 과 함께 느린 쿼리로 남긴다.
+     */
+    private Duration slowThreshold = Duration.ofMillis(500);
+
+    /**
+     * 남겨 둘 느린 쿼리 수 (오래된 것부터 버린다)
+     */
+    private int slowQueries = 100;
+
+    /**
+     * /admin/slow-queries/explain 을 열지 여부, 인증 없이 DB 에 EXPLAIN 을 실행하므로 prod 프로필에서는 켜도 열지 않는다.
+     */
+    private boolean explain = false;
+}
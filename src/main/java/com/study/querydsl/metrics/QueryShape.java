@@ -0,0 +1,70 @@
+package com.study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 같은 JPQL 로 직렬화되는 쿼리 묶음과 그 미터
+ * 미터를 모양마다 한 번만 찾아 두어 실행마다 레지스트리를 뒤지지 않는다.
+ */
+@Getter
+public class QueryShape {
+
+    private final String fingerprint;
+    private final String jpql;
+    private final Timer build;
+    private final Timer execution;
+    private final DistributionSummary rows;
+    private final DistributionSummary hydrated;
+
+    QueryShape(String fingerprint, String jpql, MeterRegistry registry, boolean histogram) {
+        this.fingerprint = fingerprint;
+        this.jpql = jpql;
+        this.build = Timer.builder("querydsl.query.build")
+                .description("JPQL 직렬화와 Hibernate 쿼리 생성 시간")
+                .tag("shape", fingerprint)
+                .register(registry);
+        Timer.Builder execution = Timer.builder("querydsl.query.execution")
+                .description("SQL 실행과 결과 변환 시간")
+                .tag("shape", fingerprint);
+        if (histogram) {
+            execution.publishPercentiles(0.5, 0.95, 0.99).publishPercentileHistogram();
+        }
+        this.execution = execution.register(registry);
+        this.rows = DistributionSummary.builder("querydsl.query.rows")
+                .description("돌려준 행 수")
+                .tag("shape", fingerprint)
+                .register(registry);
+        this.hydrated = DistributionSummary.builder("querydsl.query.hydrated")
+                .description("영속성 컨텍스트에 새로 올라온 엔티티 수")
+                .tag("shape", fingerprint)
+                .register(registry);
+    }
+
+    /**
+     * 공백만 다른 JPQL 은 같은 모양으로 본다. 정규화한 JPQL 의 SHA-1 앞 16자리(64비트)라 재시작해도 같은 값이고,
+     * 32비트 hashCode 처럼 모양 수백 개에서 서로 다른 쿼리가 한 지문으로 섞일 일이 사실상 없다.
+     */
+    static String fingerprint(String jpql) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(normalize(jpql).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String normalize(String jpql) {
+        return jpql.replaceAll("\\s+", " ").trim();
+    }
+}
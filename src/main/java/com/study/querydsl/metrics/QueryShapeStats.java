@@ -0,0 +1,23 @@
+package com.study.querydsl.metrics;
+
+import lombok.Value;
+
+import java.util.Map;
+
+@Value
+public class QueryShapeStats {
+
+    String fingerprint;
+    String jpql;
+    long count;
+    double totalMs;
+    double meanMs;
+    double maxMs;
+    /**
+     * histogram 설정을 켰을 때만 채운다. 예) {"0.95": 12.3}
+     */
+    Map<String, Double> percentilesMs;
+    double meanBuildMs;
+    double meanRows;
+    double meanHydrated;
+}
@@ -0,0 +1,56 @@
+package com.study.querydsl.metrics;
+
+import com.p6spy.engine.common.StatementInformation;
+
+/**
+ * 쿼리 하나를 실행하는 동안 처음 실행된 SQL 을 잡아 둔다. (느린 쿼리의 EXPLAIN 용)
+ * 바인딩 값(개인정보일 수 있다)은 꺼내지 않고 ? 가 들어간 SQL 만 돌려준다.
+ */
+public final class QueryStatementCapture {
+
+    private static final ThreadLocal<QueryStatementCapture> CURRENT = new ThreadLocal<>();
+
+    private final QueryStatementCapture parent;
+    private StatementInformation first;
+    private int statements;
+
+    private QueryStatementCapture(QueryStatementCapture parent) {
+        this.parent = parent;
+    }
+
+    public static QueryStatementCapture begin() {
+        QueryStatementCapture capture = new QueryStatementCapture(CURRENT.get());
+        CURRENT.set(capture);
+        return capture;
+    }
+
+    public void end() {
+        if (parent != null) {
+            CURRENT.set(parent);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    static void record(StatementInformation statementInformation) {
+        QueryStatementCapture capture = CURRENT.get();
+        if (capture == null) {
+            return;
+        }
+        if (capture.first == null) {
+            capture.first = statementInformation;
+        }
+        capture.statements++;
+    }
+
+    public String sql() {
+        return first == null ? null : first.getSql();
+    }
+
+    /**
+     * 쿼리 실행 중 나간 SQL 수 (즉시 로딩 연관관계 select 포함)
+     */
+    public int getStatements() {
+        return statements;
+    }
+}
@@ -0,0 +1,41 @@
+package com.study.querydsl.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+public class SlowQuery {
+
+    private final String fingerprint;
+    private final String jpql;
+    /**
+     * 첫 번째 SQL, 바인딩 값 없이 ? 그대로 (p6spy 로 잡지 못하면 null)
+     */
+    private final String sql;
+    private final double elapsedMs;
+    private final double buildMs;
+    private final int rows;
+    private final int statements;
+    private final LocalDateTime capturedAt;
+
+    /**
+     * /admin/slow-queries/explain 을 처음 조회할 때 EXPLAIN 으로 채운다.
+     */
+    @Setter
+    private volatile List<String> plan;
+
+    public SlowQuery(String fingerprint, String jpql, String sql, double elapsedMs, double buildMs,
+                     int rows, int statements, LocalDateTime capturedAt) {
+        this.fingerprint = fingerprint;
+        this.jpql = jpql;
+        this.sql = sql;
+        this.elapsedMs = elapsedMs;
+        this.buildMs = buildMs;
+        this.rows = rows;
+        this.statements = statements;
+        this.capturedAt = capturedAt;
+    }
+}
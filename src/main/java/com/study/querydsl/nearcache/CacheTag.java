@@ -0,0 +1,28 @@
+package com.study.querydsl.nearcache;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * 캐시 항목이 의존하는 행의 범위
+ * - anyRow(Member.class): 회원이 하나라도 바뀌면 무효 (집계, 서브쿼리)
+ * - of(Member.class, "memberName", "A"): 바뀌기 전이나 후의 memberName 이 "A" 인 회원이 바뀌면 무효
+ * 연관 필드(member.team)의 값은 연관 엔티티의 id 다.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CacheTag {
+
+    Class<?> entity;
+    String property;
+    Object value;
+
+    public static CacheTag anyRow(Class<?> entity) {
+        return new CacheTag(entity, null, null);
+    }
+
+    public static CacheTag of(Class<?> entity, String property, Object value) {
+        return new CacheTag(entity, property, value);
+    }
+}
@@ -0,0 +1,27 @@
+package com.study.querydsl.nearcache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+@Configuration
+public class NearCacheConfig {
+
+    /**
+     * JpaTransactionManager 는 EntityManagerFactory 의 JpaDialect 를 쓰므로 팩토리 빈에 넣는다.
+     */
+    @Bean
+    public static BeanPostProcessor nearCacheJpaDialectPostProcessor(ObjectProvider<ProjectionCache> projectionCache) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean) {
+                    ((LocalContainerEntityManagerFactoryBean) bean).setJpaDialect(new NearCacheJpaDialect(projectionCache));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package com.study.querydsl.nearcache;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 트랜잭션을 시작할 때 ProjectionCache 의 generation 을 남긴다.
+ * REPEATABLE READ 스냅샷은 시작한 뒤(첫 조회)에 정해지므로 그 트랜잭션이 읽은 값은 이 generation 보다 오래되지 않았다.
+ */
+class NearCacheJpaDialect extends HibernateJpaDialect {
+
+    private final ObjectProvider<ProjectionCache> projectionCache;
+    private final ConcurrentMap<Object, UUID> sessions = new ConcurrentHashMap<>();
+
+    NearCacheJpaDialect(ObjectProvider<ProjectionCache> projectionCache) {
+        this.projectionCache = projectionCache;
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        ProjectionCache cache = projectionCache.getIfAvailable();
+        UUID session = entityManager.unwrap(SessionImplementor.class).getSessionIdentifier();
+        if (cache != null) {
+            cache.transactionBegun(session);
+        }
+        Object transactionData;
+        try {
+            transactionData = super.beginTransaction(entityManager, definition);
+        } catch (SQLException | RuntimeException e) {
+            if (cache != null) {
+                cache.transactionEnded(session);
+            }
+            throw e;
+        }
+        if (cache != null) {
+            sessions.put(transactionData, session);
+        }
+        return transactionData;
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        super.cleanupTransaction(transactionData);
+        UUID session = transactionData != null ? sessions.remove(transactionData) : null;
+        ProjectionCache cache = projectionCache.getIfAvailable();
+        if (session != null && cache != null) {
+            cache.transactionEnded(session);
+        }
+    }
+}
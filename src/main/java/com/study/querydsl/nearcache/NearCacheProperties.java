@@ -0,0 +1,30 @@
+package com.study.querydsl.nearcache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.near-cache")
+public class NearCacheProperties {
+
+    /**
+     * false 면 캐시를 거치지 않고 매번 조회한다.
+     */
+    private boolean enabled = true;
+
+    /**
+     * 최대 항목 수(쿼리 모양 + 파라미터 조합 수)
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * 쓰기 후 만료 시간, 무효화를 놓친 변경(다른 서버, DB 직접 수정)이 보이는 최대 시간이기도 하다.
+     */
+    private Duration ttl = Duration.ofMinutes(1);
+}
@@ -0,0 +1,218 @@
+package com.study.querydsl.nearcache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.study.querydsl.repository.support.QueryKey;
+import com.study.querydsl.singleflight.SingleFlightJPAQuery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DTO/스칼라 프로젝션 결과를 쿼리 모양(JPQL + 프로젝션) + 파라미터로 들고 있는 캐시
+ * - 항목마다 의존하는 CacheTag 를 받아 두고, 커밋된 변경(ProjectionCacheListener)이 건드린 태그의 항목만 지운다.
+ *   엔티티 이벤트가 없는 벌크 변경은 invalidateAfterCommit 으로 그 엔티티에 의존하는 항목을 모두 지운다.
+ * - 조회하는 동안 무효화가 일어나면(generation 이 바뀌면) 읽은 값을 담지 않는다.
+ * - 트랜잭션 안의 조회는 트랜잭션 앞쪽에서 정해진 스냅샷(REPEATABLE READ)을 읽으므로
+ *   조회 직전이 아니라 트랜잭션을 시작할 때의 generation 과 비교한다. (NearCacheJpaDialect)
+ * - 읽기 전용이 아닌 트랜잭션 안에서는 캐시를 거치지 않는다. (자기 변경이 보여야 한다)
+ * - 캐시에 없는 같은 쿼리를 동시에 읽으면 한 번만 실행한다. (SingleFlightJPAQuery)
+ *   generation 별로만 합치므로 무효화 뒤에 온 호출은 그 전에 시작한 실행의 결과를 받지 않는다.
+ * 돌려준 리스트는 바꿀 수 없고 DTO 는 다른 호출과 공유되므로 호출한 쪽에서 고치지 않는다.
+ * 이 서버에서 커밋된 변경만 알 수 있으므로 다른 서버의 변경은 ttl 만큼 늦게 보인다.
+ */
+@Component
+public class ProjectionCache {
+
+    private final EntityManager em;
+    private final NearCacheProperties properties;
+    private final Cache<QueryKey, Entry> cache;
+    private final ConcurrentMap<CacheTag, Set<QueryKey>> index = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final ConcurrentMap<UUID, Long> transactionGenerations = new ConcurrentHashMap<>();
+
+    private final Counter bypassed;
+    private final Counter invalidated;
+
+    public ProjectionCache(EntityManager em, NearCacheProperties properties, MeterRegistry registry) {
+        this.em = em;
+        this.properties = properties;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .executor(Runnable::run)
+                .recordStats();
+        if (properties.getTtl() != null) {
+            builder.expireAfterWrite(properties.getTtl());
+        }
+        this.cache = builder.<QueryKey, Entry>removalListener((key, entry, cause) -> {
+            if (key != null && entry != null && cause != RemovalCause.REPLACED) {
+                unindex(key, entry);
+            }
+        }).build();
+
+        CaffeineCacheMetrics.monitor(registry, cache, "projection");
+        this.bypassed = Counter.builder("querydsl.near-cache.bypassed")
+                .description("읽기 전용이 아닌 트랜잭션 안이라서 캐시를 거치지 않은 조회 수")
+                .register(registry);
+        this.invalidated = Counter.builder("querydsl.near-cache.invalidated")
+                .description("변경으로 지운 항목 수")
+                .register(registry);
+    }
+
+    /**
+     * dependsOn 은 결과에 영향을 주는 행을 모두 덮어야 한다. (조인한 엔티티 포함)
+     * 엔티티를 돌려주는 쿼리는 영속성 컨텍스트와 엮여 있어서 담지 않는다.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> fetch(JPAQuery<T> query, CacheTag... dependsOn) {
+        Expression<?> projection = query.getMetadata().getProjection();
+        if (projection instanceof EntityPath) {
+            throw new IllegalArgumentException("near cache holds DTO or scalar projections only: " + projection);
+        }
+        if (!properties.isEnabled()) {
+            return query.fetch();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            bypassed.increment();
+            return query.fetch();
+        }
+
+        QueryKey key = QueryKey.of(query.getMetadata());
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return (List<T>) cached.getRows();
+        }
+        Long loadedGeneration = TransactionSynchronizationManager.isActualTransactionActive()
+                ? transactionGenerations.get(em.unwrap(SessionImplementor.class).getSessionIdentifier())
+                : Long.valueOf(generation.get());
+        if (loadedGeneration == null) {
+            // 시작 시점을 모르는 트랜잭션(JpaTransactionManager 밖)에서 읽은 값은 담지 않는다.
+            return Collections.unmodifiableList(new ArrayList<>(query.fetch()));
+        }
+        List<T> rows = Collections.unmodifiableList(new ArrayList<>(
+                SingleFlightJPAQuery.coalesced(query, loadedGeneration).fetch()));
+        put(key, new Entry(rows, new HashSet<>(Arrays.asList(dependsOn))), loadedGeneration);
+        return rows;
+    }
+
+    /**
+     * 커밋된 변경이 건드린 태그에 의존하는 항목을 지운다.
+     * anyRow 항목은 그 엔티티의 태그가 하나라도 오면 지운다.
+     */
+    public void invalidate(Collection<CacheTag> tags) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            Set<Class<?>> entities = new HashSet<>();
+            for (CacheTag tag : tags) {
+                evict(tag);
+                entities.add(tag.getEntity());
+            }
+            entities.forEach(entity -> evict(CacheTag.anyRow(entity)));
+        }
+    }
+
+    /**
+     * 주어진 엔티티에 의존하는 항목을 모두 지운다.
+     */
+    public void invalidateEntities(Collection<Class<?>> entities) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            for (CacheTag tag : new ArrayList<>(index.keySet())) {
+                if (entities.contains(tag.getEntity())) {
+                    evict(tag);
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+            index.clear();
+        }
+    }
+
+    /**
+     * 엔티티 이벤트 없이 바꾸는 쪽(벌크 JPQL, JDBC)이 호출한다.
+     * 트랜잭션 안이면 커밋된 뒤에 그 엔티티에 의존하는 항목을 모두 지운다.
+     */
+    public void invalidateAfterCommit(Class<?>... entities) {
+        List<Class<?>> types = Arrays.asList(entities);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateEntities(types);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateEntities(types);
+            }
+        });
+    }
+
+    void transactionBegun(UUID session) {
+        transactionGenerations.put(session, generation.get());
+    }
+
+    void transactionEnded(UUID session) {
+        transactionGenerations.remove(session);
+    }
+
+    private void put(QueryKey key, Entry entry, long loadedGeneration) {
+        synchronized (this) {
+            if (generation.get() != loadedGeneration) {
+                return;
+            }
+            cache.put(key, entry);
+            entry.getTags().forEach(tag -> index.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(key));
+        }
+    }
+
+    private void evict(CacheTag tag) {
+        Set<QueryKey> keys = index.remove(tag);
+        if (keys != null) {
+            invalidated.increment(keys.size());
+            cache.invalidateAll(keys);
+        }
+    }
+
+    private void unindex(QueryKey key, Entry entry) {
+        for (CacheTag tag : entry.getTags()) {
+            index.computeIfPresent(tag, (t, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    @Value
+    private static class Entry {
+
+        List<?> rows;
+        Set<CacheTag> tags;
+    }
+}
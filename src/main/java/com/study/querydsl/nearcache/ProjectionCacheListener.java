@@ -0,0 +1,131 @@
+package com.study.querydsl.nearcache;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.internal.ForeignKeys;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 트랜잭션에서 추가/수정/삭제된 Member, Team 의 바뀌기 전/후 필드 값을 CacheTag 로 모았다가
+ * 커밋되면 ProjectionCache 에서 그 태그에 의존하는 항목을 지운다. 롤백된 변경은 지우지 않는다.
+ * 수정 전 값을 모르면(분리된 엔티티 merge 등) 그 엔티티에 의존하는 항목을 모두 지운다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProjectionCacheListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final Set<Class<?>> TRACKED = new HashSet<>(Arrays.asList(Member.class, Team.class));
+
+    private final ProjectionCache projectionCache;
+    private final ConcurrentMap<EventSource, Changes> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getSession(), event.getPersister(), event.getId(), event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!tracked(event.getPersister())) {
+            return;
+        }
+        if (event.getOldState() == null) {
+            changes(event.getSession()).entities.add(event.getPersister().getMappedClass());
+        } else {
+            changed(event.getSession(), event.getPersister(), event.getId(), event.getOldState());
+        }
+        changed(event.getSession(), event.getPersister(), event.getId(), event.getState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getSession(), event.getPersister(), event.getId(), event.getDeletedState());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void changed(EventSource session, EntityPersister persister, Object id, Object[] state) {
+        if (!tracked(persister)) {
+            return;
+        }
+        Class<?> entity = persister.getMappedClass();
+        Set<CacheTag> tags = changes(session).tags;
+        tags.add(CacheTag.of(entity, persister.getIdentifierPropertyName(), id));
+        if (state == null) {
+            return;
+        }
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < names.length; i++) {
+            if (types[i].isCollectionType()) {
+                continue;
+            }
+            Object value = state[i];
+            if (value != null && types[i].isEntityType()) {
+                value = ForeignKeys.getEntityIdentifierIfNotUnsaved(
+                        ((EntityType) types[i]).getAssociatedEntityName(), value, session);
+            }
+            tags.add(CacheTag.of(entity, names[i], value));
+        }
+    }
+
+    private static boolean tracked(EntityPersister persister) {
+        return TRACKED.contains(persister.getMappedClass());
+    }
+
+    /**
+     * 첫 변경에서 커밋 후 처리를 등록한다.
+     */
+    private Changes changes(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            Changes changes = new Changes(s);
+            s.getActionQueue().registerProcess(changes);
+            return changes;
+        });
+    }
+
+    private class Changes implements AfterTransactionCompletionProcess {
+
+        private final EventSource session;
+        private final Set<CacheTag> tags = new HashSet<>();
+        private final Set<Class<?>> entities = new HashSet<>();
+
+        Changes(EventSource session) {
+            this.session = session;
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor s) {
+            pending.remove(session);
+            if (!success) {
+                return;
+            }
+            if (!entities.isEmpty()) {
+                projectionCache.invalidateEntities(entities);
+            }
+            projectionCache.invalidate(tags);
+        }
+    }
+}
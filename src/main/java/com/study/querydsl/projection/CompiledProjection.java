@@ -0,0 +1,57 @@
+package com.study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 미리 컴파일된 ProjectionMapper 로 DTO 를 만드는 FactoryExpression
+ * select 절에는 Projections.bean/constructor 와 똑같이 args 가 그대로 나간다.
+ */
+public class CompiledProjection<T> extends FactoryExpressionBase<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Expression<?>> args;
+    private final transient ProjectionMapper<T> mapper;
+
+    CompiledProjection(Class<? extends T> type, List<Expression<?>> args, ProjectionMapper<T> mapper) {
+        super(type);
+        this.args = Collections.unmodifiableList(args);
+        this.mapper = mapper;
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public T newInstance(Object... args) {
+        return mapper.map(args);
+    }
+
+    ProjectionMapper<T> getMapper() {
+        return mapper;
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CompiledProjection)) {
+            return false;
+        }
+        CompiledProjection<?> other = (CompiledProjection<?>) obj;
+        return getType().equals(other.getType()) && args.equals(other.args);
+    }
+}
@@ -0,0 +1,295 @@
+package com.study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Projections;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link Projections} 대신 사용하는 DTO 프로젝션
+ * <p>
+ * Projections.bean/fields/constructor 는 행마다 리플렉션으로 setter/필드/생성자를 호출한다.
+ * 여기서는 (DTO 타입, 프로젝션 모양) 별로 처음 한 번만 LambdaMetafactory / MethodHandle 로
+ * 변환기를 만들어 캐시하고, 이후에는 일반 메서드 호출 비용으로 DTO 를 만든다.
+ * &#64;QueryProjection 이 없는 DTO(UserDto 등)에 사용한다.
+ */
+public final class CompiledProjections {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ConcurrentMap<MapperKey, ProjectionMapper<?>> MAPPERS = new ConcurrentHashMap<>();
+
+    private CompiledProjections() {
+    }
+
+    /**
+     * 프로퍼티 이름(경로 이름 또는 as 별칭)으로 setter, 없으면 필드에 값을 넣는다.
+     */
+    public static <T> CompiledProjection<T> bean(Class<T> type, Expression<?>... exprs) {
+        List<String> names = new ArrayList<>(exprs.length);
+        for (Expression<?> expr : exprs) {
+            names.add(propertyName(expr));
+        }
+        MapperKey key = new MapperKey(type, "bean", new ArrayList<>(names));
+        return new CompiledProjection<>(type, Arrays.asList(exprs), mapper(key, () -> compileBean(type, names)));
+    }
+
+    /**
+     * 인자 타입이 맞는 public 생성자로 DTO 를 만든다.
+     */
+    public static <T> CompiledProjection<T> constructor(Class<T> type, Expression<?>... exprs) {
+        List<Class<?>> argTypes = new ArrayList<>(exprs.length);
+        for (Expression<?> expr : exprs) {
+            argTypes.add(expr.getType());
+        }
+        MapperKey key = new MapperKey(type, "constructor", new ArrayList<>(argTypes));
+        return new CompiledProjection<>(type, Arrays.asList(exprs), mapper(key, () -> compileConstructor(type, argTypes)));
+    }
+
+    static int cachedMappers() {
+        return MAPPERS.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ProjectionMapper<T> mapper(MapperKey key, Supplier<ProjectionMapper<T>> compiler) {
+        return (ProjectionMapper<T>) MAPPERS.computeIfAbsent(key, k -> compiler.get());
+    }
+
+    private static String propertyName(Expression<?> expr) {
+        if (expr instanceof Path) {
+            return ((Path<?>) expr).getMetadata().getName();
+        }
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+            Expression<?> alias = ((Operation<?>) expr).getArg(1);
+            if (alias instanceof Path) {
+                return ((Path<?>) alias).getMetadata().getName();
+            }
+            return alias.toString();
+        }
+        throw new IllegalArgumentException("Unsupported expression " + expr + ", use as(\"property\")");
+    }
+
+    private static <T> ProjectionMapper<T> compileBean(Class<T> type, List<String> names) {
+        Supplier<T> factory = noArgConstructor(type);
+        List<BiConsumer<Object, Object>> setters = new ArrayList<>(names.size());
+        for (String name : names) {
+            setters.add(setter(type, name));
+        }
+        @SuppressWarnings("unchecked")
+        BiConsumer<Object, Object>[] setterArray = setters.toArray(new BiConsumer[0]);
+
+        return args -> {
+            T bean = factory.get();
+            for (int i = 0; i < setterArray.length; i++) {
+                if (args[i] != null) {
+                    setterArray[i].accept(bean, args[i]);
+                }
+            }
+            return bean;
+        };
+    }
+
+    private static <T> ProjectionMapper<T> compileConstructor(Class<T> type, List<Class<?>> argTypes) {
+        Constructor<?> constructor = Arrays.stream(type.getConstructors())
+                .filter(c -> matches(c.getParameterTypes(), argTypes))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No public constructor " + type.getName() + argTypes));
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        Object[] defaults = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            defaults[i] = defaultValue(parameterTypes[i]);
+        }
+
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, parameterTypes.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access constructor of " + type.getName(), e);
+        }
+
+        return args -> {
+            Object[] values = args;
+            for (int i = 0; i < defaults.length; i++) {
+                if (values[i] == null && defaults[i] != null) {
+                    values = values == args ? args.clone() : values;
+                    values[i] = defaults[i];
+                }
+            }
+            try {
+                return type.cast((Object) handle.invokeExact(values));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> noArgConstructor(Class<T> type) {
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.findConstructor(type, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("No public no-arg constructor in " + type.getName(), e);
+        }
+        try {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    handle,
+                    MethodType.methodType(type));
+            return (Supplier<T>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return type.cast((Object) generic.invokeExact());
+                } catch (RuntimeException | Error error) {
+                    throw error;
+                } catch (Throwable error) {
+                    throw new IllegalStateException(error);
+                }
+            };
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setter(Class<?> type, String name) {
+        Method method = findSetter(type, name);
+        if (method != null) {
+            try {
+                MethodHandle handle = LOOKUP.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        handle,
+                        MethodType.methodType(void.class, type, wrap(method.getParameterTypes()[0])));
+                return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable e) {
+                // 접근할 수 없는 setter 는 아래 필드 방식으로 처리한다.
+            }
+        }
+
+        Field field = findField(type, name);
+        if (field == null || Modifier.isStatic(field.getModifiers())) {
+            throw new IllegalArgumentException("No property '" + name + "' in " + type.getName());
+        }
+        try {
+            field.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (bean, value) -> {
+                try {
+                    handle.invokeExact(bean, value);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access field '" + name + "' in " + type.getName(), e);
+        }
+    }
+
+    private static Method findSetter(Class<?> type, String name) {
+        String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(setterName) && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // 상위 클래스에서 찾는다.
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(Class<?>[] parameterTypes, List<Class<?>> argTypes) {
+        if (parameterTypes.length != argTypes.size()) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (!wrap(parameterTypes[i]).isAssignableFrom(wrap(argTypes.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        }
+        return Array.get(Array.newInstance(type, 1), 0);
+    }
+
+    private static final class MapperKey {
+
+        private final Class<?> type;
+        private final String style;
+        private final List<?> signature;
+
+        MapperKey(Class<?> type, String style, List<?> signature) {
+            this.type = type;
+            this.style = style;
+            this.signature = signature;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MapperKey)) {
+                return false;
+            }
+            MapperKey other = (MapperKey) o;
+            return type == other.type && style.equals(other.style) && signature.equals(other.signature);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, style, signature);
+        }
+    }
+}
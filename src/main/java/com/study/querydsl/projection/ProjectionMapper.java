@@ -0,0 +1,10 @@
+package com.study.querydsl.projection;
+
+/**
+ * 조회 결과 한 행(args)을 DTO 로 변환한다.
+ */
+@FunctionalInterface
+public interface ProjectionMapper<T> {
+
+    T map(Object[] args);
+}
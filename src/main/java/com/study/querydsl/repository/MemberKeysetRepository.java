@@ -0,0 +1,82 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.KeysetPage;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.repository.support.KeysetCursor;
+import com.study.querydsl.repository.support.KeysetKey;
+import com.study.querydsl.repository.support.KeysetSort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.study.querydsl.entity.QMember.member;
+
+/**
+ * offset 대신 커서(마지막으로 본 행의 정렬 키)로 다음 페이지를 찾는 회원 조회
+ * 몇 번째 페이지든 인덱스를 타고 size + 1 건만 읽는다.
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberKeysetRepository {
+
+    private static final KeysetKey<Member> ID = KeysetKey.of("id", member.id, Member::getId);
+
+    private static final Map<String, KeysetKey<Member>> KEYS = new LinkedHashMap<>();
+
+    static {
+        KEYS.put("id", ID);
+        KEYS.put("memberName", KeysetKey.nullable("memberName", member.memberName, Member::getMemberName));
+        KEYS.put("age", KeysetKey.of("age", member.age, Member::getAge));
+    }
+
+    private final JPAQueryFactory queryFactory;
+
+    public KeysetPage<Member> findPage(String sortSpec, String cursorToken, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        KeysetSort<Member> sort = KeysetSort.parse(sortSpec, KEYS, ID);
+        KeysetCursor cursor = cursorToken != null ? KeysetCursor.decode(cursorToken) : null;
+        if (cursor != null && !cursor.getSort().equals(sort.spec())) {
+            throw new IllegalArgumentException("cursor was issued for sort: " + cursor.getSort());
+        }
+        boolean backward = cursor != null && cursor.isBackward();
+
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .orderBy(sort.orderSpecifiers(backward))
+                .limit(size + 1);
+        if (cursor != null) {
+            query.where(sort.seek(sort.coerce(cursor.getValues()), backward));
+        }
+        List<Member> rows = query.fetch();
+
+        boolean more = rows.size() > size;
+        List<Member> content = new ArrayList<>(more ? rows.subList(0, size) : rows);
+        if (backward) {
+            Collections.reverse(content);
+        }
+
+        boolean hasNext = backward || more;
+        boolean hasPrev = backward ? more : cursor != null;
+        if (content.isEmpty()) {
+            return new KeysetPage<>(content, size, null, null);
+        }
+        String next = hasNext ? cursorOf(sort, KeysetCursor.Direction.NEXT, content.get(content.size() - 1)) : null;
+        String prev = hasPrev ? cursorOf(sort, KeysetCursor.Direction.PREV, content.get(0)) : null;
+        return new KeysetPage<>(content, size, next, prev);
+    }
+
+    private String cursorOf(KeysetSort<Member> sort, KeysetCursor.Direction direction, Member row) {
+        return new KeysetCursor(sort.spec(), direction, sort.values(row)).encode();
+    }
+}
@@ -0,0 +1,23 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.UserDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface MemberRepositoryCustom {
+
+    List<MemberTeamDto> search(MemberSearchCondition condition);
+
+    Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable);
+
+    Page<MemberTeamDto> searchPageConcurrently(MemberSearchCondition condition, Pageable pageable);
+
+    List<MemberDto> findMemberDtoByName(String memberName);
+
+    List<UserDto> findUserDtoByName(String memberName);
+}
@@ -0,0 +1,213 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberSearchSort;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.dto.UserDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.QMember;
+import com.study.querydsl.nearcache.CacheTag;
+import com.study.querydsl.nearcache.ProjectionCache;
+import com.study.querydsl.repository.support.PreparedQuery;
+import com.study.querydsl.repository.support.PreparedQueryFactory;
+import com.study.querydsl.repository.support.Querydsl4RepositorySupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+@Transactional(readOnly = true)
+public class MemberRepositoryImpl extends Querydsl4RepositorySupport implements MemberRepositoryCustom {
+
+    private static final Param<String> MEMBER_NAME = new Param<>(String.class, "memberName");
+    private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+    private final Map<MemberSearchSort, PreparedQuery<MemberTeamDto>> searchQueries = new EnumMap<>(MemberSearchSort.class);
+    private ProjectionCache projectionCache;
+
+    public MemberRepositoryImpl() {
+        super(Member.class);
+    }
+
+    /**
+     * 정렬별, 검색 조건 조합별로 JPQL 을 한 번만 만들고 이후에는 값만 바인딩한다.
+     */
+    @Autowired
+    public void setPreparedQueryFactory(PreparedQueryFactory preparedQueryFactory) {
+        for (MemberSearchSort sort : MemberSearchSort.values()) {
+            searchQueries.put(sort, preparedQueryFactory.prepare("member.search." + sort.name().toLowerCase(),
+                    (queryFactory, present) -> joinTeam(queryFactory
+                            .select(new QMemberTeamDto(
+                                    member.id,
+                                    member.memberName,
+                                    member.age,
+                                    team.id,
+                                    team.name))
+                            .from(member), present.has(TEAM_NAME))
+                            .where(
+                                    present.when(MEMBER_NAME, member.memberName::eq),
+                                    present.when(TEAM_NAME, team.name::eq),
+                                    present.when(AGE_GOE, member.age::goe),
+                                    present.when(AGE_LOE, member.age::loe))
+                            .orderBy(orderBy(sort))));
+        }
+    }
+
+    @Autowired
+    public void setProjectionCache(ProjectionCache projectionCache) {
+        this.projectionCache = projectionCache;
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return searchQueries.get(sortOf(condition)).bind()
+                .set(MEMBER_NAME, hasText(condition.getMemberName()) ? condition.getMemberName() : null)
+                .set(TEAM_NAME, hasText(condition.getTeamName()) ? condition.getTeamName() : null)
+                .set(AGE_GOE, condition.getAgeGoe())
+                .set(AGE_LOE, condition.getAgeLoe())
+                .fetch();
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        return applyPagination(pageable,
+                queryFactory -> contentQuery(queryFactory, condition, pageable),
+                queryFactory -> countQuery(queryFactory, condition));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageConcurrently(MemberSearchCondition condition, Pageable pageable) {
+        return applyPaginationConcurrently(pageable,
+                queryFactory -> contentQuery(queryFactory, condition, pageable),
+                queryFactory -> countQuery(queryFactory, condition));
+    }
+
+    /**
+     * 같은 이름으로 반복 조회되므로 near cache 에 담는다. 그 이름을 가졌거나 가지게 된 회원이 바뀌면 지워진다.
+     */
+    @Override
+    public List<MemberDto> findMemberDtoByName(String memberName) {
+        return projectionCache.fetch(select(new QMemberDto(member.memberName, member.age))
+                        .from(member)
+                        .where(member.memberName.eq(memberName))
+                        .orderBy(member.id.asc()),
+                CacheTag.of(Member.class, "memberName", memberName));
+    }
+
+    /**
+     * age 는 전체 회원의 최대 나이라서 어느 회원이 바뀌어도 지워진다.
+     */
+    @Override
+    public List<UserDto> findUserDtoByName(String memberName) {
+        QMember memberSub = new QMember("memberSub");
+        return projectionCache.fetch(select(Projections.fields(UserDto.class,
+                        member.memberName.as("name"),
+                        ExpressionUtils.as(JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub), "age")))
+                        .from(member)
+                        .where(member.memberName.eq(memberName))
+                        .orderBy(member.id.asc()),
+                CacheTag.anyRow(Member.class));
+    }
+
+    /**
+     * Pageable 에 정렬이 없으면 검색 조건의 정렬을 쓴다.
+     */
+    private JPAQuery<MemberTeamDto> contentQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition,
+                                                 Pageable pageable) {
+        JPAQuery<MemberTeamDto> query = joinTeam(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.memberName,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member), hasText(condition.getTeamName()))
+                .where(
+                        memberNameEq(condition.getMemberName()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()));
+        return pageable.getSort().isSorted() ? query : query.orderBy(orderBy(sortOf(condition)));
+    }
+
+    /**
+     * 팀 이름 조건이 있을 때만 team 을 조인한다.
+     */
+    private JPAQuery<Long> countQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        JPAQuery<Long> query = queryFactory
+                .select(member.count())
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        }
+        return query.where(
+                memberNameEq(condition.getMemberName()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()));
+    }
+
+    /**
+     * 팀 이름 조건이 있으면 inner join 으로 바꿔서 team(idx_team_name) 부터 읽을 수 있게 한다.
+     * (where 에 team.name 조건이 있으면 left join 과 결과가 같다)
+     */
+    private static <T> JPAQuery<T> joinTeam(JPAQuery<T> query, boolean filterByTeam) {
+        return filterByTeam ? query.join(member.team, team) : query.leftJoin(member.team, team);
+    }
+
+    private static MemberSearchSort sortOf(MemberSearchCondition condition) {
+        return condition.getSort() != null ? condition.getSort() : MemberSearchSort.ID;
+    }
+
+    private static OrderSpecifier<?>[] orderBy(MemberSearchSort sort) {
+        switch (sort) {
+            case MEMBER_NAME:
+                return new OrderSpecifier<?>[]{member.memberName.asc(), member.id.asc()};
+            case AGE:
+                return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+            case AGE_DESC:
+                return new OrderSpecifier<?>[]{member.age.desc(), member.id.desc()};
+            default:
+                return new OrderSpecifier<?>[]{member.id.asc()};
+        }
+    }
+
+    private BooleanExpression memberNameEq(String memberName) {
+        return hasText(memberName) ? member.memberName.eq(memberName) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
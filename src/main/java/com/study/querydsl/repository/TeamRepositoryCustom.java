@@ -0,0 +1,23 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.entity.Team;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Optional;
+
+public interface TeamRepositoryCustom {
+
+    Page<Team> searchPage(String namePrefix, Pageable pageable);
+
+    /**
+     * searchPage 와 같지만 members 를 채워서 돌려준다.
+     * 이번 페이지의 팀 id 를 먼저 읽고, 그 팀들만 members 를 fetch join 한다.
+     */
+    Page<Team> searchPageWithMembers(String namePrefix, Pageable pageable);
+
+    /**
+     * 팀 이름 조회, 결과는 쿼리 캐시(team-by-name 리전)에 담긴다.
+     */
+    Optional<Team> findCachedByName(String name);
+}
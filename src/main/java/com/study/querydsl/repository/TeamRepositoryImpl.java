@@ -0,0 +1,68 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.support.Querydsl4RepositorySupport;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+@Transactional(readOnly = true)
+public class TeamRepositoryImpl extends Querydsl4RepositorySupport implements TeamRepositoryCustom {
+
+    public TeamRepositoryImpl() {
+        super(Team.class);
+    }
+
+    @Override
+    public Page<Team> searchPage(String namePrefix, Pageable pageable) {
+        return applyPagination(pageable,
+                queryFactory -> queryFactory
+                        .selectFrom(team)
+                        .where(nameStartsWith(namePrefix)),
+                queryFactory -> queryFactory
+                        .select(team.count())
+                        .from(team)
+                        .where(nameStartsWith(namePrefix)));
+    }
+
+    @Override
+    public Page<Team> searchPageWithMembers(String namePrefix, Pageable pageable) {
+        return applyPaginationByIds(pageable,
+                queryFactory -> queryFactory
+                        .select(team.id)
+                        .from(team)
+                        .where(nameStartsWith(namePrefix)),
+                (queryFactory, ids) -> queryFactory
+                        .selectFrom(team)
+                        .distinct()
+                        .leftJoin(team.members, member).fetchJoin()
+                        .where(team.id.in(ids))
+                        .setHint(QueryHints.PASS_DISTINCT_THROUGH, false),
+                Team::getId,
+                queryFactory -> queryFactory
+                        .select(team.count())
+                        .from(team)
+                        .where(nameStartsWith(namePrefix)));
+    }
+
+    @Override
+    public Optional<Team> findCachedByName(String name) {
+        return Optional.ofNullable(selectFrom(team)
+                .where(team.name.eq(name))
+                .setHint(QueryHints.CACHEABLE, true)
+                .setHint(QueryHints.CACHE_REGION, "team-by-name")
+                .fetchFirst());
+    }
+
+    private BooleanExpression nameStartsWith(String namePrefix) {
+        return hasText(namePrefix) ? team.name.startsWith(namePrefix) : null;
+    }
+}
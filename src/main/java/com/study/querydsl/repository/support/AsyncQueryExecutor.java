@@ -0,0 +1,182 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.routing.RoutingContext;
+import com.study.querydsl.sql.SqlBudgetTaskDecorator;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 서로 관계없는 쿼리 여러 개를 동시에 실행해서 응답 시간을 합이 아니라 가장 느린 쿼리 시간으로 만든다.
+ * - 쿼리마다 작업 스레드에서 새 트랜잭션(= 새 EntityManager, 새 커넥션)으로 실행한다.
+ *   호출한 쪽 트랜잭션/영속성 컨텍스트는 공유하지 않으므로 커밋되지 않은 변경은 보이지 않는다.
+ * - 동시에 실행되는 쿼리 수는 커넥션 풀 크기 - reserved-connections 로 제한한다.
+ *   풀 크기는 spring.datasource.hikari.maximum-pool-size, 없으면 DataSource 를 HikariDataSource 로 unwrap 해서 읽는다.
+ *   자리가 없으면 호출한 스레드가 acquire-timeout 까지 기다리고, 그래도 없으면 RejectedExecutionException
+ * - 작업 스레드의 SQL 도 호출한 요청의 SQL 예산에 집계한다. (SqlBudgetTaskDecorator)
+ * - 런타임이 가상 스레드를 지원하면(Java 21+) 가상 스레드로, 아니면 고정 크기 스레드풀로 실행한다.
+ */
+@Slf4j
+@Component
+public class AsyncQueryExecutor implements DisposableBean {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnly;
+    private final TransactionTemplate readWrite;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutMillis;
+    private final ExecutorService executor;
+    private final TaskDecorator taskDecorator = new SqlBudgetTaskDecorator();
+
+    @Autowired
+    public AsyncQueryExecutor(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                              DataSource dataSource,
+                              @Value("${spring.datasource.hikari.maximum-pool-size:0}") int configuredPoolSize,
+                              @Value("${querydsl.async.max-concurrency:0}") int maxConcurrency,
+                              @Value("${querydsl.async.reserved-connections:2}") int reservedConnections,
+                              @Value("${querydsl.async.acquire-timeout:PT5S}") Duration acquireTimeout) {
+        this(queryFactory, transactionManager,
+                maxConcurrency > 0 ? maxConcurrency
+                        : Math.max(1, poolSize(dataSource, configuredPoolSize) - reservedConnections),
+                acquireTimeout);
+    }
+
+    public AsyncQueryExecutor(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                              int maxConcurrency, Duration acquireTimeout) {
+        this.queryFactory = queryFactory;
+        this.readWrite = new TransactionTemplate(transactionManager);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        this.acquireTimeoutMillis = acquireTimeout.toMillis();
+        this.executor = createExecutor(maxConcurrency);
+    }
+
+    /**
+     * 읽기 전용 트랜잭션에서 쿼리를 실행한다. (읽기 복제본 라우팅 대상)
+     */
+    public <T> CompletableFuture<T> query(Function<JPAQueryFactory, T> query) {
+        return submit(readOnly, query);
+    }
+
+    /**
+     * 쓰기 가능한 트랜잭션에서 실행한다. 작업마다 따로 커밋된다.
+     */
+    public <T> CompletableFuture<T> execute(Function<JPAQueryFactory, T> work) {
+        return submit(readWrite, work);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    private <T> CompletableFuture<T> submit(TransactionTemplate transactionTemplate, Function<JPAQueryFactory, T> work) {
+        acquire();
+        long pinnedUntil = RoutingContext.pinnedUntil();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(taskDecorator.decorate(() -> {
+                T result = null;
+                Throwable failure = null;
+                try {
+                    // 호출한 요청의 read-your-writes 고정을 이어받고, 끝나면 지운다.
+                    RoutingContext.begin();
+                    if (pinnedUntil > 0) {
+                        RoutingContext.pinPrimaryUntil(pinnedUntil);
+                    }
+                    result = transactionTemplate.execute(status -> work.apply(queryFactory));
+                } catch (Throwable e) {
+                    failure = e;
+                } finally {
+                    RoutingContext.clear();
+                    permits.release();
+                }
+                // 자리를 먼저 반납해야 완료를 기다리던 쪽이 바로 다음 쿼리를 넣을 수 있다.
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(result);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+        return future;
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException(
+                        "no async query slot within " + acquireTimeoutMillis + "ms (max " + maxConcurrency + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("interrupted while waiting for an async query slot", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() 가 있으면 쓰고(동시 실행 수는 세마포어가 제한),
+     * 없으면 maxConcurrency 크기의 스레드풀을 만든다.
+     */
+    private static ExecutorService createExecutor(int maxConcurrency) {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.info("async queries run on virtual threads (max {} concurrent)", maxConcurrency);
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(maxConcurrency, new CustomizableThreadFactory("async-query-"));
+        }
+    }
+
+    /**
+     * 라우팅(LazyConnectionDataSourceProxy)이나 p6spy 로 감싼 DataSource 는 isWrapperFor 가 false 일 수 있으므로
+     * 설정값을 먼저 보고, 없으면 unwrap 을 바로 시도한다.
+     */
+    private static int poolSize(DataSource dataSource, int configuredPoolSize) {
+        if (configuredPoolSize > 0) {
+            return configuredPoolSize;
+        }
+        try {
+            return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        } catch (SQLException | RuntimeException e) {
+            // 알 수 없으면 Hikari 기본 크기로 본다.
+            log.warn("connection pool size unknown, assuming 10: {}", e.getMessage());
+            return 10;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.study.querydsl.repository.support;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 키(팀, 나이대 등)별 부분 집계, 같은 키끼리 combine 한다.
+ */
+public final class GroupedAggregate<K extends Comparable<K>, A extends PartialAggregate<A>>
+        implements PartialAggregate<GroupedAggregate<K, A>> {
+
+    private final Map<K, A> groups;
+
+    private GroupedAggregate(Map<K, A> groups) {
+        this.groups = groups;
+    }
+
+    public static <K extends Comparable<K>, A extends PartialAggregate<A>> GroupedAggregate<K, A> empty() {
+        return new GroupedAggregate<K, A>(Collections.emptyMap());
+    }
+
+    public static <K extends Comparable<K>, A extends PartialAggregate<A>> GroupedAggregate<K, A> of(Map<K, A> groups) {
+        return new GroupedAggregate<>(new TreeMap<>(groups));
+    }
+
+    @Override
+    public GroupedAggregate<K, A> combine(GroupedAggregate<K, A> other) {
+        TreeMap<K, A> merged = new TreeMap<>(groups);
+        other.groups.forEach((key, value) -> merged.merge(key, value, PartialAggregate::combine));
+        return new GroupedAggregate<>(merged);
+    }
+
+    /**
+     * 키 순서
+     */
+    public Map<K, A> asMap() {
+        return Collections.unmodifiableMap(groups);
+    }
+}
@@ -0,0 +1,63 @@
+package com.study.querydsl.repository.support;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 클라이언트에 내려주는 불투명(opaque) 커서
+ * 정렬 조건, 이동 방향, 기준 행의 정렬 키 값을 base64(json) 으로 담는다.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class KeysetCursor {
+
+    public enum Direction { NEXT, PREV }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private String sort;
+    private Direction direction;
+    private List<Object> values = new ArrayList<>();
+
+    public KeysetCursor(String sort, Direction direction, List<Object> values) {
+        this.sort = sort;
+        this.direction = direction;
+        this.values = values;
+    }
+
+    @JsonIgnore
+    public boolean isBackward() {
+        return direction == Direction.PREV;
+    }
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("cannot encode cursor", e);
+        }
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(token.getBytes(StandardCharsets.US_ASCII));
+            KeysetCursor cursor = MAPPER.readValue(json, KeysetCursor.class);
+            if (cursor.sort == null || cursor.direction == null || cursor.values == null) {
+                throw new IllegalArgumentException("invalid cursor");
+            }
+            return cursor;
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalArgumentException("invalid cursor", e);
+        }
+    }
+}
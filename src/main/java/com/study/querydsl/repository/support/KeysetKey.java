@@ -0,0 +1,71 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import lombok.Getter;
+
+import java.util.function.Function;
+
+/**
+ * keyset 정렬에 사용할 수 있는 컬럼 하나
+ * nullable 컬럼은 항상 nulls last(역방향 조회시 nulls first)로 정렬한다.
+ */
+@Getter
+public class KeysetKey<T> {
+
+    private final String property;
+    private final ComparableExpressionBase<?> expression;
+    private final Function<T, Object> extractor;
+    private final boolean nullable;
+
+    private KeysetKey(String property, ComparableExpressionBase<?> expression,
+                      Function<T, Object> extractor, boolean nullable) {
+        this.property = property;
+        this.expression = expression;
+        this.extractor = extractor;
+        this.nullable = nullable;
+    }
+
+    public static <T> KeysetKey<T> of(String property, ComparableExpressionBase<?> expression,
+                                      Function<T, Object> extractor) {
+        return new KeysetKey<>(property, expression, extractor, false);
+    }
+
+    public static <T> KeysetKey<T> nullable(String property, ComparableExpressionBase<?> expression,
+                                            Function<T, Object> extractor) {
+        return new KeysetKey<>(property, expression, extractor, true);
+    }
+
+    /**
+     * 커서 토큰에서 읽은 값(JSON)을 컬럼 타입에 맞게 변환
+     */
+    Object coerce(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Class<?> type = expression.getType();
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (type == Long.class) {
+                return number.longValue();
+            }
+            if (type == Integer.class) {
+                return number.intValue();
+            }
+        }
+        if (!type.isInstance(value)) {
+            throw new IllegalArgumentException("invalid cursor value for " + property + ": " + value);
+        }
+        return value;
+    }
+
+    /**
+     * 실제 정렬 방향 (역방향 조회시 뒤집는다)
+     */
+    Order direction(Order order, boolean reverse) {
+        if (!reverse) {
+            return order;
+        }
+        return order == Order.ASC ? Order.DESC : Order.ASC;
+    }
+}
@@ -0,0 +1,155 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * keyset(seek) 페이징용 정렬 조건
+ * 예) "memberName desc, id desc"
+ * 정렬이 유일하도록 tie breaker 컬럼(보통 id)을 항상 마지막에 붙인다.
+ */
+public class KeysetSort<T> {
+
+    private final List<KeysetKey<T>> keys;
+    private final List<Order> orders;
+
+    private KeysetSort(List<KeysetKey<T>> keys, List<Order> orders) {
+        this.keys = keys;
+        this.orders = orders;
+    }
+
+    public static <T> KeysetSort<T> parse(String spec, Map<String, KeysetKey<T>> available, KeysetKey<T> tieBreaker) {
+        List<KeysetKey<T>> keys = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+
+        if (spec != null && !spec.trim().isEmpty()) {
+            for (String token : spec.split(",")) {
+                String[] parts = token.trim().split("\\s+");
+                KeysetKey<T> key = available.get(parts[0]);
+                if (key == null || parts.length > 2) {
+                    throw new IllegalArgumentException("unsupported sort: " + token.trim());
+                }
+                if (keys.contains(key)) {
+                    throw new IllegalArgumentException("duplicate sort property: " + parts[0]);
+                }
+                keys.add(key);
+                orders.add(parts.length == 2 ? parseOrder(parts[1]) : Order.ASC);
+            }
+        }
+
+        if (!keys.contains(tieBreaker)) {
+            keys.add(tieBreaker);
+            orders.add(orders.isEmpty() ? Order.ASC : orders.get(orders.size() - 1));
+        }
+        return new KeysetSort<>(Collections.unmodifiableList(keys), Collections.unmodifiableList(orders));
+    }
+
+    private static Order parseOrder(String order) {
+        if ("asc".equalsIgnoreCase(order)) {
+            return Order.ASC;
+        }
+        if ("desc".equalsIgnoreCase(order)) {
+            return Order.DESC;
+        }
+        throw new IllegalArgumentException("unsupported sort order: " + order);
+    }
+
+    /**
+     * 정규화된 정렬 문자열, 커서가 어떤 정렬로 만들어졌는지 검증하는데 사용
+     */
+    public String spec() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            tokens.add(keys.get(i).getProperty() + " " + orders.get(i).name().toLowerCase());
+        }
+        return String.join(",", tokens);
+    }
+
+    public OrderSpecifier<?>[] orderSpecifiers(boolean reverse) {
+        OrderSpecifier<?>[] specifiers = new OrderSpecifier<?>[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            KeysetKey<T> key = keys.get(i);
+            specifiers[i] = orderSpecifier(key, key.direction(orders.get(i), reverse), reverse);
+        }
+        return specifiers;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private OrderSpecifier<?> orderSpecifier(KeysetKey<T> key, Order order, boolean reverse) {
+        if (!key.isNullable()) {
+            return new OrderSpecifier(order, key.getExpression());
+        }
+        OrderSpecifier.NullHandling nullHandling = reverse
+                ? OrderSpecifier.NullHandling.NullsFirst
+                : OrderSpecifier.NullHandling.NullsLast;
+        return new OrderSpecifier(order, key.getExpression(), nullHandling);
+    }
+
+    public List<Object> values(T row) {
+        return keys.stream()
+                .map(key -> key.getExtractor().apply(row))
+                .collect(Collectors.toList());
+    }
+
+    public List<Object> coerce(List<Object> values) {
+        if (values.size() != keys.size()) {
+            throw new IllegalArgumentException("cursor does not match sort: " + spec());
+        }
+        List<Object> result = new ArrayList<>(values.size());
+        for (int i = 0; i < keys.size(); i++) {
+            result.add(keys.get(i).coerce(values.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * 커서 다음(reverse 이면 이전) 행을 찾는 seek 조건
+     * (k1 > v1) or (k1 = v1 and k2 > v2) or ...
+     */
+    public Predicate seek(List<Object> values, boolean reverse) {
+        BooleanBuilder seek = new BooleanBuilder();
+        BooleanBuilder equalPrefix = new BooleanBuilder();
+
+        for (int i = 0; i < keys.size(); i++) {
+            KeysetKey<T> key = keys.get(i);
+            Object value = values.get(i);
+
+            Predicate after = after(key, key.direction(orders.get(i), reverse), value, reverse);
+            if (after != null) {
+                seek.or(new BooleanBuilder(equalPrefix).and(after));
+            }
+            equalPrefix.and(value == null
+                    ? ExpressionUtils.predicate(Ops.IS_NULL, key.getExpression())
+                    : ExpressionUtils.predicate(Ops.EQ, key.getExpression(), ConstantImpl.create(value)));
+        }
+        return seek.getValue();
+    }
+
+    /**
+     * 정렬상 value 보다 뒤에 오는 값의 조건, 없으면 null
+     */
+    private Predicate after(KeysetKey<T> key, Order order, Object value, boolean reverse) {
+        boolean nullsAfter = key.isNullable() && !reverse;
+        if (value == null) {
+            return nullsAfter ? null : ExpressionUtils.predicate(Ops.IS_NOT_NULL, key.getExpression());
+        }
+
+        Predicate compare = ExpressionUtils.predicate(order == Order.ASC ? Ops.GT : Ops.LT,
+                key.getExpression(), ConstantImpl.create(value));
+        if (nullsAfter) {
+            return ExpressionUtils.or(compare, ExpressionUtils.predicate(Ops.IS_NULL, key.getExpression()));
+        }
+        return compare;
+    }
+}
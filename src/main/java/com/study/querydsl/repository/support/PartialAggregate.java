@@ -0,0 +1,10 @@
+package com.study.querydsl.repository.support;
+
+/**
+ * 구간마다 따로 계산한 뒤 합칠 수 있는 집계 (count/sum/min/max, 평균은 sum + count 로)
+ * combine 은 결합법칙을 만족하고, 비어 있는 값과 합치면 자기 자신이어야 한다.
+ */
+public interface PartialAggregate<A extends PartialAggregate<A>> {
+
+    A combine(A other);
+}
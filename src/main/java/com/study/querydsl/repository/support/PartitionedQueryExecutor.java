@@ -0,0 +1,159 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * 오래 걸리는 리포트/내보내기 쿼리를 id 구간으로 나눠 AsyncQueryExecutor 에서 동시에 실행하고 합친다.
+ * - 구간마다 새 트랜잭션(= 새 EntityManager, 새 커넥션)으로 실행하므로 구간끼리 같은 시점의 데이터를 보지는 않는다.
+ * - 동시에 실행하는 구간 수는 parallelism 이하, AsyncQueryExecutor 의 최대 동시 실행 수(커넥션 풀 기준) 이하다.
+ *   다 차면 가장 먼저 넣은 구간이 끝날 때까지 기다렸다가 다음 구간을 넣는다.
+ * - 구간은 [min(id), max(id)] 를 같은 폭으로 나눈다. 시퀀스 id 는 대체로 촘촘하므로 행 수도 비슷해진다.
+ *   id 대신 member.team.id 처럼 다른 숫자 경로를 넘기면 그 값(팀)으로 나눈다.
+ */
+@Component
+public class PartitionedQueryExecutor {
+
+    private final AsyncQueryExecutor asyncQueryExecutor;
+    private final JPAQueryFactory queryFactory;
+    private final int parallelism;
+
+    @Autowired
+    public PartitionedQueryExecutor(AsyncQueryExecutor asyncQueryExecutor, JPAQueryFactory queryFactory,
+                                    @Value("${querydsl.partition.parallelism:0}") int parallelism) {
+        this.asyncQueryExecutor = asyncQueryExecutor;
+        this.queryFactory = queryFactory;
+        int max = asyncQueryExecutor.getMaxConcurrency();
+        this.parallelism = parallelism > 0 ? Math.min(parallelism, max) : max;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * where 를 만족하는 id 범위를 partitions 개 구간으로 나눈다. 대상이 없으면 빈 목록
+     */
+    public List<IdRange> split(NumberPath<Long> id, Predicate where, int partitions) {
+        return split(id, where, span -> span / Math.max(1, partitions) + 1);
+    }
+
+    /**
+     * where 를 만족하는 id 범위를 width 폭의 구간으로 나눈다. (구간 하나의 결과 크기를 제한할 때)
+     */
+    public List<IdRange> splitByWidth(NumberPath<Long> id, Predicate where, long width) {
+        return split(id, where, span -> width);
+    }
+
+    /**
+     * 구간 수를 정하지 않으면 동시 실행 수의 두 배로 나눈다. (느린 구간 하나가 전체를 붙잡지 않게)
+     */
+    public List<IdRange> split(NumberPath<Long> id, Predicate where) {
+        return split(id, where, parallelism * 2);
+    }
+
+    private List<IdRange> split(NumberPath<Long> id, Predicate where, LongUnaryOperator widthOfSpan) {
+        Tuple bounds = queryFactory
+                .select(id.min(), id.max())
+                .from(root(id))
+                .where(where)
+                .fetchOne();
+        Long min = bounds != null ? bounds.get(id.min()) : null;
+        Long max = bounds != null ? bounds.get(id.max()) : null;
+        if (min == null || max == null) {
+            return Collections.emptyList();
+        }
+        long width = Math.max(1, widthOfSpan.applyAsLong(max - min));
+        List<IdRange> ranges = new ArrayList<>();
+        for (long from = min; from <= max; from += width) {
+            ranges.add(new IdRange(from, Math.min(max, from + width - 1)));
+            if (from > Long.MAX_VALUE - width) {
+                break;
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * member.id, member.team.id 의 엔티티 경로 (member), getRoot() 는 EntityPath 가 아니다.
+     */
+    private static EntityPath<?> root(Path<?> path) {
+        Path<?> root = path;
+        while (root.getMetadata().getParent() != null) {
+            root = root.getMetadata().getParent();
+        }
+        return (EntityPath<?>) root;
+    }
+
+    /**
+     * 구간마다 query 를 실행하고 결과를 합친다. query 의 두 번째 인자는 구간 조건이다.
+     */
+    public <A extends PartialAggregate<A>> A aggregate(NumberPath<Long> id, Predicate where, A empty,
+                                                       BiFunction<JPAQueryFactory, Predicate, A> query) {
+        List<A> partials = new ArrayList<>();
+        forEachInOrder(id, split(id, where), query, partials::add);
+        A result = empty;
+        for (A partial : partials) {
+            result = result.combine(partial);
+        }
+        return result;
+    }
+
+    /**
+     * 구간마다 query 를 실행하고 결과를 구간(id) 순서대로 호출한 스레드에서 consumer 에 넘긴다.
+     * 동시에 메모리에 있는 결과는 최대 parallelism 구간이다.
+     */
+    public <R> void forEachInOrder(NumberPath<Long> id, List<IdRange> ranges,
+                                   BiFunction<JPAQueryFactory, Predicate, R> query, Consumer<R> consumer) {
+        Deque<CompletableFuture<R>> inFlight = new ArrayDeque<>();
+        Iterator<IdRange> pending = ranges.iterator();
+        try {
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                while (pending.hasNext() && inFlight.size() < parallelism) {
+                    Predicate range = pending.next().toPredicate(id);
+                    inFlight.add(asyncQueryExecutor.query(qf -> query.apply(qf, range)));
+                }
+                consumer.accept(inFlight.poll().join());
+            }
+        } catch (CompletionException e) {
+            inFlight.forEach(future -> future.cancel(false));
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        } catch (RuntimeException e) {
+            inFlight.forEach(future -> future.cancel(false));
+            throw e;
+        }
+    }
+
+    /**
+     * [from, to] (양 끝 포함)
+     */
+    @lombok.Value
+    public static class IdRange {
+
+        long from;
+        long to;
+
+        public Predicate toPredicate(NumberPath<Long> id) {
+            return id.between(from, to);
+        }
+    }
+}
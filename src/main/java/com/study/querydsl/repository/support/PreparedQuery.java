@@ -0,0 +1,196 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionUtils;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUtil;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * 한 번 정의한 쿼리 모양을 파라미터(Param) 조합별로 JPQL 까지 직렬화해서 캐시하고,
+ * 호출할 때는 값만 바인딩해서 실행한다.
+ * <p>
+ * 조합마다 JPQL 문자열이 항상 같으므로 Hibernate 쿼리 플랜 캐시도 재사용된다.
+ * 쿼리 모양 안의 가변 값은 반드시 Param 으로 작성해야 한다. (리터럴 값은 처음 직렬화할 때 고정된다)
+ */
+public class PreparedQuery<T> {
+
+    private final String name;
+    private final EntityManager em;
+    private final JPQLTemplates templates;
+    private final JPAQueryFactory queryFactory;
+    private final BiFunction<JPAQueryFactory, PresentParams, JPAQuery<T>> shape;
+    private final ConcurrentMap<PresentParamsKey, Compiled> compiled = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    PreparedQuery(String name, EntityManager em, JPQLTemplates templates, JPAQueryFactory queryFactory,
+                  BiFunction<JPAQueryFactory, PresentParams, JPAQuery<T>> shape) {
+        this.name = name;
+        this.em = em;
+        this.templates = templates;
+        this.queryFactory = queryFactory;
+        this.shape = shape;
+    }
+
+    public Binding bind() {
+        return new Binding();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getCachedShapes() {
+        return compiled.size();
+    }
+
+    private Compiled compiled(Map<ParamExpression<?>, Object> values) {
+        PresentParamsKey key = new PresentParamsKey(values.keySet());
+        Compiled result = compiled.get(key);
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        return compiled.computeIfAbsent(key, k -> compile(new PresentParams(k.params)));
+    }
+
+    private Compiled compile(PresentParams present) {
+        QueryMetadata metadata = shape.apply(queryFactory, present).getMetadata();
+        JPQLSerializer serializer = new JPQLSerializer(templates, em);
+        serializer.serialize(metadata, false, null);
+
+        Expression<?> projection = metadata.getProjection();
+        FactoryExpression<?> factory = projection instanceof FactoryExpression
+                ? FactoryExpressionUtils.wrap((FactoryExpression<?>) projection)
+                : null;
+        return new Compiled(serializer.toString(), new ArrayList<>(serializer.getConstants()),
+                metadata.getModifiers(), factory);
+    }
+
+    /**
+     * 호출 한 번의 파라미터 값, null 인 값은 바인딩하지 않는다(조건에서 빠진다).
+     */
+    public class Binding {
+
+        private final Map<ParamExpression<?>, Object> values = new HashMap<>();
+        private Long limit;
+        private Long offset;
+
+        public <P> Binding set(ParamExpression<P> param, P value) {
+            if (value != null) {
+                values.put(param, value);
+            } else {
+                values.remove(param);
+            }
+            return this;
+        }
+
+        public Binding limit(long limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public Binding offset(long offset) {
+            this.offset = offset;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<T> fetch() {
+            Compiled query = compiled(values);
+            List<?> rows = query.create(em, values, limit, offset).getResultList();
+            if (query.projection == null) {
+                return (List<T>) rows;
+            }
+            List<T> result = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                result.add((T) (row instanceof Object[]
+                        ? query.projection.newInstance((Object[]) row)
+                        : query.projection.newInstance(row)));
+            }
+            return result;
+        }
+
+        public T fetchFirst() {
+            List<T> result = limit(1).fetch();
+            return result.isEmpty() ? null : result.get(0);
+        }
+    }
+
+    private static final class Compiled {
+
+        private final String jpql;
+        private final List<Object> constants;
+        private final QueryModifiers modifiers;
+        private final FactoryExpression<?> projection;
+
+        Compiled(String jpql, List<Object> constants, QueryModifiers modifiers, FactoryExpression<?> projection) {
+            this.jpql = jpql;
+            this.constants = constants;
+            this.modifiers = modifiers;
+            this.projection = projection;
+        }
+
+        Query create(EntityManager em, Map<ParamExpression<?>, Object> values, Long limit, Long offset) {
+            Query query = em.createQuery(jpql);
+            JPAUtil.setConstants(query, constants, values);
+            Long maxResults = limit != null ? limit : modifiers.getLimit();
+            Long firstResult = offset != null ? offset : modifiers.getOffset();
+            if (maxResults != null) {
+                query.setMaxResults(Math.toIntExact(maxResults));
+            }
+            if (firstResult != null) {
+                query.setFirstResult(Math.toIntExact(firstResult));
+            }
+            return query;
+        }
+    }
+
+    private static final class PresentParamsKey {
+
+        private final java.util.Set<ParamExpression<?>> params;
+
+        PresentParamsKey(java.util.Set<ParamExpression<?>> params) {
+            this.params = Collections.unmodifiableSet(new HashSet<>(params));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PresentParamsKey && params.equals(((PresentParamsKey) o).params);
+        }
+
+        @Override
+        public int hashCode() {
+            return params.hashCode();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+/**
+ * PreparedQuery 를 만들고 캐시 사용 현황을 Micrometer 미터로 등록한다.
+ * - querydsl.prepared-query.cache (result=hit|miss), querydsl.prepared-query.shapes: 쿼리(query 태그)별 JPQL 캐시
+ * - querydsl.prepared-query.plan-cache (result=hit|miss): Hibernate 쿼리 플랜 캐시 전체,
+ *   hibernate.generate_statistics 가 켜져 있을 때만 등록한다. (꺼져 있으면 Hibernate 가 집계하지 않는다)
+ */
+@Slf4j
+@Component
+public class PreparedQueryFactory {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, PreparedQuery<?>> queries = new ConcurrentHashMap<>();
+
+    public PreparedQueryFactory(EntityManager em, EntityManagerFactory emf, JPAQueryFactory queryFactory,
+                                MeterRegistry registry) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.registry = registry;
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        if (statistics.isStatisticsEnabled()) {
+            FunctionCounter.builder("querydsl.prepared-query.plan-cache", statistics, Statistics::getQueryPlanCacheHitCount)
+                    .description("Hibernate 쿼리 플랜 캐시 조회 수")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("querydsl.prepared-query.plan-cache", statistics, Statistics::getQueryPlanCacheMissCount)
+                    .description("Hibernate 쿼리 플랜 캐시 조회 수")
+                    .tag("result", "miss")
+                    .register(registry);
+        } else {
+            log.info("hibernate.generate_statistics is off, query plan cache meters are not registered");
+        }
+    }
+
+    /**
+     * 이름이 같으면 같은 쿼리 모양으로 보고 처음 만든 PreparedQuery 를 돌려준다. (리포지토리를 다시 만들어도 미터가 하나로 유지된다)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> PreparedQuery<T> prepare(String name, BiFunction<JPAQueryFactory, PresentParams, JPAQuery<T>> shape) {
+        return (PreparedQuery<T>) queries.computeIfAbsent(name, n -> register(
+                new PreparedQuery<>(n, em, HQLTemplates.DEFAULT, queryFactory, shape)));
+    }
+
+    private PreparedQuery<?> register(PreparedQuery<?> query) {
+        FunctionCounter.builder("querydsl.prepared-query.cache", query, PreparedQuery::getHits)
+                .description("직렬화해 둔 JPQL 조회 수")
+                .tag("query", query.getName())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("querydsl.prepared-query.cache", query, PreparedQuery::getMisses)
+                .description("직렬화해 둔 JPQL 조회 수")
+                .tag("query", query.getName())
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("querydsl.prepared-query.shapes", query, PreparedQuery::getCachedShapes)
+                .description("파라미터 조합별로 직렬화해 둔 JPQL 수")
+                .tag("query", query.getName())
+                .register(registry);
+        return query;
+    }
+}
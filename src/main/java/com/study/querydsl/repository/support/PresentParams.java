@@ -0,0 +1,34 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Param;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * PreparedQuery 를 만들 때 값이 주어진 파라미터 목록
+ * 값이 없는 파라미터의 조건은 null 로 만들어 where 절에서 빠지게 한다.
+ */
+public final class PresentParams {
+
+    private final Set<ParamExpression<?>> params;
+
+    PresentParams(Set<ParamExpression<?>> params) {
+        this.params = Collections.unmodifiableSet(params);
+    }
+
+    public boolean has(ParamExpression<?> param) {
+        return params.contains(param);
+    }
+
+    public <P> Predicate when(Param<P> param, Function<Param<P>, ? extends Predicate> condition) {
+        return has(param) ? condition.apply(param) : null;
+    }
+
+    Set<ParamExpression<?>> getParams() {
+        return params;
+    }
+}
@@ -0,0 +1,36 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 같은 결과를 돌려주는 쿼리인지 비교하는 키 (JPQL + 프로젝션 + 상수/파라미터 값 + limit/offset)
+ * JPQL 이 같아도 프로젝션(DTO 타입)이 다르면 다른 키다.
+ */
+@Value
+public class QueryKey {
+
+    String jpql;
+    Expression<?> projection;
+    List<Object> constants;
+    Map<ParamExpression<?>, Object> params;
+    QueryModifiers modifiers;
+
+    public static QueryKey of(QueryMetadata metadata) {
+        JPQLSerializer serializer = new JPQLSerializer(JPQLTemplates.DEFAULT);
+        serializer.serialize(metadata, false, null);
+        return new QueryKey(serializer.toString(), metadata.getProjection(),
+                new ArrayList<>(serializer.getConstants()),
+                new HashMap<>(metadata.getParams()), metadata.getModifiers());
+    }
+}
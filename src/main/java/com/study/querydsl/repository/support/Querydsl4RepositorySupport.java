@@ -0,0 +1,222 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Querydsl 커스텀 리포지토리 공통 기능
+ * count 쿼리는 필요할 때만(마지막 페이지가 아니거나 첫 페이지가 꽉 찼을 때) 실행한다.
+ */
+public abstract class Querydsl4RepositorySupport {
+
+    private final Class<?> domainClass;
+    private Querydsl querydsl;
+    private EntityManager entityManager;
+    private JPAQueryFactory queryFactory;
+    private EntityManagerFactory entityManagerFactory;
+    private Executor countQueryExecutor;
+    private int inChunkSize = 500;
+
+    public Querydsl4RepositorySupport(Class<?> domainClass) {
+        Assert.notNull(domainClass, "Domain class must not be null!");
+        this.domainClass = domainClass;
+    }
+
+    @Autowired
+    public void setEntityManager(EntityManager entityManager) {
+        Assert.notNull(entityManager, "EntityManager must not be null!");
+        JpaEntityInformation<?, ?> entityInformation =
+                JpaEntityInformationSupport.getEntityInformation(domainClass, entityManager);
+        EntityPath<?> path = SimpleEntityPathResolver.INSTANCE.createPath(entityInformation.getJavaType());
+        this.entityManager = entityManager;
+        this.querydsl = new Querydsl(entityManager, new PathBuilder<>(path.getType(), path.getMetadata()));
+    }
+
+    @Autowired
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    @Autowired
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Autowired
+    public void setCountQueryExecutor(@Qualifier("countQueryExecutor") Executor countQueryExecutor) {
+        this.countQueryExecutor = countQueryExecutor;
+    }
+
+    @Autowired
+    public void setInChunkSize(@Value("${querydsl.pagination.in-chunk-size:500}") int inChunkSize) {
+        this.inChunkSize = inChunkSize;
+    }
+
+    @PostConstruct
+    public void validate() {
+        Assert.notNull(entityManager, "EntityManager must not be null!");
+        Assert.notNull(querydsl, "Querydsl must not be null!");
+        Assert.notNull(queryFactory, "QueryFactory must not be null!");
+    }
+
+    protected JPAQueryFactory getQueryFactory() {
+        return queryFactory;
+    }
+
+    protected Querydsl getQuerydsl() {
+        return querydsl;
+    }
+
+    protected EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    protected <T> JPAQuery<T> select(Expression<T> expr) {
+        return getQueryFactory().select(expr);
+    }
+
+    protected <T> JPAQuery<T> selectFrom(EntityPath<T> from) {
+        return getQueryFactory().selectFrom(from);
+    }
+
+    /**
+     * 본문 쿼리에 pageable 의 정렬/offset/limit 을 적용하고, 전체 건수가 필요할 때만 countQuery 를 실행한다.
+     * countQuery 는 fetch join, order by 없이 건수에 필요한 조인만 가진 가벼운 쿼리로 넘긴다.
+     */
+    protected <T> Page<T> applyPagination(Pageable pageable,
+                                          Function<JPAQueryFactory, JPAQuery<T>> contentQuery,
+                                          Function<JPAQueryFactory, JPAQuery<Long>> countQuery) {
+        JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
+        List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
+        JPAQuery<Long> countResult = countQuery.apply(getQueryFactory());
+        return PageableExecutionUtils.getPage(content, pageable, countResult::fetchOne);
+    }
+
+    /**
+     * applyPagination 과 같지만 count 쿼리를 별도 커넥션(EntityManager)에서 본문 쿼리와 동시에 실행한다.
+     * count 는 현재 트랜잭션 밖에서 실행되므로 아직 커밋되지 않은 변경은 건수에 반영되지 않는다.
+     * count 가 필요 없는 페이지면 count 를 취소한다. CompletableFuture.cancel 은 작업 스레드를 멈추지 않으므로
+     * 아직 시작 전이면 실행하지 않게 표시하고, 실행 중이면 Session.cancelQuery 로 JDBC Statement.cancel 을 보낸다.
+     */
+    protected <T> Page<T> applyPaginationConcurrently(Pageable pageable,
+                                                      Function<JPAQueryFactory, JPAQuery<T>> contentQuery,
+                                                      Function<JPAQueryFactory, JPAQuery<Long>> countQuery) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicReference<Session> countSession = new AtomicReference<>();
+        CompletableFuture<Long> total = CompletableFuture.supplyAsync(() -> {
+            EntityManager countEntityManager = entityManagerFactory.createEntityManager();
+            try {
+                countSession.set(countEntityManager.unwrap(Session.class));
+                if (cancelled.get()) {
+                    throw new CancellationException("count query not needed");
+                }
+                return countQuery.apply(new JPAQueryFactory(countEntityManager)).fetchOne();
+            } finally {
+                countSession.set(null);
+                countEntityManager.close();
+            }
+        }, countQueryExecutor);
+
+        AtomicBoolean countUsed = new AtomicBoolean();
+        try {
+            JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
+            List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
+            return PageableExecutionUtils.getPage(content, pageable, () -> {
+                countUsed.set(true);
+                return total.join();
+            });
+        } finally {
+            if (!countUsed.get()) {
+                cancelled.set(true);
+                total.cancel(false);
+                cancelCountQuery(countSession.get());
+            }
+        }
+    }
+
+    /**
+     * Session.cancelQuery 는 다른 스레드에서 불러도 되는 유일한 Session 메서드다.
+     * 그 사이 count 가 끝나 세션이 닫혔으면 취소할 것이 없다.
+     */
+    private static void cancelCountQuery(Session session) {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.cancelQuery();
+        } catch (RuntimeException ignored) {
+            // 이미 끝났거나 닫힌 세션
+        }
+    }
+
+    /**
+     * 컬렉션을 fetch join 하는 페이지 조회
+     * fetch join 한 쿼리에 limit 을 걸면 Hibernate 는 조인된 행을 전부 읽고 메모리에서 자른다. (HHH000104)
+     * 1) idQuery 에 pageable 의 정렬/offset/limit 을 적용해서 이번 페이지의 루트 id 만 읽고
+     * 2) contentQuery 로 그 id 들만 fetch join 해서 읽은 뒤 1) 의 순서대로 돌려준다.
+     * idQuery 는 컬렉션 조인 없이(필요하면 exists 서브쿼리로) 루트마다 한 행이 나오게 만든다.
+     * id 가 in-chunk-size 보다 많으면 IN 절을 나눠 여러 번 읽는다.
+     */
+    protected <T, ID> Page<T> applyPaginationByIds(Pageable pageable,
+                                                   Function<JPAQueryFactory, JPAQuery<ID>> idQuery,
+                                                   BiFunction<JPAQueryFactory, Collection<ID>, JPAQuery<T>> contentQuery,
+                                                   Function<T, ID> idOf,
+                                                   Function<JPAQueryFactory, JPAQuery<Long>> countQuery) {
+        List<ID> ids = getQuerydsl().applyPagination(pageable, idQuery.apply(getQueryFactory())).fetch();
+        List<T> content = fetchByIds(ids, contentQuery, idOf);
+        JPAQuery<Long> countResult = countQuery.apply(getQueryFactory());
+        return PageableExecutionUtils.getPage(content, pageable, countResult::fetchOne);
+    }
+
+    private <T, ID> List<T> fetchByIds(List<ID> ids,
+                                       BiFunction<JPAQueryFactory, Collection<ID>, JPAQuery<T>> contentQuery,
+                                       Function<T, ID> idOf) {
+        Map<ID, T> byId = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += inChunkSize) {
+            List<ID> chunk = ids.subList(from, Math.min(ids.size(), from + inChunkSize));
+            for (T row : contentQuery.apply(getQueryFactory(), chunk).fetch()) {
+                byId.put(idOf.apply(row), row);
+            }
+        }
+        List<T> content = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            T row = byId.get(id);
+            // 두 쿼리 사이에 지워진 행은 빠진다.
+            if (row != null) {
+                content.add(row);
+            }
+        }
+        return content;
+    }
+}
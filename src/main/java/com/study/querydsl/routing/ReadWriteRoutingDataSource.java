@@ -0,0 +1,164 @@
+package com.study.querydsl.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션은 복제본, 나머지는 primary 로 보내는 DataSource
+ * - 트랜잭션의 readOnly 는 커넥션을 실제로 얻을 때 확인하므로 LazyConnectionDataSourceProxy 로 감싸서 쓴다.
+ * - 복제본 연결에 실패하면 replicaRetryAfter 동안 빼고 다른 복제본, 마지막에는 primary 로 연결한다.
+ * - 쓰기 트랜잭션이 커넥션을 얻으면 readYourWrites 동안 같은 스레드(요청)의 읽기도 primary 로 보낸다.
+ *   요청 밖의 스레드는 그 트랜잭션이 끝날 때 고정을 지워서, 스레드를 다시 쓰는 다음 작업이 물려받지 않게 한다.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    /**
+     * 같은 인스턴스는 트랜잭션에 한 번만 등록된다. (동기화 목록이 Set)
+     */
+    private static final TransactionSynchronization CLEAR_UNSCOPED_PIN = new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+            if (!RoutingContext.isScoped()) {
+                RoutingContext.clear();
+            }
+        }
+    };
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final RoutingProperties.Balancing balancing;
+    private final long readYourWritesMillis;
+    private final long retryAfterMillis;
+    private final Clock clock;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                      RoutingProperties.Balancing balancing, Duration readYourWrites,
+                                      Duration replicaRetryAfter, Clock clock) {
+        this.balancing = balancing;
+        this.readYourWritesMillis = readYourWrites.toMillis();
+        this.retryAfterMillis = replicaRetryAfter.toMillis();
+        this.clock = clock;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        long now = clock.millis();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                RoutingContext.pinPrimaryUntil(now + readYourWritesMillis);
+                if (!RoutingContext.isScoped() && TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.registerSynchronization(CLEAR_UNSCOPED_PIN);
+                }
+            }
+            return PRIMARY;
+        }
+        if (RoutingContext.isPinnedToPrimary(now)) {
+            return PRIMARY;
+        }
+        Replica replica = nextReplica(now);
+        return replica != null ? replica.name : PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(username, password);
+    }
+
+    private Connection connect(String username, String password) throws SQLException {
+        Object key = determineCurrentLookupKey();
+        while (true) {
+            DataSource target = getResolvedDataSources().get(key);
+            try {
+                return username == null ? target.getConnection() : target.getConnection(username, password);
+            } catch (SQLException e) {
+                if (PRIMARY.equals(key)) {
+                    throw e;
+                }
+                markDown(key, e);
+                Replica next = nextReplica(clock.millis());
+                key = next != null ? next.name : PRIMARY;
+            }
+        }
+    }
+
+    private Replica nextReplica(long now) {
+        int size = replicas.size();
+        int start = Math.floorMod(counter.getAndIncrement(), Math.max(size, 1));
+        Replica selected = null;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.downUntil > now) {
+                continue;
+            }
+            if (balancing == RoutingProperties.Balancing.ROUND_ROBIN) {
+                return replica;
+            }
+            if (selected == null || replica.activeConnections() < selected.activeConnections()) {
+                selected = replica;
+            }
+        }
+        return selected;
+    }
+
+    private void markDown(Object key, SQLException e) {
+        for (Replica replica : replicas) {
+            if (replica.name.equals(key)) {
+                replica.downUntil = clock.millis() + retryAfterMillis;
+                log.warn("replica {} unavailable for {}ms, falling back: {}", key, retryAfterMillis, e.getMessage());
+            }
+        }
+    }
+
+    private static class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile long downUntil;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * Hikari 풀이면 사용 중인 커넥션 수, 아니면 0 (라운드 로빈처럼 동작)
+         */
+        int activeConnections() {
+            if (dataSource instanceof HikariDataSource) {
+                HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+                return pool != null ? pool.getActiveConnections() : 0;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.study.querydsl.routing;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * read-your-writes 를 요청 사이에도 이어준다.
+ * 쓰기가 있었던 요청의 응답에 고정 만료 시각을 쿠키로 내려주고, 다음 요청에서 다시 RoutingContext 에 올린다.
+ * 쿠키는 클라이언트가 바꿀 수 있으므로 만료 시각은 지금 + readYourWrites 를 넘지 않게 자른다.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE = "rw-pin";
+
+    private final long readYourWritesMillis;
+    private final Clock clock;
+
+    public ReadYourWritesFilter(Duration readYourWrites, Clock clock) {
+        this.readYourWritesMillis = readYourWrites.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = clock.millis();
+        long requested = Math.min(pinnedUntil(request), now + readYourWritesMillis);
+        RoutingContext.begin();
+        if (requested > now) {
+            RoutingContext.pinPrimaryUntil(requested);
+        }
+        PinningResponse pinningResponse = new PinningResponse(response, requested);
+        try {
+            filterChain.doFilter(request, pinningResponse);
+        } finally {
+            pinningResponse.addPinCookie();
+            RoutingContext.clear();
+        }
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 응답 본문을 쓰기 시작하면 헤더를 더 붙일 수 없으므로 그 전에 쿠키를 붙인다.
+     */
+    private class PinningResponse extends HttpServletResponseWrapper {
+
+        private final long requested;
+        private boolean added;
+
+        PinningResponse(HttpServletResponse response, long requested) {
+            super(response);
+            this.requested = requested;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addPinCookie();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addPinCookie();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addPinCookie();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addPinCookie();
+            super.sendRedirect(location);
+        }
+
+        void addPinCookie() {
+            long until = RoutingContext.pinnedUntil();
+            if (added || until <= requested || isCommitted()) {
+                return;
+            }
+            Cookie cookie = new Cookie(COOKIE, Long.toString(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (until - clock.millis() + 999) / 1000));
+            addCookie(cookie);
+            added = true;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.study.querydsl.routing;
+
+/**
+ * 현재 스레드(요청)의 read-your-writes 상태
+ * 쓰기 트랜잭션이 커넥션을 얻으면 pinnedUntil 까지 읽기도 primary 로 보낸다.
+ * begin() 으로 범위를 연 쪽(요청 필터, 비동기 쿼리 실행기)이 finally 에서 clear() 한다.
+ * 범위가 없는 스레드(@Async, @Scheduled 등 재사용되는 스레드)의 고정은 쓰기 트랜잭션이 끝날 때 지운다.
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<Long> PINNED_UNTIL = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> SCOPED = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    /**
+     * 이 스레드의 고정을 clear() 할 때까지 유지한다.
+     */
+    public static void begin() {
+        SCOPED.set(Boolean.TRUE);
+    }
+
+    public static boolean isScoped() {
+        return SCOPED.get() != null;
+    }
+
+    public static void pinPrimaryUntil(long epochMillis) {
+        Long current = PINNED_UNTIL.get();
+        if (current == null || current < epochMillis) {
+            PINNED_UNTIL.set(epochMillis);
+        }
+    }
+
+    public static boolean isPinnedToPrimary(long nowMillis) {
+        Long until = PINNED_UNTIL.get();
+        return until != null && until > nowMillis;
+    }
+
+    /**
+     * 고정되지 않았으면 0
+     */
+    public static long pinnedUntil() {
+        Long until = PINNED_UNTIL.get();
+        return until != null ? until : 0;
+    }
+
+    public static void clear() {
+        PINNED_UNTIL.remove();
+        SCOPED.remove();
+    }
+}
@@ -0,0 +1,76 @@
+package com.study.querydsl.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * querydsl.routing.enabled=true 일 때 spring.datasource 를 primary 로,
+ * querydsl.routing.replicas 를 복제본으로 쓰는 DataSource 를 등록한다.
+ * primary/복제본 풀은 빈으로 등록하지 않는다. (p6spy 가 한 번만 감싸도록)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "querydsl.routing", name = "enabled", havingValue = "true")
+public class RoutingDataSourceConfig implements DisposableBean {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, RoutingProperties routing,
+                                 Environment environment) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        pools.add(primary);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < routing.getReplicas().size(); i++) {
+            RoutingProperties.Replica replica = routing.getReplicas().get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + i);
+            pool.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername());
+            pool.setPassword(replica.getPassword());
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            pool.setConnectionTimeout(replica.getConnectionTimeout().toMillis());
+            // 복제본이 내려가 있어도 애플리케이션은 뜨고, 연결할 때 실패해서 primary 로 넘어간다.
+            pool.setInitializationFailTimeout(-1);
+            pool.setReadOnly(true);
+            pools.add(pool);
+            replicas.put(pool.getPoolName(), pool);
+        }
+
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas,
+                routing.getBalancing(), routing.getReadYourWrites(), routing.getReplicaRetryAfter(),
+                Clock.systemUTC()));
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(RoutingProperties routing) {
+        return new ReadYourWritesFilter(routing.getReadYourWrites(), Clock.systemUTC());
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,53 @@
+package com.study.querydsl.routing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.routing")
+public class RoutingProperties {
+
+    public enum Balancing { ROUND_ROBIN, LEAST_CONNECTIONS }
+
+    /**
+     * 읽기 전용 트랜잭션을 복제본으로 보낼지 여부, 끄면 spring.datasource 하나만 쓴다.
+     */
+    private boolean enabled = false;
+
+    private Balancing balancing = Balancing.ROUND_ROBIN;
+
+    /**
+     * 쓰기 트랜잭션 후 이 시간 동안은 읽기도 primary 로 보낸다. (복제 지연 동안 자기가 쓴 데이터를 읽기 위해)
+     */
+    private Duration readYourWrites = Duration.ofSeconds(5);
+
+    /**
+     * 연결에 실패한 복제본을 다시 시도하기까지 쉬는 시간
+     */
+    private Duration replicaRetryAfter = Duration.ofSeconds(30);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        /**
+         * 커넥션을 기다리는 시간, 길면 복제본 장애 때 primary 로 넘어가는 것도 그만큼 늦어진다.
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+    }
+}
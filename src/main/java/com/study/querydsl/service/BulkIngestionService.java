@@ -0,0 +1,83 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.dto.MemberIngestRow;
+import com.study.querydsl.entity.Item;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 대량 적재용 서비스
+ * - 시퀀스(pooled-lo)로 id 를 미리 할당받기 때문에 insert 가 JDBC batch 로 묶인다.
+ * - batch_size 건마다 flush/clear 해서 영속성 컨텍스트 메모리를 일정하게 유지한다.
+ * 호출 한 번이 한 트랜잭션이므로 아주 큰 입력은 호출하는 쪽에서 나눠서 넘긴다.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkIngestionService {
+
+    private final EntityManager em;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize;
+
+    @Transactional
+    public List<Long> ingestTeams(Iterable<String> names) {
+        List<Long> ids = new ArrayList<>();
+        persistInBatches(names, name -> {
+            Team team = new Team(name);
+            em.persist(team);
+            ids.add(team.getId());
+        }, () -> { });
+        return ids;
+    }
+
+    /**
+     * 팀은 id 로만 참조한다. 배치마다 clear 하므로 팀 프록시도 배치 단위로 다시 얻는다.
+     */
+    @Transactional
+    public long ingestMembers(Iterable<MemberIngestRow> rows) {
+        Map<Long, Team> teams = new HashMap<>();
+        Function<Long, Team> teamReference = teamId -> teamId == null ? null
+                : teams.computeIfAbsent(teamId, id -> em.getReference(Team.class, id));
+        return persistInBatches(rows,
+                row -> em.persist(new Member(row.getMemberName(), row.getAge(), teamReference.apply(row.getTeamId()))),
+                teams::clear);
+    }
+
+    @Transactional
+    public long ingestItems(Iterable<String> names) {
+        return persistInBatches(names, name -> {
+            Item item = new Item();
+            item.setName(name);
+            em.persist(item);
+        }, () -> { });
+    }
+
+    private <T> long persistInBatches(Iterable<T> rows, Consumer<T> persist, Runnable onClear) {
+        long count = 0;
+        for (T row : rows) {
+            persist.accept(row);
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+                onClear.run();
+            }
+        }
+        em.flush();
+        em.clear();
+        onClear.run();
+        return count;
+    }
+}
@@ -0,0 +1,184 @@
+package com.study.querydsl.service;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.nearcache.ProjectionCache;
+import com.study.querydsl.snapshot.MemberSnapshotService;
+import com.study.querydsl.statistics.TeamStatisticsService;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static com.study.querydsl.entity.QMember.member;
+
+/**
+ * 엔티티를 로딩하지 않고 update/delete 한 번으로 처리하는 회원 벌크 연산
+ * - 대상이 많으면 member.id 순서로 chunk-size 개씩 나눠서 실행해 락을 오래 잡지 않는다.
+ *   호출하는 쪽 트랜잭션이 없으면 구간마다 커밋, 있으면 그 트랜잭션에 참여한다.
+ * - 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 실행 전에 flush, 실행 후 구간마다 영향받은 회원/팀만 detach 한다.
+ * - 벌크 연산은 엔티티 이벤트가 없으므로 구간마다 대상 회원의 팀을 모아 두고, 끝난 뒤 그 팀들의 통계(team_statistics)만
+ *   다시 계산한다. 회원 스냅샷은 전체 다시 읽게 한다.
+ *   회원에 의존하는 프로젝션 캐시 항목은 구간이 커밋될 때마다 지운다.
+ * 조건(where)은 member 컬럼이나 서브쿼리로만 작성한다. (벌크 JPQL 은 조인을 지원하지 않는다)
+ */
+@Service
+public class MemberBulkService {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final TeamStatisticsService teamStatisticsService;
+    private final MemberSnapshotService memberSnapshotService;
+    private final ProjectionCache projectionCache;
+    private final long chunkSize;
+
+    public MemberBulkService(EntityManager em, JPAQueryFactory queryFactory,
+                             PlatformTransactionManager transactionManager,
+                             TeamStatisticsService teamStatisticsService,
+                             MemberSnapshotService memberSnapshotService,
+                             ProjectionCache projectionCache,
+                             @Value("${querydsl.bulk.chunk-size:10000}") long chunkSize) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.teamStatisticsService = teamStatisticsService;
+        this.memberSnapshotService = memberSnapshotService;
+        this.projectionCache = projectionCache;
+        this.chunkSize = chunkSize;
+    }
+
+    public long changeTeam(Predicate where, Long teamId) {
+        return executeInChunks(where, teamId, true, range -> queryFactory
+                .update(member)
+                .set(member.team, em.getReference(Team.class, teamId))
+                .where(where, range)
+                .execute());
+    }
+
+    public long addAge(Predicate where, int delta) {
+        return executeInChunks(where, null, false, range -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(delta))
+                .where(where, range)
+                .execute());
+    }
+
+    public long delete(Predicate where) {
+        return executeInChunks(where, null, true, range -> queryFactory
+                .delete(member)
+                .where(where, range)
+                .execute());
+    }
+
+    /**
+     * 대상 회원을 id 순서로 chunk-size 개씩 읽고(where id > 마지막 id order by id limit chunk-size), 그 id 구간에 벌크 연산을 실행한다.
+     * 구간을 실제 id 로 정하므로 id 가 듬성듬성해도 구간마다 chunk-size 개 이하만 잠그고, 이미 처리한 회원은 다시 보지 않는다.
+     *
+     * @param targetTeamId 회원이 옮겨 가는 팀, 통계를 다시 계산할 팀에 더한다. 없으면 null
+     * @param teamsChanged 회원의 팀이 바뀌거나 회원이 없어지면 true, 영향받은 팀 엔티티도 detach 한다.
+     */
+    private long executeInChunks(Predicate where, Long targetTeamId, boolean teamsChanged,
+                                 Function<Predicate, Long> statement) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush();
+        }
+
+        Set<Long> touchedTeams = new TreeSet<>();
+        if (targetTeamId != null) {
+            touchedTeams.add(targetTeamId);
+        }
+        long total = 0;
+        Long lastId = null;
+        while (true) {
+            Long after = lastId;
+            Chunk chunk = transactionTemplate.execute(status -> {
+                em.flush();
+                List<Long> ids = queryFactory
+                        .select(member.id)
+                        .from(member)
+                        .where(where, after != null ? member.id.gt(after) : null)
+                        .orderBy(member.id.asc())
+                        .limit(chunkSize)
+                        .fetch();
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                Long last = ids.get(ids.size() - 1);
+                Predicate range = member.id.between(ids.get(0), last);
+                List<Long> teams = queryFactory
+                        .selectDistinct(member.team.id)
+                        .from(member)
+                        .where(where, range, member.team.isNotNull())
+                        .fetch();
+                touchedTeams.addAll(teams);
+                projectionCache.invalidateAfterCommit(Member.class);
+
+                long count = statement.apply(range);
+                Set<Long> staleTeams = new HashSet<>();
+                if (teamsChanged) {
+                    staleTeams.addAll(teams);
+                    if (targetTeamId != null) {
+                        staleTeams.add(targetTeamId);
+                    }
+                }
+                detach(new HashSet<>(ids), staleTeams);
+                return new Chunk(last, count);
+            });
+            if (chunk == null) {
+                break;
+            }
+            total += chunk.count;
+            lastId = chunk.lastId;
+        }
+        if (total > 0) {
+            teamStatisticsService.recompute(touchedTeams);
+            memberSnapshotService.invalidateAll();
+        }
+        return total;
+    }
+
+    /**
+     * 벌크 연산으로 DB 와 달라졌을 수 있는 엔티티만 영속성 컨텍스트에서 제거한다.
+     * 구간 안의 대상 회원, 팀 이동/삭제면 회원이 빠지거나 들어간 팀(members 컬렉션이 달라진다)이다.
+     * 영속성 컨텍스트 전체를 비우지 않으므로 호출한 쪽이 들고 있는 다른 엔티티는 그대로 managed 상태다.
+     */
+    private void detach(Set<Long> memberIds, Set<Long> teamIds) {
+        SessionImplementor session = em.unwrap(Session.class).unwrap(SessionImplementor.class);
+        List<Object> stale = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+            Object entity = entry.getKey();
+            if (entity instanceof Member && memberIds.contains(((Member) entity).getId())
+                    || entity instanceof Team && teamIds.contains(((Team) entity).getId())) {
+                stale.add(entity);
+            }
+        }
+        stale.forEach(em::detach);
+    }
+
+    private static class Chunk {
+
+        private final Long lastId;
+        private final long count;
+
+        Chunk(Long lastId, long count) {
+            this.lastId = lastId;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.dto.MemberDashboardDto;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.TeamStatisticsDto;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.support.AsyncQueryExecutor;
+import com.study.querydsl.statistics.TeamStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 화면에 필요한 목록, 팀 통계, 전체 회원 수를 동시에 조회한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberDashboardService {
+
+    private final AsyncQueryExecutor asyncQueryExecutor;
+    private final MemberRepository memberRepository;
+    private final TeamStatisticsService teamStatisticsService;
+
+    public MemberDashboardDto dashboard(MemberSearchCondition condition) {
+        CompletableFuture<List<MemberTeamDto>> members =
+                asyncQueryExecutor.query(queryFactory -> memberRepository.search(condition));
+        CompletableFuture<List<TeamStatisticsDto>> teams =
+                asyncQueryExecutor.query(queryFactory -> teamStatisticsService.findAll());
+        CompletableFuture<Long> total =
+                asyncQueryExecutor.query(queryFactory -> queryFactory.select(member.count()).from(member).fetchOne());
+
+        return CompletableFuture.allOf(members, teams, total)
+                .thenApply(done -> new MemberDashboardDto(members.join(), teams.join(), total.join()))
+                .join();
+    }
+}
@@ -0,0 +1,149 @@
+package com.study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.QMemberDto;
+import com.study.querydsl.repository.support.PartitionedQueryExecutor;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 전체 내보내기
+ * 결과를 List 로 모으지 않고 forward-only 커서로 한 건씩 읽어서 바로 출력 스트림에 쓴다.
+ * 엔티티 대신 MemberDto 로 바로 조회하므로 영속성 컨텍스트에 쌓이는 것이 없다.
+ * exportCsvPartitioned 는 커서 하나 대신 member.id 구간을 동시에 읽어서 구간 순서대로 이어 쓴다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private static final int CLEAR_INTERVAL = 1000;
+    private static final String CSV_HEADER = "memberName,age\n";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final ObjectMapper objectMapper;
+    private final PartitionedQueryExecutor partitionedQueryExecutor;
+
+    @Value("${querydsl.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${querydsl.export.partition-width:50000}")
+    private long partitionWidth;
+
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) {
+        return export(out, null, (writer, dto) -> {
+            writer.write(objectMapper.writeValueAsString(dto));
+            writer.write('\n');
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public long exportCsv(OutputStream out) {
+        return export(out, CSV_HEADER, MemberExportService::writeCsv);
+    }
+
+    /**
+     * 결과는 exportCsv 와 같다. 구간마다 목록으로 읽으므로 메모리에는 동시에 실행 중인 구간의 결과만 있다.
+     * 구간마다 다른 트랜잭션이므로 내보내는 도중 바뀐 행은 구간에 따라 바뀌기 전/후가 섞일 수 있다.
+     */
+    public long exportCsvPartitioned(OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long[] count = {0};
+        try {
+            writer.write(CSV_HEADER);
+            partitionedQueryExecutor.forEachInOrder(member.id,
+                    partitionedQueryExecutor.splitByWidth(member.id, null, partitionWidth),
+                    (queryFactory, range) -> queryFactory
+                            .select(new QMemberDto(member.memberName, member.age))
+                            .from(member)
+                            .where(range)
+                            .orderBy(member.id.asc())
+                            .fetch(),
+                    (List<MemberDto> rows) -> {
+                        try {
+                            for (MemberDto row : rows) {
+                                writeCsv(writer, row);
+                            }
+                            writer.flush();
+                            count[0] += rows.size();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+            writer.flush();
+            return count[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsv(Writer writer, MemberDto dto) throws IOException {
+        writer.write(csv(dto.getMemberName()));
+        writer.write(',');
+        writer.write(String.valueOf(dto.getAge()));
+        writer.write('\n');
+    }
+
+    private long export(OutputStream out, String header, RowWriter rowWriter) {
+        long count = 0;
+        try (Stream<MemberDto> rows = queryFactory
+                .select(new QMemberDto(member.memberName, member.age))
+                .from(member)
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .stream()) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (header != null) {
+                writer.write(header);
+            }
+            Iterator<MemberDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.write(writer, iterator.next());
+                if (++count % CLEAR_INTERVAL == 0) {
+                    writer.flush();
+                    em.clear();
+                }
+            }
+            writer.flush();
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Writer writer, MemberDto dto) throws IOException;
+    }
+}
@@ -0,0 +1,89 @@
+package com.study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.study.querydsl.dto.AgeStatisticsDto;
+import com.study.querydsl.repository.support.GroupedAggregate;
+import com.study.querydsl.repository.support.PartitionedQueryExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 전체를 읽는 리포트, member.id 구간으로 나눠 동시에 집계하고 합친다. (PartitionedQueryExecutor)
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberReportService {
+
+    private final PartitionedQueryExecutor partitionedQueryExecutor;
+
+    public AgeStatisticsDto ageStatistics(Predicate where) {
+        return partitionedQueryExecutor.aggregate(member.id, where, AgeStatisticsDto.EMPTY, (queryFactory, range) -> {
+            Tuple tuple = queryFactory
+                    .select(member.count(), member.age.sum(), member.age.min(), member.age.max())
+                    .from(member)
+                    .where(where, range)
+                    .fetchOne();
+            return tuple == null ? AgeStatisticsDto.EMPTY : ageStatistics(tuple);
+        });
+    }
+
+    /**
+     * 팀별 나이 집계 (팀이 없는 회원은 제외)
+     */
+    public Map<Long, AgeStatisticsDto> ageStatisticsByTeam(Predicate where) {
+        return partitionedQueryExecutor.aggregate(member.id, where, GroupedAggregate.<Long, AgeStatisticsDto>empty(),
+                (queryFactory, range) -> grouped(queryFactory
+                        .select(member.team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                        .from(member)
+                        .where(where, range, member.team.isNotNull())
+                        .groupBy(member.team.id)
+                        .fetch()))
+                .asMap();
+    }
+
+    /**
+     * 나이대(width 살 단위, 키는 구간 시작 나이)별 집계
+     * 구간마다 나이로 group by 하고(최대 나이 수만큼의 행) 나이대로 묶는 것은 메모리에서 한다.
+     */
+    public Map<Integer, AgeStatisticsDto> ageStatisticsByBucket(Predicate where, int width) {
+        return partitionedQueryExecutor.aggregate(member.id, where, GroupedAggregate.<Integer, AgeStatisticsDto>empty(),
+                (queryFactory, range) -> {
+                    List<Tuple> byAge = queryFactory
+                            .select(member.age, member.count())
+                            .from(member)
+                            .where(where, range)
+                            .groupBy(member.age)
+                            .fetch();
+                    Map<Integer, AgeStatisticsDto> buckets = new HashMap<>();
+                    for (Tuple tuple : byAge) {
+                        int age = tuple.get(member.age);
+                        long count = tuple.get(member.count());
+                        buckets.merge(Math.floorDiv(age, width) * width,
+                                AgeStatisticsDto.of(count, count * age, age, age), AgeStatisticsDto::combine);
+                    }
+                    return GroupedAggregate.of(buckets);
+                })
+                .asMap();
+    }
+
+    private static GroupedAggregate<Long, AgeStatisticsDto> grouped(List<Tuple> rows) {
+        Map<Long, AgeStatisticsDto> groups = new HashMap<>();
+        for (Tuple tuple : rows) {
+            groups.put(tuple.get(member.team.id), AgeStatisticsDto.of(tuple.get(1, Number.class),
+                    tuple.get(2, Number.class), tuple.get(3, Integer.class), tuple.get(4, Integer.class)));
+        }
+        return GroupedAggregate.of(groups);
+    }
+
+    private static AgeStatisticsDto ageStatistics(Tuple tuple) {
+        return AgeStatisticsDto.of(tuple.get(0, Number.class), tuple.get(1, Number.class),
+                tuple.get(2, Integer.class), tuple.get(3, Integer.class));
+    }
+}
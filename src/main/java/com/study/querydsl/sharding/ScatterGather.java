@@ -0,0 +1,139 @@
+package com.study.querydsl.sharding;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.repository.support.PartialAggregate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * 같은 쿼리를 여러 샤드에 동시에 보내고 결과를 합친다.
+ * 샤드마다 따로 트랜잭션을 열므로 샤드끼리 같은 시점의 데이터를 보지는 않는다.
+ * 샤드 하나라도 실패하면 전체가 실패한다. (일부 샤드만의 결과는 돌려주지 않는다)
+ */
+public class ScatterGather {
+
+    private final Executor executor;
+
+    public ScatterGather(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 샤드마다 query 를 실행한 결과, 샤드 순서
+     */
+    public <R> List<R> each(Collection<Shard> shards, Function<JPAQueryFactory, R> query) {
+        if (shards.size() == 1) {
+            return Collections.singletonList(shards.iterator().next().read(query));
+        }
+        List<CompletableFuture<R>> futures = new ArrayList<>();
+        for (Shard shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> shard.read(query), executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        List<R> results = new ArrayList<>();
+        futures.forEach(future -> results.add(future.join()));
+        return results;
+    }
+
+    /**
+     * 샤드 결과를 순서 없이 이어 붙인다.
+     */
+    public <T> List<T> fetch(Collection<Shard> shards, Function<JPAQueryFactory, JPAQuery<T>> query) {
+        List<T> rows = new ArrayList<>();
+        each(shards, queryFactory -> query.apply(queryFactory).fetch()).forEach(rows::addAll);
+        return rows;
+    }
+
+    /**
+     * order 로 정렬한 전체 결과의 [offset, offset + limit) 구간
+     * 샤드마다 앞에서 offset + limit 행만 읽어 (각자 정렬된 결과를) 병합한다. 뒤 페이지일수록 샤드마다 읽는 행이 늘어난다.
+     * query 의 orderBy 와 order 는 같은 순서여야 하고, 같은 값이 없도록 id 로 끝나야 한다.
+     */
+    public <T> List<T> fetchOrdered(Collection<Shard> shards, Function<JPAQueryFactory, JPAQuery<T>> query,
+                                    Comparator<? super T> order, long offset, long limit) {
+        long perShard = limit > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + limit;
+        List<List<T>> sorted = each(shards, queryFactory -> query.apply(queryFactory)
+                .offset(0)
+                .limit(perShard)
+                .fetch());
+        return merge(sorted, order, offset, limit);
+    }
+
+    /**
+     * 샤드 count 의 합
+     */
+    public long count(Collection<Shard> shards, Function<JPAQueryFactory, JPAQuery<Long>> query) {
+        long total = 0;
+        for (Long count : each(shards, queryFactory -> query.apply(queryFactory).fetchOne())) {
+            total += count != null ? count : 0;
+        }
+        return total;
+    }
+
+    /**
+     * 샤드별 부분 집계를 combine 한다.
+     */
+    public <A extends PartialAggregate<A>> A aggregate(Collection<Shard> shards, A empty,
+                                                       Function<JPAQueryFactory, A> query) {
+        A result = empty;
+        for (A partial : each(shards, query)) {
+            result = result.combine(partial);
+        }
+        return result;
+    }
+
+    /**
+     * 정렬된 목록들을 k-way 병합해서 offset 만큼 건너뛰고 limit 개를 꺼낸다.
+     */
+    static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, long offset, long limit) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sorted.size()),
+                (a, b) -> order.compare(a.value, b.value));
+        for (List<T> rows : sorted) {
+            Iterator<T> iterator = rows.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+        List<T> page = new ArrayList<>();
+        long skipped = 0;
+        while (!heads.isEmpty() && page.size() < limit) {
+            Head<T> head = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(head.value);
+            }
+            if (head.rest.hasNext()) {
+                heads.add(new Head<>(head.rest.next(), head.rest));
+            }
+        }
+        return page;
+    }
+
+    private static class Head<T> {
+
+        final T value;
+        final Iterator<T> rest;
+
+        Head(T value, Iterator<T> rest) {
+            this.value = value;
+            this.rest = rest;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.study.querydsl.sharding;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 기본 DB 의 엔티티 시퀀스(member_seq, team_seq)에서 id 를 받는다.
+ * pooled optimizer 가 allocationSize 만큼 메모리에서 나눠 주므로 DB 는 50 개마다 한 번 읽는다.
+ */
+public class SequenceShardIdAllocator implements ShardIdAllocator {
+
+    private final SessionFactoryImplementor sessionFactory;
+
+    public SequenceShardIdAllocator(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    @Override
+    public long next(Class<?> entityType) {
+        IdentifierGenerator generator = sessionFactory.getMetamodel().entityPersister(entityType).getIdentifierGenerator();
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return ((Number) generator.generate((SharedSessionContractImplementor) session, null)).longValue();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.study.querydsl.sharding;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cache.internal.NoCachingRegionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 회원/팀 테이블을 가진 DB 하나, 자기 EntityManagerFactory 로 로컬 트랜잭션 하나씩 실행한다.
+ * 스프링 트랜잭션(@Transactional)과는 엮이지 않고, 기본 DB 의 엔티티 리스너(팀 통계, 스냅샷 등)도 돌지 않는다.
+ */
+public class Shard implements AutoCloseable {
+
+    private static final List<String> MANAGED_TYPES = Arrays.asList(Member.class.getName(), Team.class.getName());
+
+    private final int index;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private Shard(int index, EntityManagerFactory entityManagerFactory) {
+        this.index = index;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * jpaProperties 에 없으면 스프링 부트와 같은 이름 규칙(member_name 등)을 쓴다.
+     * 2차 캐시와 쿼리 캐시는 리전 팩토리까지 끈다. jcache 리전 팩토리를 만들면 기본 DB 와 같은 Caffeine CacheManager 를
+     * 얻어 쓰고, 샤드를 닫을 때 그 CacheManager 까지 닫아 버린다.
+     */
+    public static Shard create(int index, DataSource dataSource, Map<String, Object> jpaProperties) {
+        Map<String, Object> properties = new HashMap<>(jpaProperties);
+        properties.putIfAbsent("hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName());
+        properties.putIfAbsent("hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName());
+        properties.put("hibernate.cache.use_second_level_cache", false);
+        properties.put("hibernate.cache.use_query_cache", false);
+        properties.put("hibernate.cache.region.factory_class", NoCachingRegionFactory.class.getName());
+        properties.remove(ConfigSettings.CACHE_MANAGER);
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setPersistenceUnitName("shard-" + index);
+        factory.setDataSource(dataSource);
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setPackagesToScan(Member.class.getPackage().getName());
+        factory.setPersistenceUnitPostProcessors(unit -> unit.getManagedClassNames().retainAll(MANAGED_TYPES));
+        factory.setJpaPropertyMap(properties);
+        factory.afterPropertiesSet();
+        return new Shard(index, factory.getObject());
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * 읽기 전용 트랜잭션, 읽은 엔티티는 변경 감지하지 않는다.
+     */
+    public <R> R read(Function<JPAQueryFactory, R> query) {
+        return inTransaction(true, em -> query.apply(new JPAQueryFactory(em)));
+    }
+
+    public <R> R write(Function<EntityManager, R> work) {
+        return inTransaction(false, work);
+    }
+
+    private <R> R inTransaction(boolean readOnly, Function<EntityManager, R> work) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            if (readOnly) {
+                Session session = em.unwrap(Session.class);
+                session.setDefaultReadOnly(true);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+            }
+            EntityTransaction transaction = em.getTransaction();
+            transaction.begin();
+            try {
+                R result = work.apply(em);
+                transaction.commit();
+                return result;
+            } catch (RuntimeException | Error e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        entityManagerFactory.close();
+    }
+
+    @Override
+    public String toString() {
+        return "shard-" + index;
+    }
+}
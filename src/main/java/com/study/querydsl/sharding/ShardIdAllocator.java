@@ -0,0 +1,10 @@
+package com.study.querydsl.sharding;
+
+/**
+ * 샤드에 넣을 엔티티의 id 를 정한다. 샤드끼리 id 가 겹치지 않아야 하므로 샤드의 시퀀스는 쓰지 않는다.
+ */
+@FunctionalInterface
+public interface ShardIdAllocator {
+
+    long next(Class<?> entityType);
+}
@@ -0,0 +1,218 @@
+package com.study.querydsl.sharding;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.AgeStatisticsDto;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberSearchSort;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.support.GroupedAggregate;
+import org.hibernate.ReplicationMode;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 회원을 팀 id 로 샤드에 나눠 둔다. 팀은 teamId % 샤드 수 번째 샤드에, 회원은 자기 팀과 같은 샤드에 있다.
+ * (팀이 없는 회원은 memberId 로 정한다)
+ * - 팀 하나의 회원 조회는 그 팀의 샤드 하나로만 간다. 팀과 회원이 같이 있으므로 조인도 샤드 안에서 끝난다.
+ * - 팀을 정하지 않은 검색, count, 집계는 모든 샤드에 동시에 보내고 합친다. (ScatterGather)
+ * id 는 샤드 밖(ShardIdAllocator)에서 받아서 샤드끼리 겹치지 않는다.
+ * 회원을 다른 샤드의 팀으로 옮기는 것은 두 샤드에 걸친 트랜잭션이 필요해서 지원하지 않는다.
+ */
+public class ShardedMemberRepository {
+
+    private final List<Shard> shards;
+    private final ShardIdAllocator ids;
+    private final ScatterGather scatterGather;
+
+    public ShardedMemberRepository(List<Shard> shards, ShardIdAllocator ids, ScatterGather scatterGather) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("at least one shard is required");
+        }
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.ids = ids;
+        this.scatterGather = scatterGather;
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public Shard shardOfTeam(long teamId) {
+        return shards.get((int) Math.floorMod(teamId, (long) shards.size()));
+    }
+
+    private Shard shardOf(Long teamId, long memberId) {
+        return shardOfTeam(teamId != null ? teamId : memberId);
+    }
+
+    /**
+     * 돌려준 엔티티는 준영속 상태다.
+     */
+    public Team saveTeam(String name) {
+        long id = ids.next(Team.class);
+        Team saved = new Team(name);
+        return shardOfTeam(id).write(em -> insert(em, saved, id));
+    }
+
+    /**
+     * 팀은 회원과 같은 샤드에 있어야 하므로 먼저 saveTeam 으로 저장되어 있어야 한다. (없으면 FK 위반)
+     */
+    public Member saveMember(String memberName, int age, Long teamId) {
+        long id = ids.next(Member.class);
+        return shardOf(teamId, id).write(em -> insert(em,
+                new Member(memberName, age, teamId != null ? em.getReference(Team.class, teamId) : null), id));
+    }
+
+    /**
+     * 시퀀스로 id 를 만들지 않고 받은 id 그대로 insert 한다.
+     */
+    private static <T> T insert(EntityManager em, T entity, long id) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        session.getEntityPersister(null, entity).setIdentifier(entity, id, session);
+        session.replicate(entity, ReplicationMode.EXCEPTION);
+        return entity;
+    }
+
+    /**
+     * 팀 하나의 회원 검색, 그 팀의 샤드에서만 실행한다.
+     */
+    public List<MemberTeamDto> searchInTeam(long teamId, MemberSearchCondition condition) {
+        return shardOfTeam(teamId).read(queryFactory -> searchQuery(queryFactory, condition)
+                .where(member.team.id.eq(teamId))
+                .orderBy(orderBy(sortOf(condition)))
+                .fetch());
+    }
+
+    /**
+     * 전체 샤드 검색 결과를 검색 조건의 정렬로 합친 [offset, offset + limit) 구간
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition, long offset, long limit) {
+        MemberSearchSort sort = sortOf(condition);
+        return scatterGather.fetchOrdered(shards,
+                queryFactory -> searchQuery(queryFactory, condition).orderBy(orderBy(sort)),
+                comparator(sort), offset, limit);
+    }
+
+    public long count(MemberSearchCondition condition) {
+        return scatterGather.count(shards, queryFactory -> {
+            JPAQuery<Long> query = queryFactory
+                    .select(member.count())
+                    .from(member);
+            if (hasText(condition.getTeamName())) {
+                query.join(member.team, team);
+            }
+            return query.where(where(condition));
+        });
+    }
+
+    public AgeStatisticsDto ageStatistics(MemberSearchCondition condition) {
+        return scatterGather.aggregate(shards, AgeStatisticsDto.EMPTY, queryFactory -> {
+            Tuple tuple = queryFactory
+                    .select(member.count(), member.age.sum(), member.age.min(), member.age.max())
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(where(condition))
+                    .fetchOne();
+            return tuple == null ? AgeStatisticsDto.EMPTY : AgeStatisticsDto.of(tuple.get(0, Number.class),
+                    tuple.get(1, Number.class), tuple.get(2, Integer.class), tuple.get(3, Integer.class));
+        });
+    }
+
+    /**
+     * 팀별 나이 집계 (팀이 없는 회원은 제외), 팀은 샤드 하나에만 있으므로 샤드 결과의 키는 겹치지 않는다.
+     */
+    public Map<Long, AgeStatisticsDto> ageStatisticsByTeam(MemberSearchCondition condition) {
+        return scatterGather.aggregate(shards, GroupedAggregate.<Long, AgeStatisticsDto>empty(), queryFactory -> {
+            List<Tuple> rows = queryFactory
+                    .select(team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                    .from(member)
+                    .join(member.team, team)
+                    .where(where(condition))
+                    .groupBy(team.id)
+                    .fetch();
+            Map<Long, AgeStatisticsDto> groups = new HashMap<>();
+            for (Tuple tuple : rows) {
+                groups.put(tuple.get(team.id), AgeStatisticsDto.of(tuple.get(1, Number.class),
+                        tuple.get(2, Number.class), tuple.get(3, Integer.class), tuple.get(4, Integer.class)));
+            }
+            return GroupedAggregate.of(groups);
+        }).asMap();
+    }
+
+    private static JPAQuery<MemberTeamDto> searchQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.memberName,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where(condition));
+    }
+
+    private static Predicate[] where(MemberSearchCondition condition) {
+        return new Predicate[]{
+                hasText(condition.getMemberName()) ? member.memberName.eq(condition.getMemberName()) : null,
+                hasText(condition.getTeamName()) ? team.name.eq(condition.getTeamName()) : null,
+                condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+                condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null
+        };
+    }
+
+    private static MemberSearchSort sortOf(MemberSearchCondition condition) {
+        return condition.getSort() != null ? condition.getSort() : MemberSearchSort.ID;
+    }
+
+    private static OrderSpecifier<?>[] orderBy(MemberSearchSort sort) {
+        switch (sort) {
+            case MEMBER_NAME:
+                return new OrderSpecifier<?>[]{member.memberName.asc(), member.id.asc()};
+            case AGE:
+                return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+            case AGE_DESC:
+                return new OrderSpecifier<?>[]{member.age.desc(), member.id.desc()};
+            default:
+                return new OrderSpecifier<?>[]{member.id.asc()};
+        }
+    }
+
+    /**
+     * orderBy 와 같은 순서, 샤드 결과를 병합할 때 쓴다.
+     * 이름은 null 을 앞에 두고 (MariaDB, H2 의 asc 순서) 코드값으로 비교하므로
+     * MEMBER_NAME 정렬은 샤드의 memberName 컬럼이 바이너리 정렬(utf8mb4_bin 등)이어야 샤드 순서와 맞는다.
+     */
+    static Comparator<MemberTeamDto> comparator(MemberSearchSort sort) {
+        Comparator<MemberTeamDto> byId = Comparator.comparing(MemberTeamDto::getMemberId);
+        switch (sort) {
+            case MEMBER_NAME:
+                return Comparator.comparing(MemberTeamDto::getMemberName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                        .thenComparing(byId);
+            case AGE:
+                return Comparator.comparingInt(MemberTeamDto::getAge).thenComparing(byId);
+            case AGE_DESC:
+                return Comparator.comparingInt(MemberTeamDto::getAge).thenComparing(byId).reversed();
+            default:
+                return byId;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.study.querydsl.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * querydsl.sharding.enabled=true 일 때 querydsl.sharding.shards 마다 풀과 EntityManagerFactory 를 만들고
+ * ShardedMemberRepository 를 등록한다. 샤드 풀은 빈으로 등록하지 않는다. (기본 DataSource 자리를 차지하지 않게)
+ * JPA 설정은 spring.jpa 를 그대로 쓰고 ddl-auto 만 querydsl.sharding.ddl-auto 로 정한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "querydsl.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig implements DisposableBean {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final List<Shard> shards = new ArrayList<>();
+    private ExecutorService executor;
+
+    @Bean
+    public ShardedMemberRepository shardedMemberRepository(ShardingProperties sharding, JpaProperties jpaProperties,
+                                                           HibernateProperties hibernateProperties,
+                                                           EntityManagerFactory entityManagerFactory) {
+        Map<String, Object> properties = hibernateProperties.determineHibernateProperties(
+                jpaProperties.getProperties(), new HibernateSettings().ddlAuto(sharding::getDdlAuto));
+        for (int i = 0; i < sharding.getShards().size(); i++) {
+            ShardingProperties.ShardSpec spec = sharding.getShards().get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + i);
+            pool.setJdbcUrl(spec.getUrl());
+            pool.setUsername(spec.getUsername());
+            pool.setPassword(spec.getPassword());
+            pool.setMaximumPoolSize(spec.getMaximumPoolSize());
+            pools.add(pool);
+            shards.add(Shard.create(i, pool, properties));
+        }
+
+        int parallelism = sharding.getParallelism() > 0 ? sharding.getParallelism() : Math.max(1, shards.size());
+        executor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("shard-query-"));
+        return new ShardedMemberRepository(shards, new SequenceShardIdAllocator(entityManagerFactory),
+                new ScatterGather(executor));
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        shards.forEach(Shard::close);
+        pools.forEach(HikariDataSource::close);
+    }
+}
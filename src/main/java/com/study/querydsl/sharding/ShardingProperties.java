@@ -0,0 +1,46 @@
+package com.study.querydsl.sharding;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.sharding")
+public class ShardingProperties {
+
+    /**
+     * 회원/팀을 shards 에 나눠 두는 ShardedMemberRepository 를 등록할지 여부
+     */
+    private boolean enabled = false;
+
+    /**
+     * 샤드마다 스키마를 어떻게 할지 (spring.jpa.hibernate.ddl-auto 와 같은 값)
+     */
+    private String ddlAuto = "none";
+
+    /**
+     * 여러 샤드에 동시에 보내는 쿼리 수, 0 이면 샤드 수
+     */
+    private int parallelism = 0;
+
+    /**
+     * 순서가 샤드 번호다. 팀은 teamId % 샤드 수 번째 샤드에 있으므로 샤드 수를 바꾸려면 데이터를 옮겨야 한다.
+     */
+    private List<ShardSpec> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class ShardSpec {
+
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
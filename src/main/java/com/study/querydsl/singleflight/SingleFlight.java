@@ -0,0 +1,107 @@
+package com.study.querydsl.singleflight;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 같은 키로 동시에 들어온 실행을 하나로 합친다.
+ * 먼저 온 호출(leader)만 실행하고, 실행 중에 온 호출(follower)은 그 결과를 받는다.
+ * 끝나면 키를 지우므로 결과를 캐시하지는 않는다. (끝난 뒤에 온 호출은 다시 실행한다)
+ * follower 는 wait-timeout 이 지나거나 leader 가 실패하면 직접 실행한다. (leader 의 실패가 그 호출만의 문제일 수 있다)
+ */
+@Component
+public class SingleFlight {
+
+    private final SingleFlightProperties properties;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Counter executions;
+    private final Counter coalesced;
+    private final Counter timeouts;
+    private final Counter leaderFailures;
+
+    public SingleFlight(SingleFlightProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        Gauge.builder("querydsl.single-flight.in-flight", inFlight, Map::size)
+                .description("실행 중인 서로 다른 쿼리 수")
+                .register(registry);
+        Gauge.builder("querydsl.single-flight.waiting", waiting, AtomicInteger::get)
+                .description("다른 호출의 결과를 기다리는 호출 수")
+                .register(registry);
+        this.executions = Counter.builder("querydsl.single-flight.executions")
+                .description("leader 로 실행한 수")
+                .register(registry);
+        this.coalesced = Counter.builder("querydsl.single-flight.coalesced")
+                .description("실행하지 않고 leader 의 결과를 받은 수")
+                .register(registry);
+        this.timeouts = Counter.builder("querydsl.single-flight.fallbacks")
+                .description("기다리다 직접 실행한 수")
+                .tag("reason", "timeout")
+                .register(registry);
+        this.leaderFailures = Counter.builder("querydsl.single-flight.fallbacks")
+                .description("기다리다 직접 실행한 수")
+                .tag("reason", "leader-failure")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    /**
+     * share 는 호출마다 결과를 나눠 줄 때 쓴다. (리스트 복사 등) leader 도 복사본을 받으므로 원본은 아무도 고치지 않는다.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R execute(Object key, Supplier<R> execution, UnaryOperator<R> share) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader == null) {
+            executions.increment();
+            try {
+                R result = execution.get();
+                flight.complete(result);
+                return share.apply(result);
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+
+        waiting.incrementAndGet();
+        try {
+            R result = (R) leader.get(properties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            coalesced.increment();
+            return share.apply(result);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+        } catch (ExecutionException e) {
+            leaderFailures.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for an identical query", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        return execution.get();
+    }
+}
@@ -0,0 +1,163 @@
+package com.study.querydsl.singleflight;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.study.querydsl.metrics.MeteredJPAQuery;
+import com.study.querydsl.metrics.QueryMetrics;
+import com.study.querydsl.repository.support.QueryKey;
+import com.study.querydsl.routing.RoutingContext;
+import lombok.Value;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * coalesced() 로 고른 쿼리만 같은 쿼리(QueryKey)가 실행 중이면 그 결과를 받는다. fetch/fetchOne(fetchFirst)/fetchCount 만 합친다.
+ * 먼저 시작한 실행의 결과를 받으므로 방금 커밋한 변경이 안 보일 수 있다. 조금 늦은 결과여도 되는 조회에만 쓴다.
+ * 고른 쿼리여도 다음은 합치지 않고 그대로 실행한다.
+ * - 엔티티를 돌려주는 쿼리: 엔티티는 호출한 쪽 영속성 컨텍스트에 올라가야 한다.
+ * - 읽기 전용이 아닌 트랜잭션 안: 자기가 아직 커밋하지 않은 변경이 보여야 한다.
+ * - 락, 힌트가 있는 쿼리
+ * 복제본으로 갈 수 있는 호출(readOnly 트랜잭션, primary 고정 아님)과 primary 로 가는 호출은 서로 합치지 않는다.
+ * coalesced(partition) 으로 고르면 partition 이 같은 호출끼리만 합친다. (예: 프로젝션 캐시의 generation)
+ * 결과 리스트는 호출마다 복사하지만 DTO/Tuple 은 같은 객체를 나눠 가지므로 고치지 않는다.
+ */
+public class SingleFlightJPAQuery<T> extends MeteredJPAQuery<T> {
+
+    private final SingleFlight singleFlight;
+    private final QueryMetrics metrics;
+    private boolean coalesced;
+    private Object partition;
+
+    public SingleFlightJPAQuery(EntityManager em, QueryMetrics metrics, SingleFlight singleFlight) {
+        super(em, metrics);
+        this.metrics = metrics;
+        this.singleFlight = singleFlight;
+    }
+
+    public SingleFlightJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata,
+                                QueryMetrics metrics, SingleFlight singleFlight) {
+        super(em, templates, metadata, metrics);
+        this.metrics = metrics;
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * JPAQueryFactory 가 돌려준 쿼리에 쓴다. SingleFlightJPAQuery 가 아니면(합치기를 쓰지 않는 설정) 그대로 둔다.
+     */
+    public static <T, Q extends JPAQuery<T>> Q coalesced(Q query) {
+        if (query instanceof SingleFlightJPAQuery) {
+            ((SingleFlightJPAQuery<?>) query).coalesced();
+        }
+        return query;
+    }
+
+    /**
+     * partition 이 같은 호출끼리만 합친다.
+     */
+    public static <T, Q extends JPAQuery<T>> Q coalesced(Q query, Object partition) {
+        if (query instanceof SingleFlightJPAQuery) {
+            ((SingleFlightJPAQuery<?>) query).coalesced(partition);
+        }
+        return query;
+    }
+
+    /**
+     * 같은 쿼리가 실행 중이면 그 결과를 받는다.
+     */
+    public SingleFlightJPAQuery<T> coalesced() {
+        this.coalesced = true;
+        this.partition = null;
+        return this;
+    }
+
+    public SingleFlightJPAQuery<T> coalesced(Object partition) {
+        this.coalesced = true;
+        this.partition = partition;
+        return this;
+    }
+
+    @Override
+    public List<T> fetch() {
+        return coalesce("fetch", true, super::fetch, ArrayList::new);
+    }
+
+    @Override
+    public T fetchOne() {
+        return coalesce("fetchOne", true, super::fetchOne, UnaryOperator.identity());
+    }
+
+    @Override
+    public long fetchCount() {
+        return coalesce("fetchCount", false, super::fetchCount, UnaryOperator.identity());
+    }
+
+    @Override
+    public SingleFlightJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        SingleFlightJPAQuery<T> q = new SingleFlightJPAQuery<>(entityManager, templates, getMetadata().clone(),
+                metrics, singleFlight);
+        q.clone(this);
+        q.coalesced = coalesced;
+        q.partition = partition;
+        return q;
+    }
+
+    /**
+     * fetchCount 는 행을 돌려주지 않으므로 selectFrom(엔티티)이어도 합친다.
+     */
+    private <R> R coalesce(String operation, boolean returnsRows, Supplier<R> execution, UnaryOperator<R> share) {
+        if (!coalescable(returnsRows)) {
+            return execution.get();
+        }
+        Flight key = new Flight(operation, replicaEligible(), partition, QueryKey.of(getMetadata()));
+        return singleFlight.execute(key, execution, share);
+    }
+
+    private boolean coalescable(boolean returnsRows) {
+        if (!coalesced || !singleFlight.isEnabled() || lockMode != null || !hints.isEmpty()) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        Expression<?> projection = getMetadata().getProjection();
+        return !returnsRows || projection != null && !selectsEntity(projection);
+    }
+
+    private static boolean selectsEntity(Expression<?> expression) {
+        if (expression instanceof EntityPath) {
+            return true;
+        }
+        if (expression instanceof FactoryExpression) {
+            for (Expression<?> arg : ((FactoryExpression<?>) expression).getArgs()) {
+                if (selectsEntity(arg)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean replicaEligible() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !RoutingContext.isPinnedToPrimary(System.currentTimeMillis());
+    }
+
+    @Value
+    private static class Flight {
+
+        String operation;
+        boolean replica;
+        Object partition;
+        QueryKey query;
+    }
+}
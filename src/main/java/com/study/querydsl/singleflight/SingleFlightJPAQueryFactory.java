@@ -0,0 +1,30 @@
+package com.study.querydsl.singleflight;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.study.querydsl.metrics.MeteredJPAQueryFactory;
+import com.study.querydsl.metrics.QueryMetrics;
+
+import javax.persistence.EntityManager;
+
+/**
+ * MeteredJPAQueryFactory 에 같은 쿼리의 동시 실행 합치기(SingleFlightJPAQuery)를 더한다. 합치기는 coalesced() 로 고른 쿼리만 한다.
+ * 합쳐진 호출은 실행하지 않으므로 쿼리 메트릭에는 DB 까지 간 실행만 남는다.
+ */
+public class SingleFlightJPAQueryFactory extends MeteredJPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final QueryMetrics metrics;
+    private final SingleFlight singleFlight;
+
+    public SingleFlightJPAQueryFactory(EntityManager entityManager, QueryMetrics metrics, SingleFlight singleFlight) {
+        super(entityManager, metrics);
+        this.entityManager = entityManager;
+        this.metrics = metrics;
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new SingleFlightJPAQuery<Void>(entityManager, metrics, singleFlight);
+    }
+}
@@ -0,0 +1,25 @@
+package com.study.querydsl.singleflight;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.single-flight")
+public class SingleFlightProperties {
+
+    /**
+     * false 면 같은 쿼리가 동시에 와도 각자 실행한다.
+     */
+    private boolean enabled = true;
+
+    /**
+     * 먼저 실행 중인 쿼리를 기다리는 최대 시간, 넘으면 기다리던 쪽이 직접 실행한다.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(2);
+}
@@ -0,0 +1,177 @@
+package com.study.querydsl.snapshot;
+
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * 정렬된 문자열 사전, 값 대신 사전 안의 위치(코드)를 저장한다.
+ * 정렬되어 있으므로 범위/접두사 조건은 코드 구간 하나가 된다.
+ */
+final class Dictionary {
+
+    static final Dictionary EMPTY = new Dictionary(new String[0]);
+
+    private final String[] values;
+
+    private Dictionary(String[] values) {
+        this.values = values;
+    }
+
+    static Dictionary of(Collection<String> values) {
+        TreeSet<String> sorted = new TreeSet<>();
+        for (String value : values) {
+            if (value != null) {
+                sorted.add(value);
+            }
+        }
+        return new Dictionary(sorted.toArray(new String[0]));
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    String value(int code) {
+        return code < 0 ? null : values[code];
+    }
+
+    /**
+     * null 이면 -1, 사전에 없으면 -2
+     */
+    int code(String value) {
+        if (value == null) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(values, value);
+        return i >= 0 ? i : -2;
+    }
+
+    boolean containsAll(Collection<String> more) {
+        for (String value : more) {
+            if (value != null && Arrays.binarySearch(values, value) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Dictionary merge(Collection<String> more) {
+        TreeSet<String> sorted = new TreeSet<>(Arrays.asList(values));
+        for (String value : more) {
+            if (value != null) {
+                sorted.add(value);
+            }
+        }
+        return new Dictionary(sorted.toArray(new String[0]));
+    }
+
+    /**
+     * 이 사전의 코드 → next 사전의 코드 (next 는 이 사전의 값을 모두 가져야 한다)
+     */
+    int[] remapTo(Dictionary next) {
+        int[] mapping = new int[values.length];
+        for (int code = 0; code < values.length; code++) {
+            mapping[code] = next.code(values[code]);
+        }
+        return mapping;
+    }
+
+    /**
+     * 조건을 만족하는 코드 집합
+     */
+    BitSet match(Operator op, Object[] constants) {
+        BitSet codes = new BitSet(values.length);
+        if (op == Ops.EQ) {
+            set(codes, (String) constants[0]);
+        } else if (op == Ops.NE) {
+            codes.set(0, values.length);
+            int code = code((String) constants[0]);
+            if (code >= 0) {
+                codes.clear(code);
+            }
+        } else if (op == Ops.IN || op == Ops.NOT_IN) {
+            for (Object constant : (Collection<?>) constants[0]) {
+                set(codes, (String) constant);
+            }
+            if (op == Ops.NOT_IN) {
+                codes.flip(0, values.length);
+            }
+        } else if (op == Ops.GOE) {
+            codes.set(lowerBound((String) constants[0]), values.length);
+        } else if (op == Ops.GT) {
+            codes.set(upperBound((String) constants[0]), values.length);
+        } else if (op == Ops.LOE) {
+            codes.set(0, upperBound((String) constants[0]));
+        } else if (op == Ops.LT) {
+            codes.set(0, lowerBound((String) constants[0]));
+        } else if (op == Ops.BETWEEN) {
+            int from = lowerBound((String) constants[0]);
+            int to = upperBound((String) constants[1]);
+            if (from < to) {
+                codes.set(from, to);
+            }
+        } else if (op == Ops.STARTS_WITH) {
+            setPrefix(codes, (String) constants[0]);
+        } else if (op == Ops.LIKE) {
+            String pattern = (String) constants[0];
+            String prefix = pattern.endsWith("%") ? pattern.substring(0, pattern.length() - 1) : pattern;
+            if (prefix.indexOf('%') >= 0 || prefix.indexOf('_') >= 0) {
+                throw new IllegalArgumentException("only prefix like is supported: " + pattern);
+            }
+            if (prefix.length() == pattern.length()) {
+                set(codes, prefix);
+            } else {
+                setPrefix(codes, prefix);
+            }
+        } else {
+            throw new IllegalArgumentException("unsupported string operator: " + op);
+        }
+        return codes;
+    }
+
+    private void set(BitSet codes, String value) {
+        int code = code(value);
+        if (code >= 0) {
+            codes.set(code);
+        }
+    }
+
+    /**
+     * prefix 로 시작하는 값은 사전에서 연속되어 있다. [prefix 이상인 첫 값, prefix 로 시작하지 않는 첫 값)
+     */
+    private void setPrefix(BitSet codes, String prefix) {
+        int from = lowerBound(prefix);
+        int low = from;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        codes.set(from, low);
+    }
+
+    /**
+     * value 이상인 첫 코드
+     */
+    private int lowerBound(String value) {
+        int i = Arrays.binarySearch(values, value);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /**
+     * value 보다 큰 첫 코드
+     */
+    private int upperBound(String value) {
+        int i = Arrays.binarySearch(values, value);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+}
@@ -0,0 +1,12 @@
+package com.study.querydsl.snapshot;
+
+import lombok.Value;
+
+@Value
+public class MemberRow {
+
+    Long id;
+    String memberName;
+    int age;
+    Long teamId;
+}
@@ -0,0 +1,415 @@
+package com.study.querydsl.snapshot;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.Predicate;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 읽기 전용 스냅샷 (컬럼별 배열)
+ * - 행은 id 오름차순, 나이는 int[], 팀은 id 를 long[] 로(0 = 팀 없음), 이름은 정렬된 사전의 코드를 int[] 로(-1 = null)
+ * - 팀 이름은 팀 id → 이름 코드로 따로 두므로 팀 이름이 바뀌어도 회원 행은 그대로다.
+ * - QMember 로 만든 Predicate 를 그대로 평가한다. (eq, ne, in, notIn, between, goe, gt, loe, lt,
+ *   startsWith, 접두사 like, isNull, isNotNull, and, or, not / member.id, memberName, age, team, team.id, team.name)
+ *   null 은 SQL 과 같이 3값 논리로 처리한다. 문자열 비교는 DB 콜레이션이 아니라 String 순서(대소문자 구분)다.
+ * 만든 뒤에는 바뀌지 않는다. 변경은 with() 가 새 스냅샷을 만든다.
+ */
+public final class MemberSnapshot {
+
+    private static final int NO_TEAM = 0;
+
+    private final long[] ids;
+    private final int[] ages;
+    private final int[] nameCodes;
+    private final long[] teamIds;
+    private final Dictionary names;
+    private final long[] teamDimensionIds;
+    private final int[] teamNameCodes;
+    private final Dictionary teamNames;
+    private final Instant builtAt = Instant.now();
+
+    private MemberSnapshot(long[] ids, int[] ages, int[] nameCodes, long[] teamIds, Dictionary names,
+                           long[] teamDimensionIds, int[] teamNameCodes, Dictionary teamNames) {
+        this.ids = ids;
+        this.ages = ages;
+        this.nameCodes = nameCodes;
+        this.teamIds = teamIds;
+        this.names = names;
+        this.teamDimensionIds = teamDimensionIds;
+        this.teamNameCodes = teamNameCodes;
+        this.teamNames = teamNames;
+    }
+
+    public static MemberSnapshot of(Collection<MemberRow> members, Collection<TeamRow> teams) {
+        List<MemberRow> sorted = new ArrayList<>(members);
+        sorted.sort(Comparator.comparing(MemberRow::getId));
+        Dictionary names = Dictionary.of(sorted.stream().map(MemberRow::getMemberName).collect(Collectors.toList()));
+        int size = sorted.size();
+        long[] ids = new long[size];
+        int[] ages = new int[size];
+        int[] nameCodes = new int[size];
+        long[] teamIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            MemberRow row = sorted.get(i);
+            ids[i] = row.getId();
+            ages[i] = row.getAge();
+            nameCodes[i] = names.code(row.getMemberName());
+            teamIds[i] = row.getTeamId() != null ? row.getTeamId() : NO_TEAM;
+        }
+        return withTeams(ids, ages, nameCodes, teamIds, names, teams);
+    }
+
+    private static MemberSnapshot withTeams(long[] ids, int[] ages, int[] nameCodes, long[] teamIds,
+                                            Dictionary names, Collection<TeamRow> teams) {
+        List<TeamRow> sorted = new ArrayList<>(teams);
+        sorted.sort(Comparator.comparing(TeamRow::getId));
+        Dictionary teamNames = Dictionary.of(sorted.stream().map(TeamRow::getName).collect(Collectors.toList()));
+        long[] teamDimensionIds = new long[sorted.size()];
+        int[] teamNameCodes = new int[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            teamDimensionIds[i] = sorted.get(i).getId();
+            teamNameCodes[i] = teamNames.code(sorted.get(i).getName());
+        }
+        return new MemberSnapshot(ids, ages, nameCodes, teamIds, names, teamDimensionIds, teamNameCodes, teamNames);
+    }
+
+    /**
+     * 바뀐 행만 반영한 새 스냅샷을 만든다. 기존 배열을 id 순서로 한 번 훑으면서 합친다.
+     * 새 이름이 있을 때만 사전을 다시 만들고, 쓰이지 않게 된 이름은 전체 다시 읽기 전까지 사전에 남는다.
+     */
+    public MemberSnapshot with(Collection<MemberRow> changedMembers, Collection<Long> deletedMembers,
+                               Collection<TeamRow> changedTeams, Collection<Long> deletedTeams) {
+        TreeMap<Long, MemberRow> upserts = new TreeMap<>();
+        changedMembers.forEach(row -> upserts.put(row.getId(), row));
+        long[] deleted = deletedMembers.stream().mapToLong(Long::longValue).sorted().toArray();
+
+        List<String> newNames = changedMembers.stream().map(MemberRow::getMemberName).collect(Collectors.toList());
+        Dictionary nextNames = names.containsAll(newNames) ? names : names.merge(newNames);
+        int[] remap = nextNames == names ? null : names.remapTo(nextNames);
+
+        int capacity = ids.length + upserts.size();
+        long[] nextIds = new long[capacity];
+        int[] nextAges = new int[capacity];
+        int[] nextNameCodes = new int[capacity];
+        long[] nextTeamIds = new long[capacity];
+        int size = 0;
+        int i = 0;
+        Map.Entry<Long, MemberRow> next = upserts.pollFirstEntry();
+        while (i < ids.length || next != null) {
+            if (next == null || (i < ids.length && ids[i] < next.getKey())) {
+                if (deleted.length == 0 || Arrays.binarySearch(deleted, ids[i]) < 0) {
+                    nextIds[size] = ids[i];
+                    nextAges[size] = ages[i];
+                    nextNameCodes[size] = remap == null || nameCodes[i] < 0 ? nameCodes[i] : remap[nameCodes[i]];
+                    nextTeamIds[size] = teamIds[i];
+                    size++;
+                }
+                i++;
+            } else {
+                if (i < ids.length && ids[i] == next.getKey()) {
+                    i++;
+                }
+                MemberRow row = next.getValue();
+                nextIds[size] = row.getId();
+                nextAges[size] = row.getAge();
+                nextNameCodes[size] = nextNames.code(row.getMemberName());
+                nextTeamIds[size] = row.getTeamId() != null ? row.getTeamId() : NO_TEAM;
+                size++;
+                next = upserts.pollFirstEntry();
+            }
+        }
+
+        List<TeamRow> teams = new ArrayList<>();
+        if (changedTeams.isEmpty() && deletedTeams.isEmpty()) {
+            return new MemberSnapshot(Arrays.copyOf(nextIds, size), Arrays.copyOf(nextAges, size),
+                    Arrays.copyOf(nextNameCodes, size), Arrays.copyOf(nextTeamIds, size), nextNames,
+                    teamDimensionIds, teamNameCodes, teamNames);
+        }
+        TreeMap<Long, TeamRow> teamRows = new TreeMap<>();
+        for (int t = 0; t < teamDimensionIds.length; t++) {
+            teamRows.put(teamDimensionIds[t], new TeamRow(teamDimensionIds[t], teamNames.value(teamNameCodes[t])));
+        }
+        deletedTeams.forEach(teamRows::remove);
+        changedTeams.forEach(row -> teamRows.put(row.getId(), row));
+        teams.addAll(teamRows.values());
+        return withTeams(Arrays.copyOf(nextIds, size), Arrays.copyOf(nextAges, size),
+                Arrays.copyOf(nextNameCodes, size), Arrays.copyOf(nextTeamIds, size), nextNames, teams);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * where 는 Querydsl 과 같이 null 을 건너뛰고 and 로 묶는다.
+     */
+    public List<Long> findIds(Predicate... where) {
+        BitSet rows = select(where);
+        List<Long> result = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            result.add(ids[row]);
+        }
+        return result;
+    }
+
+    public List<MemberTeamDto> findMembers(Predicate... where) {
+        BitSet rows = select(where);
+        List<MemberTeamDto> result = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            long teamId = teamIds[row];
+            result.add(new MemberTeamDto(ids[row], names.value(nameCodes[row]), ages[row],
+                    teamId == NO_TEAM ? null : teamId, teamName(teamId)));
+        }
+        return result;
+    }
+
+    public int count(Predicate... where) {
+        return select(where).cardinality();
+    }
+
+    BitSet select(Predicate... where) {
+        BitSet rows = new BitSet(ids.length);
+        rows.set(0, ids.length);
+        for (Predicate predicate : where) {
+            if (predicate != null) {
+                rows.and(evaluate(predicate).isTrue);
+            }
+        }
+        return rows;
+    }
+
+    private String teamName(long teamId) {
+        int t = teamId == NO_TEAM ? -1 : Arrays.binarySearch(teamDimensionIds, teamId);
+        return t < 0 ? null : teamNames.value(teamNameCodes[t]);
+    }
+
+    private Truth evaluate(Expression<?> expression) {
+        if (expression instanceof BooleanBuilder) {
+            Predicate value = ((BooleanBuilder) expression).getValue();
+            return value == null ? Truth.all(ids.length) : evaluate(value);
+        }
+        if (!(expression instanceof Operation)) {
+            throw new IllegalArgumentException("unsupported expression: " + expression);
+        }
+        Operation<?> operation = (Operation<?>) expression;
+        Operator op = operation.getOperator();
+        if (op == Ops.AND) {
+            return evaluate(operation.getArg(0)).and(evaluate(operation.getArg(1)));
+        } else if (op == Ops.OR) {
+            return evaluate(operation.getArg(0)).or(evaluate(operation.getArg(1)));
+        } else if (op == Ops.NOT) {
+            return evaluate(operation.getArg(0)).not();
+        }
+
+        Column column = column(operation.getArg(0));
+        if (op == Ops.IS_NULL || op == Ops.IS_NOT_NULL) {
+            return isNull(column, op == Ops.IS_NOT_NULL);
+        }
+        Object[] constants = new Object[operation.getArgs().size() - 1];
+        for (int i = 0; i < constants.length; i++) {
+            Expression<?> arg = operation.getArg(i + 1);
+            if (!(arg instanceof Constant)) {
+                throw new IllegalArgumentException("only constants are supported: " + expression);
+            }
+            constants[i] = ((Constant<?>) arg).getConstant();
+            if (column == Column.TEAM_ID) {
+                constants[i] = teamIdOf(constants[i]);
+            }
+        }
+
+        switch (column) {
+            case ID:
+                return matchLongs(ids, NumberMatch.of(op, constants), false);
+            case AGE:
+                return matchAges(NumberMatch.of(op, constants));
+            case TEAM_ID:
+                return matchLongs(teamIds, NumberMatch.of(op, constants), true);
+            case NAME:
+                return matchNames(names.match(op, constants));
+            case TEAM_NAME:
+                return matchLongs(teamIds, NumberMatch.in(teamsNamed(teamNames.match(op, constants))), true);
+            default:
+                throw new IllegalArgumentException("unsupported path: " + operation.getArg(0));
+        }
+    }
+
+    private Truth matchLongs(long[] column, NumberMatch match, boolean nullable) {
+        Truth truth = new Truth(column.length);
+        for (int row = 0; row < column.length; row++) {
+            long value = column[row];
+            if (nullable && value == NO_TEAM) {
+                continue;
+            }
+            (match.test(value) ? truth.isTrue : truth.isFalse).set(row);
+        }
+        return truth;
+    }
+
+    private Truth matchAges(NumberMatch match) {
+        Truth truth = new Truth(ages.length);
+        for (int row = 0; row < ages.length; row++) {
+            (match.test(ages[row]) ? truth.isTrue : truth.isFalse).set(row);
+        }
+        return truth;
+    }
+
+    private Truth matchNames(BitSet codes) {
+        Truth truth = new Truth(nameCodes.length);
+        for (int row = 0; row < nameCodes.length; row++) {
+            int code = nameCodes[row];
+            if (code < 0) {
+                continue;
+            }
+            (codes.get(code) ? truth.isTrue : truth.isFalse).set(row);
+        }
+        return truth;
+    }
+
+    private long[] teamsNamed(BitSet codes) {
+        long[] matched = new long[teamDimensionIds.length];
+        int size = 0;
+        for (int t = 0; t < teamDimensionIds.length; t++) {
+            if (teamNameCodes[t] >= 0 && codes.get(teamNameCodes[t])) {
+                matched[size++] = teamDimensionIds[t];
+            }
+        }
+        return Arrays.copyOf(matched, size);
+    }
+
+    private Truth isNull(Column column, boolean negate) {
+        Truth truth = new Truth(ids.length);
+        for (int row = 0; row < ids.length; row++) {
+            boolean isNull;
+            if (column == Column.NAME) {
+                isNull = nameCodes[row] < 0;
+            } else if (column == Column.TEAM_ID) {
+                isNull = teamIds[row] == NO_TEAM;
+            } else if (column == Column.TEAM_NAME) {
+                isNull = teamName(teamIds[row]) == null;
+            } else {
+                isNull = false;
+            }
+            (isNull != negate ? truth.isTrue : truth.isFalse).set(row);
+        }
+        return truth;
+    }
+
+    private enum Column {
+        ID, NAME, AGE, TEAM_ID, TEAM_NAME
+    }
+
+    /**
+     * member.x 또는 member.team.x (별칭은 상관없다)
+     */
+    private static Column column(Expression<?> expression) {
+        if (expression instanceof Path && ((Path<?>) expression).getRoot().getType() == Member.class) {
+            PathMetadata metadata = ((Path<?>) expression).getMetadata();
+            Path<?> parent = metadata.getParent();
+            if (parent != null && parent.getMetadata().isRoot()) {
+                switch (metadata.getName()) {
+                    case "id":
+                        return Column.ID;
+                    case "memberName":
+                        return Column.NAME;
+                    case "age":
+                        return Column.AGE;
+                    case "team":
+                        return Column.TEAM_ID;
+                    default:
+                        break;
+                }
+            } else if (parent != null && "team".equals(parent.getMetadata().getName())
+                    && parent.getMetadata().getParent() != null
+                    && parent.getMetadata().getParent().getMetadata().isRoot()) {
+                if ("id".equals(metadata.getName())) {
+                    return Column.TEAM_ID;
+                } else if ("name".equals(metadata.getName())) {
+                    return Column.TEAM_NAME;
+                }
+            }
+        }
+        throw new IllegalArgumentException("unsupported path: " + expression);
+    }
+
+    /**
+     * member.team.eq(team), member.team.in(teams) 는 팀 엔티티를 id 로 바꿔서 team.id 조건처럼 평가한다.
+     */
+    private static Object teamIdOf(Object constant) {
+        if (constant instanceof Team) {
+            Long id = ((Team) constant).getId();
+            if (id == null) {
+                throw new IllegalArgumentException("team is not saved: " + constant);
+            }
+            return id;
+        }
+        if (constant instanceof Collection) {
+            return ((Collection<?>) constant).stream()
+                    .map(MemberSnapshot::teamIdOf)
+                    .collect(Collectors.toList());
+        }
+        return constant;
+    }
+
+    /**
+     * 3값 논리: 참인 행과 거짓인 행, 둘 다 아니면 unknown(null)
+     */
+    private static final class Truth {
+
+        private final BitSet isTrue;
+        private final BitSet isFalse;
+
+        private Truth(int size) {
+            this(new BitSet(size), new BitSet(size));
+        }
+
+        private Truth(BitSet isTrue, BitSet isFalse) {
+            this.isTrue = isTrue;
+            this.isFalse = isFalse;
+        }
+
+        static Truth all(int size) {
+            Truth truth = new Truth(size);
+            truth.isTrue.set(0, size);
+            return truth;
+        }
+
+        Truth and(Truth other) {
+            isTrue.and(other.isTrue);
+            isFalse.or(other.isFalse);
+            return this;
+        }
+
+        Truth or(Truth other) {
+            isTrue.or(other.isTrue);
+            isFalse.and(other.isFalse);
+            return this;
+        }
+
+        Truth not() {
+            return new Truth(isFalse, isTrue);
+        }
+    }
+}
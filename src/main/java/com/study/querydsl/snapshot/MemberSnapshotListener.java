@@ -0,0 +1,88 @@
+package com.study.querydsl.snapshot;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 트랜잭션에서 추가/수정/삭제된 Member, Team id 를 모았다가 커밋되면 MemberSnapshotService 에 알린다.
+ * 롤백된 변경은 알리지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSnapshotListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final MemberSnapshotService memberSnapshotService;
+    private final ConcurrentMap<EventSource, Changes> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getSession(), event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getSession(), event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getSession(), event.getEntity(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void changed(EventSource session, Object entity, Object id) {
+        if (entity instanceof Member) {
+            changes(session).memberIds.add((Long) id);
+        } else if (entity instanceof Team) {
+            changes(session).teamIds.add((Long) id);
+        }
+    }
+
+    private Changes changes(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            Changes changes = new Changes(s);
+            s.getActionQueue().registerProcess(changes);
+            return changes;
+        });
+    }
+
+    private class Changes implements AfterTransactionCompletionProcess {
+
+        private final EventSource session;
+        private final Set<Long> memberIds = new HashSet<>();
+        private final Set<Long> teamIds = new HashSet<>();
+
+        Changes(EventSource session) {
+            this.session = session;
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor s) {
+            pending.remove(session);
+            if (success) {
+                memberSnapshotService.changed(memberIds, teamIds);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.study.querydsl.snapshot;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 커밋된 변경을 주기적으로 회원 스냅샷에 반영한다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "querydsl.member-snapshot", name = "refresh-enabled", matchIfMissing = true)
+public class MemberSnapshotRefresher {
+
+    private final MemberSnapshotService memberSnapshotService;
+
+    @Scheduled(initialDelayString = "${querydsl.member-snapshot.refresh-interval:PT5S}",
+            fixedDelayString = "${querydsl.member-snapshot.refresh-interval:PT5S}")
+    public void refresh() {
+        memberSnapshotService.refreshIfLoaded();
+    }
+}
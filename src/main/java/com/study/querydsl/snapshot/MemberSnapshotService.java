@@ -0,0 +1,177 @@
+package com.study.querydsl.snapshot;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberTeamDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 스냅샷을 들고 있다가 DB 를 거치지 않고 조건 검색을 한다.
+ * - 처음 쓸 때 전체를 읽고, 이후에는 커밋된 변경(MemberSnapshotListener)이 있는 행만 다시 읽어 새 스냅샷으로 바꾼다.
+ * - 벌크 JPQL 처럼 이벤트가 없는 변경은 invalidateAll() 로 다음 refresh 때 전체를 다시 읽게 한다.
+ * 검색 결과는 마지막 refresh 시점 기준이다. (MemberSnapshotRefresher 주기만큼 늦을 수 있다)
+ */
+@Slf4j
+@Component
+public class MemberSnapshotService {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> dirtyMembers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyTeams = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reloadAll = new AtomicBoolean();
+    private volatile MemberSnapshot snapshot;
+
+    @Value("${querydsl.pagination.in-chunk-size:500}")
+    private int inChunkSize;
+
+    public MemberSnapshotService(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        // 복제본 지연으로 방금 커밋된 변경을 놓치지 않도록 readOnly 로 두지 않는다. (주 DB 에서 읽는다)
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public MemberSnapshot snapshot() {
+        MemberSnapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    public List<Long> findIds(Predicate... where) {
+        return snapshot().findIds(where);
+    }
+
+    public List<MemberTeamDto> findMembers(Predicate... where) {
+        return snapshot().findMembers(where);
+    }
+
+    public int count(Predicate... where) {
+        return snapshot().count(where);
+    }
+
+    /**
+     * 쌓인 변경을 반영한다. 처음이거나 invalidateAll() 이후면 전체를 다시 읽는다.
+     * 읽는 도중 커밋된 변경은 다시 dirty 로 남으므로 다음 refresh 에서 반영된다.
+     */
+    public synchronized MemberSnapshot refresh() {
+        if (snapshot == null || reloadAll.getAndSet(false)) {
+            dirtyMembers.clear();
+            dirtyTeams.clear();
+            try {
+                snapshot = transactionTemplate.execute(status -> MemberSnapshot.of(loadMembers(null), loadTeams(null)));
+            } catch (RuntimeException e) {
+                reloadAll.set(true);
+                throw e;
+            }
+            log.debug("member snapshot loaded, {} rows", snapshot.size());
+            return snapshot;
+        }
+        if (dirtyMembers.isEmpty() && dirtyTeams.isEmpty()) {
+            return snapshot;
+        }
+
+        List<Long> members = drain(dirtyMembers);
+        List<Long> teams = drain(dirtyTeams);
+        try {
+            snapshot = transactionTemplate.execute(status -> apply(snapshot, members, teams));
+        } catch (RuntimeException e) {
+            dirtyMembers.addAll(members);
+            dirtyTeams.addAll(teams);
+            throw e;
+        }
+        return snapshot;
+    }
+
+    /**
+     * 아직 한 번도 쓰지 않았으면 읽지 않는다. (주기 갱신용)
+     */
+    public void refreshIfLoaded() {
+        if (snapshot != null) {
+            refresh();
+        }
+    }
+
+    /**
+     * 커밋된 회원/팀 변경, MemberSnapshotListener 가 커밋 후에 호출한다.
+     * 엔티티 이벤트 없이 바꾼 쪽(벌크 JPQL)도 바뀐 id 를 알면 전체 대신 이것으로 알린다.
+     */
+    public void changed(Collection<Long> memberIds, Collection<Long> teamIds) {
+        dirtyMembers.addAll(memberIds);
+        dirtyTeams.addAll(teamIds);
+    }
+
+    /**
+     * 다음 refresh 때 전체를 다시 읽는다. 트랜잭션 안이면 커밋된 뒤에 표시한다.
+     */
+    public void invalidateAll() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reloadAll.set(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reloadAll.set(true);
+            }
+        });
+    }
+
+    private MemberSnapshot apply(MemberSnapshot current, List<Long> memberIds, List<Long> teamIds) {
+        List<MemberRow> members = new ArrayList<>();
+        for (int from = 0; from < memberIds.size(); from += inChunkSize) {
+            members.addAll(loadMembers(memberIds.subList(from, Math.min(from + inChunkSize, memberIds.size()))));
+        }
+        List<TeamRow> teams = new ArrayList<>();
+        for (int from = 0; from < teamIds.size(); from += inChunkSize) {
+            teams.addAll(loadTeams(teamIds.subList(from, Math.min(from + inChunkSize, teamIds.size()))));
+        }
+
+        Set<Long> deletedMembers = new HashSet<>(memberIds);
+        members.forEach(row -> deletedMembers.remove(row.getId()));
+        Set<Long> deletedTeams = new HashSet<>(teamIds);
+        teams.forEach(row -> deletedTeams.remove(row.getId()));
+        return current.with(members, deletedMembers, teams, deletedTeams);
+    }
+
+    /**
+     * ids 가 null 이면 전체
+     */
+    private List<MemberRow> loadMembers(Collection<Long> ids) {
+        return queryFactory
+                .select(Projections.constructor(MemberRow.class, member.id, member.memberName, member.age, member.team.id))
+                .from(member)
+                .where(ids != null ? member.id.in(ids) : null)
+                .fetch();
+    }
+
+    private List<TeamRow> loadTeams(Collection<Long> ids) {
+        return queryFactory
+                .select(Projections.constructor(TeamRow.class, team.id, team.name))
+                .from(team)
+                .where(ids != null ? team.id.in(ids) : null)
+                .fetch();
+    }
+
+    private static List<Long> drain(Set<Long> dirty) {
+        List<Long> drained = new ArrayList<>(dirty);
+        dirty.removeAll(drained);
+        return drained;
+    }
+}
@@ -0,0 +1,79 @@
+package com.study.querydsl.snapshot;
+
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 숫자 컬럼 조건, 비교/between 은 [low, high] 구간 하나로, in 은 정렬된 값 목록으로 바꾼다.
+ */
+final class NumberMatch {
+
+    private final long low;
+    private final long high;
+    private final long[] values;
+    private final boolean negate;
+
+    private NumberMatch(long low, long high, long[] values, boolean negate) {
+        this.low = low;
+        this.high = high;
+        this.values = values;
+        this.negate = negate;
+    }
+
+    static NumberMatch of(Operator op, Object[] constants) {
+        if (op == Ops.EQ) {
+            long value = number(constants[0]);
+            return range(value, value);
+        } else if (op == Ops.NE) {
+            long value = number(constants[0]);
+            return new NumberMatch(value, value, null, true);
+        } else if (op == Ops.GOE) {
+            return range(number(constants[0]), Long.MAX_VALUE);
+        } else if (op == Ops.GT) {
+            long value = number(constants[0]);
+            return value == Long.MAX_VALUE ? range(1, 0) : range(value + 1, Long.MAX_VALUE);
+        } else if (op == Ops.LOE) {
+            return range(Long.MIN_VALUE, number(constants[0]));
+        } else if (op == Ops.LT) {
+            long value = number(constants[0]);
+            return value == Long.MIN_VALUE ? range(1, 0) : range(Long.MIN_VALUE, value - 1);
+        } else if (op == Ops.BETWEEN) {
+            return range(number(constants[0]), number(constants[1]));
+        } else if (op == Ops.IN || op == Ops.NOT_IN) {
+            long[] values = ((Collection<?>) constants[0]).stream()
+                    .mapToLong(NumberMatch::number)
+                    .sorted()
+                    .toArray();
+            return new NumberMatch(0, 0, values, op == Ops.NOT_IN);
+        }
+        throw new IllegalArgumentException("unsupported number operator: " + op);
+    }
+
+    /**
+     * values 는 정렬되어 있어야 한다.
+     */
+    static NumberMatch in(long[] values) {
+        return new NumberMatch(0, 0, values, false);
+    }
+
+    private static NumberMatch range(long low, long high) {
+        return new NumberMatch(low, high, null, false);
+    }
+
+    boolean test(long value) {
+        boolean matches = values == null
+                ? value >= low && value <= high
+                : Arrays.binarySearch(values, value) >= 0;
+        return matches != negate;
+    }
+
+    private static long number(Object constant) {
+        if (!(constant instanceof Number)) {
+            throw new IllegalArgumentException("number constant expected: " + constant);
+        }
+        return ((Number) constant).longValue();
+    }
+}
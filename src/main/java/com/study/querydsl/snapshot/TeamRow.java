@@ -0,0 +1,10 @@
+package com.study.querydsl.snapshot;
+
+import lombok.Value;
+
+@Value
+public class TeamRow {
+
+    Long id;
+    String name;
+}
@@ -0,0 +1,109 @@
+package com.study.querydsl.sql;
+
+import lombok.Getter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * EXPLAIN 결과를 사람이 읽을 줄과 전체 스캔하는 테이블(별칭)로 정리한다.
+ * - MySQL/MariaDB: 행마다 table/type/key, type 이 ALL 이면 전체 스캔
+ * - H2: 실행 계획 문자열, tableScan 이 붙은 테이블이 전체 스캔
+ */
+@Getter
+public class ExplainPlan {
+
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile(
+            "\"?(\\w+)\"?\\s*/\\*\\s*\"?\\w+\"?\\.\"?\\w+\"?\\.tableScan", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 문자열 리터럴(건너뜀), limit/offset 자리(MySQL 의 limit ?, ? 포함), 그 밖의 자리
+     */
+    private static final Pattern PLACEHOLDER = Pattern.compile(
+            "('(?:[^']|'')*')|(\\b(?:limit|offset)\\s*\\?(?:\\s*,\\s*\\?)?)|\\?", Pattern.CASE_INSENSITIVE);
+
+    private final List<String> lines = new ArrayList<>();
+    private final Set<String> scannedAliases = new LinkedHashSet<>();
+
+    private ExplainPlan() {
+    }
+
+    /**
+     * sql 은 바인딩 값 대신 ? 가 들어간 select 다. 실제 값은 남기지 않으므로 자리마다 가짜 값을 바인딩한다.
+     * limit/offset 자리는 숫자 1, 나머지는 문자열 '1' 이다. (MySQL/H2 모두 숫자 컬럼과 비교할 때 상수 쪽을 바꾸므로 인덱스를 고르는 데는 지장이 없다)
+     * 값 분포에 따라 달라지는 계획은 실제와 다를 수 있다.
+     */
+    public static ExplainPlan of(Connection connection, String sql) throws SQLException {
+        ExplainPlan plan = new ExplainPlan();
+        try (PreparedStatement statement = prepare(connection, sql);
+             ResultSet rs = statement.executeQuery()) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int tableColumn = column(metaData, "table");
+            int typeColumn = column(metaData, "type");
+            int keyColumn = column(metaData, "key");
+            while (rs.next()) {
+                if (typeColumn > 0) {
+                    String table = rs.getString(tableColumn);
+                    String type = rs.getString(typeColumn);
+                    plan.lines.add(table + " type=" + type + " key=" + (keyColumn > 0 ? rs.getString(keyColumn) : null));
+                    if ("ALL".equalsIgnoreCase(type) && table != null) {
+                        plan.scannedAliases.add(table.toLowerCase(Locale.ROOT));
+                    }
+                } else {
+                    String text = rs.getString(1);
+                    plan.lines.add(text);
+                    Matcher matcher = H2_TABLE_SCAN.matcher(text);
+                    while (matcher.find()) {
+                        plan.scannedAliases.add(matcher.group(1).toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+        return plan;
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement("explain " + sql);
+        try {
+            Matcher matcher = PLACEHOLDER.matcher(sql);
+            int index = 0;
+            while (matcher.find()) {
+                if (matcher.group(1) != null) {
+                    continue;
+                }
+                if (matcher.group(2) != null) {
+                    for (char c : matcher.group(2).toCharArray()) {
+                        if (c == '?') {
+                            statement.setInt(++index, 1);
+                        }
+                    }
+                } else {
+                    statement.setString(++index, "1");
+                }
+            }
+            return statement;
+        } catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    private static int column(ResultSetMetaData metaData, String name) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (name.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
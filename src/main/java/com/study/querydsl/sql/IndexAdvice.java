@@ -0,0 +1,19 @@
+package com.study.querydsl.sql;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * SQL 모양 하나에 대한 EXPLAIN 결과와 추천 인덱스
+ */
+@Value
+public class IndexAdvice {
+
+    String shape;
+    long executions;
+    long totalMillis;
+    List<String> plan;
+    List<String> fullScans;
+    List<String> recommendations;
+}
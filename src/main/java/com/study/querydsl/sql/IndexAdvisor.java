@@ -0,0 +1,92 @@
+package com.study.querydsl.sql;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 기록된 select 모양마다 EXPLAIN 을 실행해서 전체 스캔하는 테이블을 찾고, 없는 인덱스를 추천한다.
+ * 이미 같은 컬럼으로 시작하는 인덱스가 있으면 추천하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class IndexAdvisor {
+
+    private final DataSource dataSource;
+    private final IndexAdvisorListener listener;
+
+    /**
+     * minExecutions 이상 실행된 모양만, 실행 시간 합이 큰 순서로 돌려준다.
+     */
+    public List<IndexAdvice> advise(long minExecutions) {
+        List<IndexAdvisorListener.ExecutedShape> shapes = listener.shapes().stream()
+                .filter(s -> s.getExecutions().sum() >= minExecutions)
+                .sorted(Comparator.comparingLong((IndexAdvisorListener.ExecutedShape s) -> s.getNanos().sum()).reversed())
+                .collect(Collectors.toList());
+
+        List<IndexAdvice> result = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (IndexAdvisorListener.ExecutedShape shape : shapes) {
+                result.add(advise(connection, shape));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("EXPLAIN 실행 실패", e);
+        }
+        return result;
+    }
+
+    private IndexAdvice advise(Connection connection, IndexAdvisorListener.ExecutedShape shape) throws SQLException {
+        ExplainPlan plan = ExplainPlan.of(connection, shape.getSample());
+
+        Map<String, String> tables = IndexRecommender.tables(shape.getShape());
+        List<String> fullScans = new ArrayList<>();
+        List<String> recommendations = new ArrayList<>();
+        for (String alias : plan.getScannedAliases()) {
+            String table = tables.getOrDefault(alias, alias);
+            fullScans.add(table);
+            List<String> columns = IndexRecommender.columns(shape.getShape(), alias);
+            if (!columns.isEmpty() && !hasIndexStartingWith(connection, table, columns)) {
+                recommendations.add(IndexRecommender.ddl(table, columns));
+            }
+        }
+        return new IndexAdvice(shape.getShape(), shape.getExecutions().sum(),
+                TimeUnit.NANOSECONDS.toMillis(shape.getNanos().sum()), plan.getLines(), fullScans, recommendations);
+    }
+
+    private static boolean hasIndexStartingWith(Connection connection, String table, List<String> columns) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+            Map<String, TreeMap<Integer, String>> indexes = new TreeMap<>();
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, name, false, true)) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    if (index != null && column != null) {
+                        indexes.computeIfAbsent(index, i -> new TreeMap<>())
+                                .put((int) rs.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            for (TreeMap<Integer, String> index : indexes.values()) {
+                List<String> indexColumns = new ArrayList<>(index.values());
+                if (indexColumns.size() >= columns.size() && indexColumns.subList(0, columns.size()).equals(columns)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
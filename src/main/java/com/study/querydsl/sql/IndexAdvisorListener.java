@@ -0,0 +1,70 @@
+package com.study.querydsl.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 실행된 select 를 모양(SqlShape)별로 세고, EXPLAIN 에 쓸 SQL 을 하나씩 남긴다.
+ * 바인딩 값(개인정보일 수 있다)은 남기지 않고 ? 가 들어간 SQL 그대로 둔다.
+ */
+@Component
+@RequiredArgsConstructor
+public class IndexAdvisorListener extends SimpleJdbcEventListener {
+
+    private final IndexAdvisorProperties properties;
+    private final ConcurrentMap<String, ExecutedShape> shapes = new ConcurrentHashMap<>();
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (!properties.isEnabled() || e != null || sql == null || !isSelect(sql)) {
+            return;
+        }
+        String shape = SqlShape.of(sql);
+        ExecutedShape executed = shapes.get(shape);
+        if (executed == null) {
+            if (shapes.size() >= properties.getMaxShapes()) {
+                return;
+            }
+            executed = shapes.computeIfAbsent(shape, s -> new ExecutedShape(s, sql));
+        }
+        executed.executions.increment();
+        executed.nanos.add(timeElapsedNanos);
+    }
+
+    public Collection<ExecutedShape> shapes() {
+        return shapes.values();
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql.trim().toLowerCase(Locale.ROOT).startsWith("select");
+    }
+
+    @Getter
+    public static class ExecutedShape {
+
+        private final String shape;
+        private final String sample;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        ExecutedShape(String shape, String sample) {
+            this.shape = shape;
+            this.sample = sample;
+        }
+    }
+}
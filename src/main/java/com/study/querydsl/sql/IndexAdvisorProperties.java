@@ -0,0 +1,24 @@
+package com.study.querydsl.sql;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.index-advisor")
+public class IndexAdvisorProperties {
+
+    /**
+     * 실행된 select 의 모양을 기록하고 /admin/index-advice 를 열지 여부
+     * 모든 select 를 가로채고 EXPLAIN 을 실행하므로 개발/검증 환경에서만 켠다.
+     */
+    private boolean enabled = false;
+
+    /**
+     * 기록할 SQL 모양 수, 넘으면 새 모양은 버린다.
+     */
+    private int maxShapes = 500;
+}
@@ -0,0 +1,90 @@
+package com.study.querydsl.sql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hibernate 가 만든 select 에서 테이블 별칭, where 조건 컬럼, order by 컬럼을 읽어 인덱스 컬럼 순서를 정한다.
+ * 등호 조건 컬럼 → 첫 번째 범위 조건 컬럼 → (범위 조건이 없으면) 정렬 컬럼 순서로 만든다.
+ * 정규식으로 읽으므로 Hibernate 의 "별칭.컬럼 연산자 ?" 형태만 이해한다.
+ */
+final class IndexRecommender {
+
+    private static final Pattern TABLE = Pattern.compile("\\b(?:from|join)\\s+(\\w+)\\s+(?:as\\s+)?(\\w+)");
+    private static final Pattern CONDITION = Pattern.compile(
+            "\\b(\\w+)\\.(\\w+)\\s*(=|<>|!=|>=|<=|>|<|\\bin\\b|\\blike\\b|\\bbetween\\b|\\bis\\s+null\\b)\\s*(\\?|\\(|and|or|\\)|$)");
+    private static final Pattern ORDER_BY = Pattern.compile("\\border\\s+by\\s+(.+?)(?:\\blimit\\b|\\boffset\\b|\\bfor\\s+update\\b|$)");
+    private static final Pattern ORDER_COLUMN = Pattern.compile("(\\w+)\\.(\\w+)");
+
+    private IndexRecommender() {
+    }
+
+    /**
+     * 별칭 → 테이블 이름
+     */
+    static Map<String, String> tables(String sql) {
+        Map<String, String> tables = new LinkedHashMap<>();
+        Matcher matcher = TABLE.matcher(sql.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            tables.put(matcher.group(2), matcher.group(1));
+        }
+        return tables;
+    }
+
+    /**
+     * 별칭 하나에 대한 인덱스 컬럼, 조건/정렬에 쓰인 컬럼이 없으면 빈 목록
+     */
+    static List<String> columns(String sql, String alias) {
+        String lower = sql.toLowerCase(Locale.ROOT);
+        int where = lower.indexOf(" where ");
+        int orderBy = lower.indexOf(" order by ");
+        String conditions = where < 0 ? "" : lower.substring(where, orderBy > where ? orderBy : lower.length());
+
+        Set<String> equality = new LinkedHashSet<>();
+        Set<String> range = new LinkedHashSet<>();
+        Matcher matcher = CONDITION.matcher(conditions);
+        while (matcher.find()) {
+            if (!matcher.group(1).equals(alias)) {
+                continue;
+            }
+            String operator = matcher.group(3).replaceAll("\\s+", " ");
+            if (operator.equals("=") || operator.equals("in") || operator.equals("is null")) {
+                equality.add(matcher.group(2));
+            } else if (!operator.equals("<>") && !operator.equals("!=")) {
+                range.add(matcher.group(2));
+            }
+        }
+
+        List<String> order = new ArrayList<>();
+        Matcher orderMatcher = ORDER_BY.matcher(lower);
+        if (orderMatcher.find()) {
+            Matcher column = ORDER_COLUMN.matcher(orderMatcher.group(1));
+            while (column.find()) {
+                if (column.group(1).equals(alias)) {
+                    order.add(column.group(2));
+                }
+            }
+        }
+
+        List<String> columns = new ArrayList<>(equality);
+        range.removeAll(equality);
+        if (!range.isEmpty()) {
+            columns.add(range.iterator().next());
+        } else {
+            order.stream().filter(c -> !columns.contains(c)).forEach(columns::add);
+        }
+        return columns;
+    }
+
+    static String ddl(String table, List<String> columns) {
+        return "create index idx_" + table + "_" + String.join("_", columns)
+                + " on " + table + " (" + String.join(", ", columns) + ")";
+    }
+}
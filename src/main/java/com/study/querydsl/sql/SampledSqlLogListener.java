@@ -0,0 +1,54 @@
+package com.study.querydsl.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 운영용 SQL 로그
+ * 모든 SQL 은 요약용으로 집계만 하고, 표본(1/N)·느린 SQL·실패한 SQL 만 로그 작성 스레드로 넘긴다.
+ * 실행 스레드에서는 바인딩 값 문자열도 값을 남기는 설정일 때, 남길 SQL 에 대해서만 만든다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SampledSqlLogListener extends SimpleJdbcEventListener {
+
+    private final SqlLogProperties properties;
+    private final SqlLogWriter writer;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        String sql = statementInformation.getSql();
+        if (sql == null) {
+            return;
+        }
+        writer.record(sql, timeElapsedNanos);
+        SqlLogEntry.Reason reason = reason(timeElapsedNanos, e);
+        if (reason == null) {
+            return;
+        }
+        String sqlWithValues = properties.isRedactParameters() ? null : statementInformation.getSqlWithValues();
+        writer.offer(new SqlLogEntry(sql, sqlWithValues, timeElapsedNanos, reason, e == null ? null : e.getMessage()));
+    }
+
+    private SqlLogEntry.Reason reason(long timeElapsedNanos, SQLException e) {
+        if (e != null) {
+            return SqlLogEntry.Reason.FAILED;
+        }
+        if (timeElapsedNanos >= properties.getSlowThreshold().toNanos()) {
+            return SqlLogEntry.Reason.SLOW;
+        }
+        int sampleRate = properties.getSampleRate();
+        if (sampleRate == 1 || (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) == 0)) {
+            return SqlLogEntry.Reason.SAMPLED;
+        }
+        return null;
+    }
+}
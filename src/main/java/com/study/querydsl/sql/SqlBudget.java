@@ -0,0 +1,94 @@
+package com.study.querydsl.sql;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 요청(SqlBudgetFilter)과 트랜잭션마다 SQL 수와 같은 모양의 반복 수를 예산과 비교한다.
+ * 두 예산 모두 설정값까지는 허용하고, 넘으면 위반이다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlBudget {
+
+    private final SqlBudgetProperties properties;
+
+    public List<String> violations(SqlStatementScope scope) {
+        List<String> violations = new ArrayList<>();
+        if (scope.getCount() > properties.getMaxStatements()) {
+            violations.add(scope.getCount() + " statements (budget " + properties.getMaxStatements() + ")");
+        }
+        scope.repeatedShapes(properties.getMaxRepeats() + 1).forEach((shape, times) ->
+                violations.add("possible N+1, " + times + " x [" + shape + "]"));
+        return violations;
+    }
+
+    /**
+     * 현재 트랜잭션의 집계 범위, 트랜잭션에서 처음 SQL 이 실행될 때 만들고 트랜잭션이 끝나면 보고한다.
+     * 요청 밖(@Scheduled, @Async, 배치)의 트랜잭션도 예산을 적용받는다.
+     * 범위를 트랜잭션 동기화에 두므로 REQUIRES_NEW 로 중단된 바깥 트랜잭션과 섞이지 않는다.
+     */
+    SqlStatementScope transactionScope() {
+        if (!properties.isEnabled() || !properties.isTransactionScoped()
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionBudget) {
+                return ((TransactionBudget) synchronization).scope;
+            }
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        TransactionBudget budget = new TransactionBudget(
+                new SqlStatementScope("transaction " + (name != null ? name : "(unnamed)"), null));
+        TransactionSynchronizationManager.registerSynchronization(budget);
+        return budget.scope;
+    }
+
+    /**
+     * SQL 이 실행될 때마다 호출, FAIL 모드면 예산을 넘는 순간 실패시킨다.
+     */
+    void onStatement(SqlStatementScope scope) {
+        if (properties.getMode() != SqlBudgetProperties.Mode.FAIL) {
+            return;
+        }
+        List<String> violations = violations(scope);
+        if (!violations.isEmpty()) {
+            throw new SqlBudgetExceededException(scope.getName() + ": " + violations);
+        }
+    }
+
+    /**
+     * 범위가 끝날 때 호출, 예산을 넘었으면 경고 로그를 남긴다.
+     */
+    public void report(SqlStatementScope scope) {
+        List<String> violations = violations(scope);
+        if (!violations.isEmpty()) {
+            log.warn("SQL budget exceeded in {}: {}", scope.getName(), violations);
+        } else if (log.isDebugEnabled()) {
+            log.debug("{} executed {} statements", scope.getName(), scope.getCount());
+        }
+    }
+
+    private class TransactionBudget implements TransactionSynchronization {
+
+        private final SqlStatementScope scope;
+
+        TransactionBudget(SqlStatementScope scope) {
+            this.scope = scope;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            report(scope);
+        }
+    }
+}
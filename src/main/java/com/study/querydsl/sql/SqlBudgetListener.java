@@ -0,0 +1,32 @@
+package com.study.querydsl.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 가 감싼 DataSource 에서 실행되는 모든 SQL 을 현재 범위와 현재 트랜잭션에 집계한다.
+ * (p6spy-spring-boot-starter 가 JdbcEventListener 빈을 자동으로 등록)
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlBudgetListener extends SimpleJdbcEventListener {
+
+    private final SqlBudget sqlBudget;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        SqlStatementScope scope = SqlStatementRecorder.record(statementInformation.getSql());
+        if (scope != null) {
+            sqlBudget.onStatement(scope);
+        }
+        SqlStatementScope transaction = sqlBudget.transactionScope();
+        if (transaction != null) {
+            transaction.record(SqlShape.of(statementInformation.getSql()));
+            sqlBudget.onStatement(transaction);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.study.querydsl.sql;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.sql-budget")
+public class SqlBudgetProperties {
+
+    public enum Mode { LOG, FAIL }
+
+    /**
+     * HTTP 요청마다 SQL 을 집계할지 여부
+     */
+    private boolean enabled = true;
+
+    /**
+     * 트랜잭션마다도 집계할지 여부 (요청 밖의 스케줄러/비동기 작업도 예산을 적용받는다)
+     */
+    private boolean transactionScoped = true;
+
+    /**
+     * 요청(트랜잭션) 하나에서 허용하는 SQL 수, 넘으면 위반
+     */
+    private int maxStatements = 100;
+
+    /**
+     * 같은 모양의 SQL 을 허용하는 반복 수, 넘으면 N+1 로 본다.
+     */
+    private int maxRepeats = 10;
+
+    /**
+     * LOG: 요청이 끝날 때 경고 로그, FAIL: 예산을 넘는 순간 SqlBudgetExceededException
+     */
+    private Mode mode = Mode.LOG;
+}
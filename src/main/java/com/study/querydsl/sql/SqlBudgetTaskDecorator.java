@@ -0,0 +1,26 @@
+package com.study.querydsl.sql;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 작업을 넘긴 스레드의 SQL 집계 범위를 작업 스레드로 이어준다.
+ * 작업 스레드에서 실행한 SQL 도 호출한 요청(테스트)의 예산에 집계되고, 작업이 끝나면 작업 스레드의 원래 범위로 되돌린다.
+ */
+public class SqlBudgetTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        SqlStatementScope scope = SqlStatementRecorder.current();
+        if (scope == null) {
+            return runnable;
+        }
+        return () -> {
+            SqlStatementScope previous = SqlStatementRecorder.attach(scope);
+            try {
+                runnable.run();
+            } finally {
+                SqlStatementRecorder.restore(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.study.querydsl.sql;
+
+import lombok.Value;
+
+/**
+ * 로그 작성 스레드로 넘기는 SQL 한 건
+ * 실행 스레드에서는 문자열을 만들지 않고 받은 값만 담는다. (포맷/정규화는 작성 스레드에서)
+ */
+@Value
+public class SqlLogEntry {
+
+    public enum Reason {
+        SAMPLED, SLOW, FAILED
+    }
+
+    String sql;
+    /**
+     * 바인딩 값이 들어간 SQL, 값을 가리는 설정이면 null
+     */
+    String sqlWithValues;
+    long elapsedNanos;
+    Reason reason;
+    String error;
+}
@@ -0,0 +1,55 @@
+package com.study.querydsl.sql;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.sql-log")
+public class SqlLogProperties {
+
+    /**
+     * 표본 SQL 로그를 남길지 여부 (운영 프로필에서 켠다)
+     */
+    private boolean enabled = false;
+
+    /**
+     * N 개 중 하나를 남긴다. 1 이면 전부, 0 이면 느리거나 실패한 SQL 만 남긴다.
+     */
+    private int sampleRate = 100;
+
+    /**
+     * 이보다 오래 걸린 SQL 은 표본과 관계없이 남긴다.
+     */
+    private Duration slowThreshold = Duration.ofMillis(200);
+
+    /**
+     * 로그 작성 스레드로 넘기는 버퍼 크기, 가득 차면 버리고 버린 수만 센다.
+     */
+    private int bufferSize = 4096;
+
+    /**
+     * true 면 바인딩 값을 남기지 않고 SQL 안의 리터럴도 ? 로 바꾼다.
+     */
+    private boolean redactParameters = true;
+
+    /**
+     * SQL 모양별 요약을 남기는 주기
+     */
+    private Duration summaryInterval = Duration.ofMinutes(1);
+
+    /**
+     * 요약에 남길 모양 수 (전체 실행 시간 순)
+     */
+    private int summaryTop = 20;
+
+    /**
+     * 집계할 SQL 수, 넘으면 새 SQL 은 요약에서 빠진다.
+     */
+    private int maxShapes = 500;
+}
@@ -0,0 +1,238 @@
+package com.study.querydsl.sql;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * SQL 로그를 실행 스레드 밖에서 남긴다.
+ * - 실행 스레드는 고정 크기 버퍼(ArrayBlockingQueue, 배열 기반 링 버퍼)에 넣기만 하고 기다리지 않는다.
+ *   가득 차면 버리고 버린 수만 센다.
+ * - 작성 스레드 하나가 버퍼를 비우면서 값 가리기/정규화/포맷을 하고 "querydsl.sql" 로거로 남긴다.
+ * - 모든 SQL 의 실행 수/시간은 SQL 별로 모아 두었다가 summary-interval 마다 모양별 요약으로 남긴다.
+ * 작성 스레드는 querydsl.sql-log.enabled 가 켜져 있을 때만 컨텍스트가 시작할 때 띄운다.
+ */
+@Component
+public class SqlLogWriter implements SmartLifecycle {
+
+    private static final Logger SQL_LOG = LoggerFactory.getLogger("querydsl.sql");
+
+    private final SqlLogProperties properties;
+    private final Consumer<String> sink;
+    private final BlockingQueue<SqlLogEntry> buffer;
+    // Hibernate 는 같은 SQL 문자열 인스턴스를 재사용하므로 hashCode 가 캐시되어 실행 스레드에서 싸게 찾는다.
+    private final ConcurrentMap<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder droppedSinceSummary = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private Thread thread;
+    private volatile boolean running;
+
+    @Autowired
+    public SqlLogWriter(SqlLogProperties properties) {
+        this(properties, SQL_LOG::info);
+    }
+
+    SqlLogWriter(SqlLogProperties properties, Consumer<String> sink) {
+        this.properties = properties;
+        this.sink = sink;
+        this.buffer = new ArrayBlockingQueue<>(properties.getBufferSize());
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!properties.isEnabled() || thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "sql-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * 요약용 집계, 실행된 모든 SQL 에 대해 부른다.
+     */
+    public void record(String sql, long elapsedNanos) {
+        Aggregate aggregate = aggregates.get(sql);
+        if (aggregate == null) {
+            if (aggregates.size() >= properties.getMaxShapes()) {
+                return;
+            }
+            aggregate = aggregates.computeIfAbsent(sql, Aggregate::new);
+        }
+        aggregate.executions.increment();
+        aggregate.nanos.add(elapsedNanos);
+        aggregate.maxNanos.accumulate(elapsedNanos);
+    }
+
+    /**
+     * 남길 SQL 을 버퍼에 넣는다. 자리가 없으면 false
+     */
+    public boolean offer(SqlLogEntry entry) {
+        if (buffer.offer(entry)) {
+            return true;
+        }
+        dropped.increment();
+        droppedSinceSummary.increment();
+        return false;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    private void run() {
+        long nextSummary = System.nanoTime() + properties.getSummaryInterval().toNanos();
+        while (running) {
+            try {
+                long waitNanos = Math.max(0, nextSummary - System.nanoTime());
+                SqlLogEntry entry = buffer.poll(waitNanos, TimeUnit.NANOSECONDS);
+                if (entry != null) {
+                    write(entry);
+                }
+                if (System.nanoTime() - nextSummary >= 0) {
+                    summarize().forEach(sink);
+                    nextSummary = System.nanoTime() + properties.getSummaryInterval().toNanos();
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                // 로그 작성 실패로 작성 스레드가 죽으면 이후 로그가 전부 사라진다.
+                LoggerFactory.getLogger(SqlLogWriter.class).warn("failed to write sql log", e);
+            }
+        }
+        List<SqlLogEntry> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        remaining.forEach(this::write);
+        summarize().forEach(sink);
+    }
+
+    private void write(SqlLogEntry entry) {
+        String sql = entry.getSqlWithValues() != null ? entry.getSqlWithValues() : SqlShape.of(entry.getSql());
+        StringBuilder line = new StringBuilder(sql.length() + 48)
+                .append(entry.getReason().name().toLowerCase(Locale.ROOT))
+                .append(' ')
+                .append(TimeUnit.NANOSECONDS.toMicros(entry.getElapsedNanos()) / 1000.0)
+                .append("ms | ")
+                .append(sql);
+        if (entry.getError() != null) {
+            line.append(" | ").append(entry.getError());
+        }
+        sink.accept(line.toString());
+        written.increment();
+    }
+
+    /**
+     * 지난 요약 이후 집계를 SqlShape 별로 합쳐 전체 실행 시간 순으로 돌려주고 집계를 비운다.
+     */
+    List<String> summarize() {
+        Map<String, ShapeSummary> byShape = new HashMap<>();
+        for (Aggregate aggregate : aggregates.values()) {
+            long executions = aggregate.executions.sumThenReset();
+            long nanos = aggregate.nanos.sumThenReset();
+            long maxNanos = aggregate.maxNanos.getThenReset();
+            if (executions == 0) {
+                continue;
+            }
+            if (aggregate.shape == null) {
+                aggregate.shape = SqlShape.of(aggregate.sql);
+            }
+            byShape.computeIfAbsent(aggregate.shape, ShapeSummary::new).add(executions, nanos, maxNanos);
+        }
+        long droppedEntries = droppedSinceSummary.sumThenReset();
+        if (byShape.isEmpty() && droppedEntries == 0) {
+            return new ArrayList<>();
+        }
+        List<ShapeSummary> summaries = new ArrayList<>(byShape.values());
+        summaries.sort(Comparator.comparingLong(ShapeSummary::getNanos).reversed());
+        List<String> lines = new ArrayList<>();
+        lines.add("summary shapes=" + summaries.size() + " dropped=" + droppedEntries);
+        summaries.stream()
+                .limit(properties.getSummaryTop())
+                .map(ShapeSummary::toString)
+                .forEach(lines::add);
+        return lines;
+    }
+
+    private static class Aggregate {
+
+        private final String sql;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        // 작성 스레드에서만 쓴다.
+        private String shape;
+
+        Aggregate(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    @Getter
+    private static class ShapeSummary {
+
+        private final String shape;
+        private long executions;
+        private long nanos;
+        private long maxNanos;
+
+        ShapeSummary(String shape) {
+            this.shape = shape;
+        }
+
+        void add(long executions, long nanos, long maxNanos) {
+            this.executions += executions;
+            this.nanos += nanos;
+            this.maxNanos = Math.max(this.maxNanos, maxNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d total=%.1fms avg=%.3fms max=%.3fms | %s",
+                    executions, nanos / 1e6, nanos / 1e6 / executions, maxNanos / 1e6, shape);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.study.querydsl.sql;
+
+/**
+ * 현재 스레드의 SQL 집계 범위를 관리한다.
+ * 범위가 열려 있지 않은 스레드에서 실행된 SQL 은 집계하지 않는다.
+ */
+public final class SqlStatementRecorder {
+
+    private static final ThreadLocal<SqlStatementScope> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementRecorder() {
+    }
+
+    public static SqlStatementScope begin(String name) {
+        SqlStatementScope scope = new SqlStatementScope(name, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static void end(SqlStatementScope scope) {
+        if (CURRENT.get() != scope) {
+            throw new IllegalStateException("SQL scope is not the current scope: " + scope.getName());
+        }
+        if (scope.getParent() != null) {
+            CURRENT.set(scope.getParent());
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    public static SqlStatementScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 다른 스레드에서 연 범위에 이 스레드의 SQL 을 집계한다. 돌려준 이전 범위를 restore 로 되돌린다.
+     */
+    static SqlStatementScope attach(SqlStatementScope scope) {
+        SqlStatementScope previous = CURRENT.get();
+        CURRENT.set(scope);
+        return previous;
+    }
+
+    static void restore(SqlStatementScope previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    static SqlStatementScope record(String sql) {
+        SqlStatementScope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(SqlShape.of(sql));
+        }
+        return scope;
+    }
+}
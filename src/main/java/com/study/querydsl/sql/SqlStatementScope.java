@@ -0,0 +1,65 @@
+package com.study.querydsl.sql;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 하나의 요청(또는 테스트) 동안 실행된 SQL 의 개수와 모양별 실행 횟수
+ * 범위는 중첩될 수 있고, 안쪽 범위에서 실행된 SQL 은 바깥 범위에도 집계된다.
+ * 작업 스레드도 같은 범위에 집계할 수 있으므로(SqlBudgetTaskDecorator) 집계는 동기화한다.
+ */
+public class SqlStatementScope {
+
+    private final String name;
+    private final SqlStatementScope parent;
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();
+    private int count;
+
+    SqlStatementScope(String name, SqlStatementScope parent) {
+        this.name = name;
+        this.parent = parent;
+    }
+
+    synchronized void record(String shape) {
+        count++;
+        shapes.merge(shape, 1, Integer::sum);
+        if (parent != null) {
+            parent.record(shape);
+        }
+    }
+
+    SqlStatementScope getParent() {
+        return parent;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized Map<String, Integer> getShapes() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(shapes));
+    }
+
+    /**
+     * threshold 번 이상 반복된 SQL 모양 (N+1 의심)
+     */
+    public synchronized Map<String, Integer> repeatedShapes(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        shapes.forEach((shape, times) -> {
+            if (times >= threshold) {
+                repeated.put(shape, times);
+            }
+        });
+        return repeated;
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        shapes.clear();
+    }
+}
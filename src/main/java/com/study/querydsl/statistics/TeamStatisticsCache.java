@@ -0,0 +1,80 @@
+package com.study.querydsl.statistics;
+
+import com.study.querydsl.dto.TeamStatisticsDto;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * team_statistics 를 메모리에 올려둔 캐시
+ * 통계가 바뀐 트랜잭션이 커밋되면 해당 팀을 무효화한다.
+ * 조회 도중 무효화가 일어나면(generation 이 바뀌면) 읽은 값을 담지 않는다.
+ */
+@Component
+public class TeamStatisticsCache {
+
+    private final ConcurrentMap<Long, TeamStatisticsDto> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile boolean complete;
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public Optional<TeamStatisticsDto> get(Long teamId) {
+        return Optional.ofNullable(entries.get(teamId));
+    }
+
+    /**
+     * 모든 팀이 올라와 있을 때만 값을 돌려준다.
+     */
+    public Optional<List<TeamStatisticsDto>> getAll() {
+        if (!complete) {
+            return Optional.empty();
+        }
+        List<TeamStatisticsDto> result = new ArrayList<>(entries.values());
+        result.sort(Comparator.comparing(TeamStatisticsDto::getTeamId));
+        return Optional.of(result);
+    }
+
+    public void put(TeamStatisticsDto statistics, long loadedGeneration) {
+        synchronized (this) {
+            if (generation.get() == loadedGeneration) {
+                entries.put(statistics.getTeamId(), statistics);
+            }
+        }
+    }
+
+    public void putAll(Collection<TeamStatisticsDto> statistics, long loadedGeneration) {
+        synchronized (this) {
+            if (generation.get() == loadedGeneration) {
+                entries.clear();
+                statistics.forEach(s -> entries.put(s.getTeamId(), s));
+                complete = true;
+            }
+        }
+    }
+
+    public void invalidate(Collection<Long> teamIds) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            complete = false;
+            teamIds.forEach(entries::remove);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            complete = false;
+            entries.clear();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.study.querydsl.statistics;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeamStatistics.teamStatistics;
+
+/**
+ * 트랜잭션 하나에서 생긴 팀 통계 변화량
+ * 커밋 직전(flush 이후)에 팀마다 증분 update 를 실행하고, 커밋되면 캐시를 무효화한다.
+ * 팀 id 순서로 갱신해서 동시에 여러 팀을 바꾸는 트랜잭션끼리 데드락이 나지 않게 한다.
+ */
+class TeamStatisticsChanges implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+    private final TeamStatisticsCache cache;
+    private final Runnable onComplete;
+    private final Map<Long, Delta> deltas = new TreeMap<>();
+    private boolean recomputeAll;
+
+    TeamStatisticsChanges(TeamStatisticsCache cache, Runnable onComplete) {
+        this.cache = cache;
+        this.onComplete = onComplete;
+    }
+
+    void added(Long teamId, int age) {
+        delta(teamId).add(age);
+    }
+
+    void removed(Long teamId, int age) {
+        delta(teamId).remove(age);
+    }
+
+    void teamCreated(Long teamId) {
+        delta(teamId);
+    }
+
+    void teamDeleted(Long teamId) {
+        delta(teamId).deleted = true;
+    }
+
+    /**
+     * 변경 전 상태를 알 수 없을 때(merge 등) 모든 팀을 다시 계산한다.
+     */
+    void recomputeAll() {
+        recomputeAll = true;
+    }
+
+    @Override
+    public void doBeforeTransactionCompletion(SessionImplementor session) {
+        JPAQueryFactory queryFactory = new JPAQueryFactory(session);
+        deltas.forEach((teamId, delta) -> apply(session, queryFactory, teamId, delta));
+        if (recomputeAll) {
+            recompute(queryFactory, null);
+        }
+    }
+
+    @Override
+    public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+        onComplete.run();
+        if (!success) {
+            return;
+        }
+        if (recomputeAll) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(deltas.keySet());
+        }
+    }
+
+    private void apply(SessionImplementor session, JPAQueryFactory queryFactory, Long teamId, Delta delta) {
+        if (delta.deleted) {
+            queryFactory.delete(teamStatistics).where(teamStatistics.teamId.eq(teamId)).execute();
+            return;
+        }
+
+        long updated = queryFactory
+                .update(teamStatistics)
+                .set(teamStatistics.memberCount, teamStatistics.memberCount.add(delta.count))
+                .set(teamStatistics.ageSum, teamStatistics.ageSum.add(delta.ageSum))
+                .where(teamStatistics.teamId.eq(teamId))
+                .execute();
+        if (updated == 0) {
+            // 새 팀이거나 아직 통계 행이 없는 팀, 행을 만들고 실제 값으로 계산한다.
+            // 다른 트랜잭션이 같은 팀의 첫 행을 먼저 넣었을 수 있으므로 upsert 로 PK 충돌을 피한다.
+            session.createNativeQuery("insert into team_statistics (team_id, member_count, age_sum) values (?, 0, 0)"
+                            + " on duplicate key update team_id = team_id")
+                    .setParameter(1, teamId)
+                    .executeUpdate();
+            recompute(queryFactory, teamId);
+            return;
+        }
+
+        // 현재 최솟값/최댓값인 회원이 빠졌으면 그 팀만 다시 계산한다.
+        if (delta.removedMin != null) {
+            queryFactory.update(teamStatistics)
+                    .set(teamStatistics.minAge, JPAExpressions.select(member.age.min()).from(member).where(inTeam()))
+                    .where(teamStatistics.teamId.eq(teamId), teamStatistics.minAge.goe(delta.removedMin))
+                    .execute();
+            queryFactory.update(teamStatistics)
+                    .set(teamStatistics.maxAge, JPAExpressions.select(member.age.max()).from(member).where(inTeam()))
+                    .where(teamStatistics.teamId.eq(teamId), teamStatistics.maxAge.loe(delta.removedMax))
+                    .execute();
+        }
+        if (delta.addedMin != null) {
+            queryFactory.update(teamStatistics)
+                    .set(teamStatistics.minAge, delta.addedMin)
+                    .where(teamStatistics.teamId.eq(teamId),
+                            teamStatistics.minAge.isNull().or(teamStatistics.minAge.gt(delta.addedMin)))
+                    .execute();
+            queryFactory.update(teamStatistics)
+                    .set(teamStatistics.maxAge, delta.addedMax)
+                    .where(teamStatistics.teamId.eq(teamId),
+                            teamStatistics.maxAge.isNull().or(teamStatistics.maxAge.lt(delta.addedMax)))
+                    .execute();
+        }
+    }
+
+    /**
+     * member 테이블에서 팀 통계를 다시 계산한다. teamId 가 null 이면 모든 통계 행
+     */
+    static void recompute(JPAQueryFactory queryFactory, Long teamId) {
+        queryFactory.update(teamStatistics)
+                .set(teamStatistics.memberCount, JPAExpressions.select(member.count()).from(member).where(inTeam()))
+                .set(teamStatistics.ageSum, JPAExpressions
+                        .select(Expressions.numberTemplate(Long.class, "coalesce(sum({0}), 0)", member.age))
+                        .from(member).where(inTeam()))
+                .set(teamStatistics.minAge, JPAExpressions.select(member.age.min()).from(member).where(inTeam()))
+                .set(teamStatistics.maxAge, JPAExpressions.select(member.age.max()).from(member).where(inTeam()))
+                .where(teamId != null ? teamStatistics.teamId.eq(teamId) : null)
+                .execute();
+    }
+
+    private static Predicate inTeam() {
+        return member.team.id.eq(teamStatistics.teamId);
+    }
+
+    private Delta delta(Long teamId) {
+        return deltas.computeIfAbsent(teamId, id -> new Delta());
+    }
+
+    private static class Delta {
+
+        private long count;
+        private long ageSum;
+        private Integer addedMin;
+        private Integer addedMax;
+        private Integer removedMin;
+        private Integer removedMax;
+        private boolean deleted;
+
+        void add(int age) {
+            count++;
+            ageSum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void remove(int age) {
+            count--;
+            ageSum -= age;
+            removedMin = removedMin == null ? age : Math.min(removedMin, age);
+            removedMax = removedMax == null ? age : Math.max(removedMax, age);
+        }
+    }
+}
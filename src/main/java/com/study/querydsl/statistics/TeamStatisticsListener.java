@@ -0,0 +1,123 @@
+package com.study.querydsl.statistics;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Member 추가/삭제/팀 이동, Team 추가/삭제를 보고 트랜잭션별 TeamStatisticsChanges 에 모은다.
+ * JPQL 벌크 연산은 이벤트가 발생하지 않으므로 TeamStatisticsService.reconcile() 로 맞춘다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamStatisticsListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final TeamStatisticsCache cache;
+    private final ConcurrentMap<EventSource, TeamStatisticsChanges> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event.getState()[index(event.getPersister(), "team")]);
+            if (teamId != null) {
+                changes(event.getSession()).added(teamId, age(event.getPersister(), event.getState()));
+            }
+        } else if (event.getEntity() instanceof Team) {
+            changes(event.getSession()).teamCreated((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Object[] oldState = event.getOldState();
+        Object[] state = event.getState();
+        if (oldState == null) {
+            changes(event.getSession()).recomputeAll();
+            return;
+        }
+
+        Long oldTeamId = teamId(oldState[index(persister, "team")]);
+        Long newTeamId = teamId(state[index(persister, "team")]);
+        int oldAge = age(persister, oldState);
+        int newAge = age(persister, state);
+        if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+            return;
+        }
+        TeamStatisticsChanges changes = changes(event.getSession());
+        if (oldTeamId != null) {
+            changes.removed(oldTeamId, oldAge);
+        }
+        if (newTeamId != null) {
+            changes.added(newTeamId, newAge);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event.getDeletedState()[index(event.getPersister(), "team")]);
+            if (teamId != null) {
+                changes(event.getSession()).removed(teamId, age(event.getPersister(), event.getDeletedState()));
+            }
+        } else if (event.getEntity() instanceof Team) {
+            changes(event.getSession()).teamDeleted((Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 세션(트랜잭션)마다 하나만 만들어서 커밋 전/후 처리에 등록한다.
+     */
+    private TeamStatisticsChanges changes(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            TeamStatisticsChanges changes = new TeamStatisticsChanges(cache, () -> pending.remove(s));
+            ActionQueue actionQueue = s.getActionQueue();
+            actionQueue.registerProcess((BeforeTransactionCompletionProcess) changes);
+            actionQueue.registerProcess((AfterTransactionCompletionProcess) changes);
+            return changes;
+        });
+    }
+
+    private static int index(EntityPersister persister, String property) {
+        return persister.getEntityMetamodel().getPropertyIndex(property);
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[index(persister, "age")];
+    }
+
+    /**
+     * 프록시를 초기화하지 않고 팀 id 를 꺼낸다.
+     */
+    private static Long teamId(Object team) {
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return team != null ? ((Team) team).getId() : null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.study.querydsl.statistics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 요약 테이블이 실제 집계와 어긋나지 않았는지 주기적으로 확인하고 고친다.
+ * (벌크 JPQL, 직접 실행한 SQL 처럼 이벤트 리스너를 거치지 않은 변경)
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "querydsl.team-statistics", name = "reconcile-enabled", matchIfMissing = true)
+public class TeamStatisticsReconciler {
+
+    private final TeamStatisticsService teamStatisticsService;
+
+    @Scheduled(initialDelayString = "${querydsl.team-statistics.reconcile-interval:PT10M}",
+            fixedDelayString = "${querydsl.team-statistics.reconcile-interval:PT10M}")
+    public void reconcile() {
+        teamStatisticsService.reconcile();
+    }
+}
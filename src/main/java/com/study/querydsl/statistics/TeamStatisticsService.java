@@ -0,0 +1,151 @@
+package com.study.querydsl.statistics;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.TeamStatisticsDto;
+import com.study.querydsl.entity.TeamStatistics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static com.study.querydsl.entity.QTeamStatistics.teamStatistics;
+
+/**
+ * 팀별 회원 수, 나이 합/평균/최소/최대 조회
+ * member 를 group by 하지 않고 team_statistics(메모리 캐시 우선)를 읽는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TeamStatisticsService {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TeamStatisticsCache cache;
+
+    public Optional<TeamStatisticsDto> find(Long teamId) {
+        Optional<TeamStatisticsDto> cached = cache.get(teamId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        long generation = cache.generation();
+        TeamStatistics statistics = queryFactory
+                .selectFrom(teamStatistics)
+                .where(teamStatistics.teamId.eq(teamId))
+                .fetchOne();
+        if (statistics == null) {
+            return Optional.empty();
+        }
+        TeamStatisticsDto result = TeamStatisticsDto.of(statistics);
+        cache.put(result, generation);
+        return Optional.of(result);
+    }
+
+    public List<TeamStatisticsDto> findAll() {
+        Optional<List<TeamStatisticsDto>> cached = cache.getAll();
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long generation = cache.generation();
+        List<TeamStatisticsDto> result = queryFactory
+                .selectFrom(teamStatistics)
+                .orderBy(teamStatistics.teamId.asc())
+                .fetch()
+                .stream()
+                .map(TeamStatisticsDto::of)
+                .collect(Collectors.toList());
+        cache.putAll(result, generation);
+        return result;
+    }
+
+    /**
+     * 주어진 팀만 member 테이블에서 다시 계산한다. 벌크 JPQL 로 바꿔서 이벤트가 없지만 바뀐 팀을 알 때 쓴다.
+     * 팀 id 순서로 갱신하고, 커밋되면 그 팀들의 캐시를 비운다.
+     */
+    @Transactional
+    public void recompute(Collection<Long> teamIds) {
+        Set<Long> sorted = new TreeSet<>(teamIds);
+        sorted.forEach(teamId -> TeamStatisticsChanges.recompute(queryFactory, teamId));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidate(sorted);
+            }
+        });
+    }
+
+    /**
+     * 실제 집계(group by)와 요약 테이블을 비교해서 다른 팀을 고치고 고친 팀 수를 돌려준다.
+     * 통계 행을 먼저 잠그고 집계해서, 동시에 커밋되는 증분 갱신을 덮어쓰지 않게 한다.
+     */
+    @Transactional
+    public int reconcile() {
+        Map<Long, TeamStatistics> rows = queryFactory
+                .selectFrom(teamStatistics)
+                .orderBy(teamStatistics.teamId.asc())
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch()
+                .stream()
+                .collect(Collectors.toMap(TeamStatistics::getTeamId, s -> s, (a, b) -> a, LinkedHashMap::new));
+
+        List<Tuple> actual = queryFactory
+                .select(team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id)
+                .fetch();
+
+        int corrected = 0;
+        for (Tuple tuple : actual) {
+            Long teamId = tuple.get(team.id);
+            long memberCount = tuple.get(1, Number.class).longValue();
+            Number ageSum = tuple.get(2, Number.class);
+            long sum = ageSum != null ? ageSum.longValue() : 0;
+            Integer minAge = tuple.get(member.age.min());
+            Integer maxAge = tuple.get(member.age.max());
+
+            TeamStatistics row = rows.remove(teamId);
+            if (row == null) {
+                row = new TeamStatistics(teamId);
+                em.persist(row);
+            } else if (row.matches(memberCount, sum, minAge, maxAge)) {
+                continue;
+            }
+            row.overwrite(memberCount, sum, minAge, maxAge);
+            corrected++;
+        }
+        // 삭제된 팀의 통계
+        for (TeamStatistics orphan : rows.values()) {
+            em.remove(orphan);
+            corrected++;
+        }
+
+        if (corrected > 0) {
+            log.warn("team statistics reconciled: {} teams corrected", corrected);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidateAll();
+            }
+        });
+        return corrected;
+    }
+}
@@ -0,0 +1,326 @@
+package com.study.querydsl.writebehind;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.nearcache.ProjectionCache;
+import com.study.querydsl.snapshot.MemberSnapshotService;
+import com.study.querydsl.statistics.TeamStatisticsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static com.study.querydsl.entity.QMember.member;
+
+/**
+ * 같은 회원에 짧은 시간 몰리는 작은 변경(나이 수정, 팀 이동)을 모았다가 한 번에 쓴다.
+ * - 회원 id 별로 ConcurrentHashMap 에 합친다. (같은 필드는 마지막 값, 다른 필드는 둘 다)
+ *   엔티티를 읽거나 dirty checking 하지 않고, 같은 변경끼리 묶어 update member ... where id in (...) 로 실행한다.
+ * - flush-interval 마다, 또는 max-batch 만큼 쌓이면 작업 스레드 하나가 내보낸다.
+ *   배치는 한 번에 하나씩 커밋되고, 내보내는 중에 들어온 변경은 다음 배치로 가므로 회원마다 순서가 지켜진다.
+ * - 벌크 update 라 엔티티 이벤트가 없으므로 바뀐 팀의 통계, 회원 스냅샷, 프로젝션 캐시는 직접 갱신한다.
+ * - 배치가 실패하면 회원마다 따로 다시 실행해서 실패한 회원의 변경만 버린다. (future 는 예외로 끝난다)
+ * 내보내기 전에는 JPA 로 읽어도 바뀌기 전 값이 보인다.
+ */
+@Slf4j
+@Component
+public class MemberWriteBehindBuffer implements DisposableBean {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final TeamStatisticsService teamStatisticsService;
+    private final MemberSnapshotService memberSnapshotService;
+    private final ProjectionCache projectionCache;
+    private final WriteBehindProperties properties;
+
+    private final ConcurrentHashMap<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("member-write-behind-"));
+
+    private final Timer lag;
+    private final Timer flushTime;
+    private final Counter coalesced;
+    private final Counter written;
+    private final Counter statements;
+    private final Counter failed;
+
+    public MemberWriteBehindBuffer(EntityManager em, JPAQueryFactory queryFactory,
+                                   PlatformTransactionManager transactionManager,
+                                   TeamStatisticsService teamStatisticsService,
+                                   MemberSnapshotService memberSnapshotService,
+                                   ProjectionCache projectionCache,
+                                   WriteBehindProperties properties, MeterRegistry registry) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.teamStatisticsService = teamStatisticsService;
+        this.memberSnapshotService = memberSnapshotService;
+        this.projectionCache = projectionCache;
+        this.properties = properties;
+
+        Gauge.builder("querydsl.write-behind.pending", pending, Map::size)
+                .description("아직 내보내지 않은 회원 수")
+                .register(registry);
+        this.lag = Timer.builder("querydsl.write-behind.lag")
+                .description("변경을 처음 받은 때부터 커밋까지 걸린 시간")
+                .register(registry);
+        this.flushTime = Timer.builder("querydsl.write-behind.flush")
+                .description("배치 하나를 내보내는 시간")
+                .register(registry);
+        this.coalesced = Counter.builder("querydsl.write-behind.coalesced")
+                .description("이미 쌓인 변경에 합쳐진 변경 수")
+                .register(registry);
+        this.written = Counter.builder("querydsl.write-behind.written")
+                .description("커밋된 회원 수")
+                .register(registry);
+        this.statements = Counter.builder("querydsl.write-behind.statements")
+                .description("실행한 update 문 수")
+                .register(registry);
+        this.failed = Counter.builder("querydsl.write-behind.failed")
+                .description("실패해서 버린 회원 수")
+                .register(registry);
+
+        scheduleFlush();
+    }
+
+    public CompletableFuture<Void> changeAge(Long memberId, int age) {
+        return submit(memberId, new Change(age, false, null));
+    }
+
+    /**
+     * teamId 가 null 이면 팀에서 뺀다.
+     */
+    public CompletableFuture<Void> changeTeam(Long memberId, Long teamId) {
+        return submit(memberId, new Change(null, true, teamId));
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 지금까지 쌓인 변경을 모두 내보내고 내보낸 회원 수를 돌려준다.
+     */
+    public synchronized int flush() {
+        int total = 0;
+        while (!pending.isEmpty()) {
+            List<PendingUpdate> batch = drain(properties.getMaxBatch());
+            if (batch.isEmpty()) {
+                break;
+            }
+            write(batch);
+            total += batch.size();
+        }
+        return total;
+    }
+
+    private CompletableFuture<Void> submit(Long memberId, Change change) {
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        pending.compute(memberId, (id, current) -> {
+            if (current == null) {
+                current = new PendingUpdate(id, System.nanoTime());
+            } else {
+                coalesced.increment();
+            }
+            current.change = current.change == null ? change : current.change.then(change);
+            current.waiters.add(committed);
+            return current;
+        });
+        if (pending.size() >= properties.getMaxBatch() && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+        if (properties.getDurability() == WriteBehindProperties.Durability.SYNC) {
+            await(committed);
+        }
+        return committed;
+    }
+
+    private void await(CompletableFuture<Void> committed) {
+        try {
+            committed.get(properties.getSyncTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("write-behind batch not committed within " + properties.getSyncTimeout(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for write-behind commit", e);
+        }
+    }
+
+    /**
+     * 주기는 매번 설정에서 다시 읽는다.
+     */
+    private void scheduleFlush() {
+        if (flusher.isShutdown()) {
+            return;
+        }
+        flusher.schedule(() -> {
+            flushQuietly();
+            scheduleFlush();
+        }, properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("write-behind flush failed", e);
+        }
+    }
+
+    /**
+     * 꺼낸 회원은 맵에서 빠지므로, 이후 같은 회원의 변경은 새 항목으로 쌓여 다음 배치로 간다.
+     */
+    private List<PendingUpdate> drain(int max) {
+        List<PendingUpdate> batch = new ArrayList<>();
+        for (Long memberId : pending.keySet()) {
+            PendingUpdate update = pending.remove(memberId);
+            if (update != null) {
+                batch.add(update);
+            }
+            if (batch.size() >= max) {
+                break;
+            }
+        }
+        return batch;
+    }
+
+    private void write(List<PendingUpdate> batch) {
+        try {
+            flushTime.record(() -> transactionTemplate.executeWithoutResult(status -> execute(batch)));
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                log.warn("write-behind batch of {} members failed, retrying one by one: {}", batch.size(), e.toString());
+                batch.forEach(update -> write(Collections.singletonList(update)));
+            } else {
+                PendingUpdate update = batch.get(0);
+                log.error("write-behind update of member {} failed, dropped {}", update.memberId, update.change, e);
+                failed.increment();
+                update.waiters.forEach(waiter -> waiter.completeExceptionally(e));
+            }
+            return;
+        }
+
+        long now = System.nanoTime();
+        List<Long> memberIds = new ArrayList<>(batch.size());
+        for (PendingUpdate update : batch) {
+            memberIds.add(update.memberId);
+            lag.record(now - update.enqueuedAt, TimeUnit.NANOSECONDS);
+            update.waiters.forEach(waiter -> waiter.complete(null));
+        }
+        written.increment(batch.size());
+        memberSnapshotService.changed(memberIds, Collections.emptyList());
+    }
+
+    /**
+     * 같은 변경끼리 묶어서 update 하고, 회원이 있던 팀과 옮겨 간 팀의 통계를 다시 계산한다.
+     */
+    private void execute(List<PendingUpdate> batch) {
+        Map<Change, List<Long>> groups = batch.stream().collect(Collectors.groupingBy(update -> update.change,
+                LinkedHashMap::new, Collectors.mapping(update -> update.memberId, Collectors.toList())));
+        List<Long> memberIds = batch.stream().map(update -> update.memberId).collect(Collectors.toList());
+
+        Set<Long> teamIds = new HashSet<>();
+        for (Tuple tuple : queryFactory.select(member.id, member.team.id).from(member).where(member.id.in(memberIds)).fetch()) {
+            Long teamId = tuple.get(member.team.id);
+            if (teamId != null) {
+                teamIds.add(teamId);
+            }
+        }
+
+        projectionCache.invalidateAfterCommit(Member.class);
+        groups.forEach((change, ids) -> {
+            JPAUpdateClause update = queryFactory.update(member);
+            if (change.age != null) {
+                update.set(member.age, change.age);
+            }
+            if (change.teamChanged) {
+                if (change.teamId == null) {
+                    update.setNull(member.team);
+                } else {
+                    update.set(member.team, em.getReference(Team.class, change.teamId));
+                    teamIds.add(change.teamId);
+                }
+            }
+            update.where(member.id.in(ids)).execute();
+            statements.increment();
+        });
+        if (!teamIds.isEmpty()) {
+            teamStatisticsService.recompute(teamIds);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(properties.getSyncTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        flushQuietly();
+    }
+
+    /**
+     * 한 회원의 아직 내보내지 않은 변경, compute 안에서만 바꾼다.
+     */
+    private static class PendingUpdate {
+
+        private final Long memberId;
+        private final long enqueuedAt;
+        private final List<CompletableFuture<Void>> waiters = new ArrayList<>(1);
+        private Change change;
+
+        PendingUpdate(Long memberId, long enqueuedAt) {
+            this.memberId = memberId;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * 바꿀 값, 같은 Change 를 가진 회원끼리 update 문 하나로 묶는다.
+     */
+    @lombok.Value
+    private static class Change {
+
+        Integer age;
+        boolean teamChanged;
+        Long teamId;
+
+        Change then(Change next) {
+            return new Change(next.age != null ? next.age : age,
+                    teamChanged || next.teamChanged,
+                    next.teamChanged ? next.teamId : teamId);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.study.querydsl.writebehind;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.write-behind")
+public class WriteBehindProperties {
+
+    public enum Durability { ASYNC, SYNC }
+
+    /**
+     * 모아 둔 변경을 내보내는 주기
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * 트랜잭션 하나로 내보낼 최대 회원 수, 쌓인 회원이 이만큼 되면 주기를 기다리지 않고 내보낸다.
+     */
+    private int maxBatch = 500;
+
+    /**
+     * ASYNC 는 버퍼에 넣고 바로 돌아가고(서버가 죽으면 아직 내보내지 않은 변경은 없어진다),
+     * SYNC 는 그 변경이 들어간 배치가 커밋될 때까지 기다린다.
+     */
+    private Durability durability = Durability.ASYNC;
+
+    /**
+     * SYNC 에서 커밋을 기다리는 최대 시간
+     */
+    private Duration syncTimeout = Duration.ofSeconds(5);
+}
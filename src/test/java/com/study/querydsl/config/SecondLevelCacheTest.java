@@ -0,0 +1,141 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.TeamRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 2차 캐시는 커밋된 데이터만 담으므로 트랜잭션을 나눠서 확인한다.
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private Long teamId;
+    private Long memberId;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Member memberA = new Member("memberA", 10, teamA);
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(teamA);
+            em.persist(memberA);
+            em.persist(new Member("memberB", 20, teamA));
+        });
+        teamId = teamA.getId();
+        memberId = memberA.getId();
+
+        emf.getCache().evictAll();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void teamIsLoadedOnce() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId));
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId));
+
+        assertThat(statistics.getDomainDataRegionStatistics("team").getMissCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void lazyMemberTeamComesFromCache() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId));
+        statistics.clear();
+
+        String teamName = transactionTemplate.execute(status ->
+                em.find(Member.class, memberId).getTeam().getName());
+
+        assertThat(teamName).isEqualTo("teamA");
+        assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void membersCollectionIsCachedAndEvictedOnChange() {
+        assertThat(countMembers()).isEqualTo(2);
+        assertThat(countMembers()).isEqualTo(2);
+        assertThat(statistics.getDomainDataRegionStatistics("team.members").getHitCount()).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status ->
+                em.persist(new Member("memberC", 30, em.find(Team.class, teamId))));
+
+        assertThat(countMembers()).isEqualTo(3);
+    }
+
+    @Test
+    public void teamByNameUsesQueryCache() {
+        assertThat(teamRepository.findCachedByName("teamA")).isPresent();
+        assertThat(teamRepository.findCachedByName("teamA")).isPresent();
+
+        assertThat(statistics.getQueryRegionStatistics("team-by-name").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+
+        // team 테이블이 바뀌면 쿼리 캐시 결과를 쓰지 않는다.
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Team("teamB")));
+        assertThat(teamRepository.findCachedByName("teamB")).isPresent();
+        assertThat(teamRepository.findCachedByName("teamA")).isPresent();
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void regionMetrics() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId));
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId));
+
+        FunctionCounter hits = meterRegistry.find("cache.gets")
+                .tag("cache", "team")
+                .tag("result", "hit")
+                .functionCounter();
+        assertThat(hits).isNotNull();
+        assertThat(hits.count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.find("cache.evictions").tag("cache", "team").meter()).isNotNull();
+    }
+
+    private int countMembers() {
+        return transactionTemplate.execute(status -> em.find(Team.class, teamId).getMembers().size());
+    }
+}
@@ -1,6 +1,9 @@
 package com.study.querydsl.entity;
 
+import com.study.querydsl.support.SqlCountExtension;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
@@ -10,10 +13,12 @@ import javax.persistence.EntityManager;
 
 import java.util.List;
 
+import static com.study.querydsl.support.SqlCountExtension.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @Transactional
+@ExtendWith(SqlCountExtension.class)
 class MemberTest {
     
     @Autowired
@@ -48,4 +53,72 @@ class MemberTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void changeTeamDoesNotLoadMembersOfLargeTeam() {
+        Team large = new Team("large");
+        em.persist(large);
+        for (int i = 0; i < 1000; i++) {
+            em.persist(new Member("member" + i, i % 100, large));
+        }
+        Member newcomer = new Member("newcomer", 20, null);
+        em.persist(newcomer);
+        em.flush();
+        em.clear();
+
+        Team team = em.find(Team.class, large.getId());
+        Member member = em.find(Member.class, newcomer.getId());
+        resetSqlCount();
+
+        member.changeTeam(team);
+        em.flush();
+
+        // update member 한 번, team.members 를 읽는 select 는 없다.
+        assertSqlCount(1);
+        assertFalse(Hibernate.isInitialized(team.getMembers()));
+        assertEquals(1001, team.getMembers().size());
+    }
+
+    @Test
+    public void changeTeamKeepsLoadedMembersInSync() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member = new Member("member1", 10, teamA);
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        Team a = em.find(Team.class, teamA.getId());
+        Team b = em.find(Team.class, teamB.getId());
+        Member m = em.find(Member.class, member.getId());
+        assertEquals(1, a.getMembers().size());
+        assertEquals(0, b.getMembers().size());
+
+        m.changeTeam(b);
+
+        assertEquals(0, a.getMembers().size());
+        assertEquals(1, b.getMembers().size());
+        assertSame(m, b.getMembers().get(0));
+    }
+
+    @Test
+    public void changeTeamOnTeamProxyDoesNotLoadTeam() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member = new Member("member1", 10, null);
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        Team reference = em.getReference(Team.class, teamA.getId());
+        Member m = em.find(Member.class, member.getId());
+        resetSqlCount();
+
+        m.changeTeam(reference);
+        em.flush();
+
+        assertSqlCount(1);
+        assertFalse(Hibernate.isInitialized(reference));
+    }
+}
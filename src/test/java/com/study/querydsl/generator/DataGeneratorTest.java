@@ -0,0 +1,157 @@
+package com.study.querydsl.generator;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.TeamStatisticsDto;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.TeamRepository;
+import com.study.querydsl.statistics.TeamStatisticsCache;
+import com.study.querydsl.statistics.TeamStatisticsService;
+import com.study.querydsl.support.SqlCountExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.study.querydsl.entity.QItem.item;
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static com.study.querydsl.entity.QTeamStatistics.teamStatistics;
+import static com.study.querydsl.support.SqlCountExtension.*;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@ExtendWith(SqlCountExtension.class)
+class DataGeneratorTest {
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private TeamStatisticsService teamStatisticsService;
+
+    @Autowired
+    private TeamStatisticsCache teamStatisticsCache;
+
+    @Autowired
+    private DataGenerator dataGenerator;
+
+    @AfterEach
+    public void after() {
+        cleanUp();
+    }
+
+    @Test
+    public void generatesSkewedDistributions() {
+        GeneratedData result = dataGenerator.generate(spec(7));
+
+        assertThat(result.getTeamIds()).hasSize(20);
+        assertThat(result.getMembers()).isEqualTo(5000);
+        assertThat(result.getItems()).isEqualTo(300);
+        assertThat(queryFactory.selectFrom(member).fetchCount()).isEqualTo(5000);
+        assertThat(queryFactory.selectFrom(item).fetchCount()).isEqualTo(300);
+
+        List<Long> teamSizes = queryFactory
+                .select(member.count())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.id)
+                .orderBy(member.count().desc())
+                .fetch();
+        // Zipf(1.0), 20 팀: 가장 큰 팀은 가장 작은 팀의 약 20 배
+        assertThat(teamSizes.get(0)).isGreaterThan(teamSizes.get(teamSizes.size() - 1) * 8);
+
+        long nullNames = queryFactory.selectFrom(member).where(member.memberName.isNull()).fetchCount();
+        long noTeam = queryFactory.selectFrom(member).where(member.team.isNull()).fetchCount();
+        assertThat(nullNames).isBetween(150L, 350L);
+        assertThat(noTeam).isBetween(20L, 90L);
+
+        long twenties = queryFactory.selectFrom(member).where(member.age.between(20, 29)).fetchCount();
+        assertThat(twenties).isBetween(1100L, 1400L);
+        assertThat(queryFactory.select(member.age.max()).from(member).fetchOne()).isLessThan(100);
+
+        // 이벤트 없이 넣었지만 팀 통계는 맞춰져 있다.
+        long counted = teamStatisticsService.findAll().stream().mapToLong(TeamStatisticsDto::getMemberCount).sum();
+        assertThat(counted).isEqualTo(5000 - noTeam);
+    }
+
+    @Test
+    public void sameSeedGeneratesSameData() {
+        dataGenerator.generate(spec(7));
+        List<String> first = rows();
+        cleanUp();
+
+        dataGenerator.generate(spec(7));
+        List<String> second = rows();
+        cleanUp();
+
+        dataGenerator.generate(spec(8));
+        List<String> other = rows();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(other).isNotEqualTo(first);
+    }
+
+    @Test
+    public void insertsInJdbcBatches() {
+        DataGeneratorProperties spec = spec(7);
+        spec.setTeams(0);
+        spec.setItems(0);
+        spec.setMembers(2000);
+        spec.setCommitSize(1000);
+        resetSqlCount();
+
+        dataGenerator.generate(spec);
+
+        // batch_size(500) 단위로 묶이므로 insert 는 행 수보다 훨씬 적다. (시퀀스 조회 포함)
+        assertThat(sqlScope().getCount()).isLessThan(2000 / 50 + 20);
+        assertThat(queryFactory.selectFrom(member).fetchCount()).isEqualTo(2000);
+    }
+
+    private static DataGeneratorProperties spec(long seed) {
+        DataGeneratorProperties spec = new DataGeneratorProperties();
+        spec.setSeed(seed);
+        spec.setTeams(20);
+        spec.setMembers(5000);
+        spec.setItems(300);
+        spec.setNullNameRatio(0.05);
+        spec.setCommitSize(1200);
+        return spec;
+    }
+
+    private List<String> rows() {
+        return queryFactory
+                .select(member.memberName, member.age, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.id.asc())
+                .fetch()
+                .stream()
+                .map(Tuple::toString)
+                .collect(Collectors.toList());
+    }
+
+    private void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(item).execute();
+            queryFactory.delete(teamStatistics).execute();
+        });
+        teamStatisticsCache.invalidateAll();
+    }
+}
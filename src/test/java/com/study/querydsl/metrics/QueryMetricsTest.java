@@ -0,0 +1,147 @@
+package com.study.querydsl.metrics;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private QueryMetrics queryMetrics;
+
+    @Autowired
+    private QueryMetricsProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Duration slowThreshold;
+
+    @BeforeEach
+    public void before() {
+        slowThreshold = properties.getSlowThreshold();
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.flush();
+        em.clear();
+        queryMetrics.reset();
+    }
+
+    @AfterEach
+    public void after() {
+        properties.setSlowThreshold(slowThreshold);
+        properties.setEnabled(true);
+    }
+
+    @Test
+    public void sameQueryShapeSharesOneFingerprint() {
+        String jpql = queryFactory.selectFrom(member).where(member.age.goe(20)).toString();
+        QueryShape shape = queryMetrics.shape(jpql);
+        long before = shape.getExecution().count();
+
+        List<Member> adults = queryFactory.selectFrom(member).where(member.age.goe(20)).fetch();
+        Member first = queryFactory.selectFrom(member).where(member.age.goe(30)).fetchFirst();
+
+        assertThat(adults).hasSize(2);
+        assertThat(first.getMemberName()).isEqualTo("member3");
+        assertThat(shape.getExecution().count()).isEqualTo(before + 2);
+        assertThat(queryMetrics.shape("  " + jpql.replace(" ", "\n  "))).isSameAs(shape);
+
+        Timer timer = meterRegistry.get("querydsl.query.execution").tag("shape", shape.getFingerprint()).timer();
+        assertThat(timer).isSameAs(shape.getExecution());
+        assertThat(queryMetrics.stats())
+                .filteredOn(s -> s.getFingerprint().equals(shape.getFingerprint()))
+                .singleElement()
+                .satisfies(s -> assertThat(s.getJpql())
+                        .isEqualTo("select member1 from Member member1 where member1.age >= ?1"));
+    }
+
+    @Test
+    public void recordsRowsAndHydratedEntities() {
+        String jpql = queryFactory.selectFrom(member).join(member.team, team).fetchJoin()
+                .where(team.name.eq("teamA")).toString();
+        QueryShape shape = queryMetrics.shape(jpql);
+        double rowsBefore = shape.getRows().totalAmount();
+        double hydratedBefore = shape.getHydrated().totalAmount();
+
+        queryFactory.selectFrom(member).join(member.team, team).fetchJoin()
+                .where(team.name.eq("teamA")).fetch();
+        // 이미 영속성 컨텍스트에 있는 엔티티는 다시 세지 않는다.
+        queryFactory.selectFrom(member).join(member.team, team).fetchJoin()
+                .where(team.name.eq("teamA")).fetch();
+
+        assertThat(shape.getRows().totalAmount() - rowsBefore).isEqualTo(4);
+        // member1, member2, teamA
+        assertThat(shape.getHydrated().totalAmount() - hydratedBefore).isEqualTo(3);
+    }
+
+    @Test
+    public void slowQueriesAreCapturedWithPlan() {
+        properties.setSlowThreshold(Duration.ZERO);
+
+        queryFactory.select(member.memberName).from(member).where(member.age.between(10, 20)).fetch();
+
+        List<SlowQuery> slowQueries = queryMetrics.slowQueries();
+        assertThat(slowQueries).hasSize(1);
+        SlowQuery slowQuery = slowQueries.get(0);
+        assertThat(slowQuery.getRows()).isEqualTo(2);
+        assertThat(slowQuery.getStatements()).isEqualTo(1);
+        assertThat(slowQuery.getJpql()).contains("between ?1 and ?2");
+        assertThat(slowQuery.getSql()).contains("between ? and ?").doesNotContain("10");
+        assertThat(slowQuery.getPlan()).isNull();
+
+        assertThat(queryMetrics.explainSlowQueries()).singleElement()
+                .satisfies(q -> assertThat(q.getPlan()).isNotEmpty());
+    }
+
+    @Test
+    public void fingerprintIsSixteenHexDigits() {
+        String fingerprint = QueryShape.fingerprint("select member1 from Member member1");
+
+        assertThat(fingerprint).matches("[0-9a-f]{16}");
+        assertThat(QueryShape.fingerprint(" select member1\n from Member member1 ")).isEqualTo(fingerprint);
+        assertThat(QueryShape.fingerprint("select team1 from Team team1")).isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    public void disabledMetricsRecordNothing() {
+        properties.setEnabled(false);
+        properties.setSlowThreshold(Duration.ZERO);
+        String jpql = queryFactory.selectFrom(team).where(team.name.startsWith("team")).toString();
+        long before = queryMetrics.shape(jpql).getExecution().count();
+
+        assertThat(queryFactory.selectFrom(team).where(team.name.startsWith("team")).fetch()).hasSize(2);
+
+        assertThat(queryMetrics.shape(jpql).getExecution().count()).isEqualTo(before);
+        assertThat(queryMetrics.slowQueries()).isEmpty();
+    }
+}
@@ -0,0 +1,221 @@
+package com.study.querydsl.nearcache;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.QMemberDto;
+import com.study.querydsl.dto.UserDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.TeamRepository;
+import com.study.querydsl.service.MemberBulkService;
+import com.study.querydsl.statistics.TeamStatisticsCache;
+import com.study.querydsl.support.SqlCountExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeamStatistics.teamStatistics;
+import static com.study.querydsl.support.SqlCountExtension.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 캐시는 커밋된 변경으로만 지워지므로 데이터를 커밋하고 테스트가 끝나면 지운다.
+ */
+@SpringBootTest
+@ExtendWith(SqlCountExtension.class)
+class ProjectionCacheTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private TeamStatisticsCache teamStatisticsCache;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    @Autowired
+    private ProjectionCache projectionCache;
+
+    private Long teamAId;
+    private Long teamBId;
+    private Long member1Id;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("cacheA");
+        Team teamB = new Team("cacheB");
+        Member member1 = new Member("cache1", 10, teamA);
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(member1);
+            em.persist(new Member("cache2", 20, teamA));
+            em.persist(new Member("cache3", 30, teamB));
+        });
+        teamAId = teamA.getId();
+        teamBId = teamB.getId();
+        member1Id = member1.getId();
+        projectionCache.invalidateAll();
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> queryFactory.delete(teamStatistics).execute());
+        teamStatisticsCache.invalidateAll();
+        projectionCache.invalidateAll();
+    }
+
+    @Test
+    public void repeatedLookupIsServedFromCache() {
+        List<MemberDto> first = memberRepository.findMemberDtoByName("cache1");
+        resetSqlCount();
+
+        List<MemberDto> second = memberRepository.findMemberDtoByName("cache1");
+
+        assertSqlCount(0);
+        assertThat(second).isSameAs(first).containsExactly(new MemberDto("cache1", 10));
+        assertThatThrownBy(() -> second.add(new MemberDto())).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void committedChangeInvalidatesOnlyAffectedEntries() {
+        memberRepository.findMemberDtoByName("cache1");
+        memberRepository.findMemberDtoByName("cache3");
+
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, member1Id).changeTeam(em.getReference(Team.class, teamBId)));
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Member("cache1", 40, null)));
+        resetSqlCount();
+
+        assertThat(memberRepository.findMemberDtoByName("cache3")).containsExactly(new MemberDto("cache3", 30));
+        assertSqlCount(0);
+        assertThat(memberRepository.findMemberDtoByName("cache1"))
+                .containsExactly(new MemberDto("cache1", 10), new MemberDto("cache1", 40));
+        assertSqlCount(1);
+    }
+
+    @Test
+    public void rolledBackChangeKeepsEntries() {
+        memberRepository.findMemberDtoByName("cache1");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("cache1", 50, null));
+            em.flush();
+            status.setRollbackOnly();
+        });
+        resetSqlCount();
+
+        assertThat(memberRepository.findMemberDtoByName("cache1")).containsExactly(new MemberDto("cache1", 10));
+        assertSqlCount(0);
+    }
+
+    @Test
+    public void ownUncommittedChangesBypassCache() {
+        memberRepository.findMemberDtoByName("cache1");
+
+        List<MemberDto> inTransaction = transactionTemplate.execute(status -> {
+            em.persist(new Member("cache1", 60, null));
+            return memberRepository.findMemberDtoByName("cache1");
+        });
+
+        assertThat(inTransaction).hasSize(2);
+        assertThat(memberRepository.findMemberDtoByName("cache1")).hasSize(2);
+    }
+
+    @Test
+    public void transactionStartedBeforeCommitDoesNotPopulateCache() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // 다른 트랜잭션의 커밋보다 먼저 시작한 트랜잭션은 (REPEATABLE READ 라면) 커밋 전 값을 읽을 수 있다.
+        readOnly.executeWithoutResult(status -> {
+            CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(s ->
+                    em.persist(new Member("cache1", 70, null)))).join();
+            memberRepository.findMemberDtoByName("cache1");
+        });
+        resetSqlCount();
+
+        assertThat(memberRepository.findMemberDtoByName("cache1")).hasSize(2);
+        assertSqlCount(1);
+        assertThat(memberRepository.findMemberDtoByName("cache1")).hasSize(2);
+        assertSqlCount(1);
+    }
+
+    @Test
+    public void readWriteTransactionBypassesCache() {
+        memberRepository.findMemberDtoByName("cache1");
+        resetSqlCount();
+
+        transactionTemplate.executeWithoutResult(status -> memberRepository.findMemberDtoByName("cache1"));
+
+        assertSqlCount(1);
+    }
+
+    @Test
+    public void bulkUpdateInvalidatesEntriesOfEntity() {
+        assertThat(memberRepository.findUserDtoByName("cache2")).containsExactly(new UserDto("cache2", 30));
+        memberRepository.findMemberDtoByName("cache2");
+
+        memberBulkService.addAge(member.team.id.eq(teamAId), 100);
+
+        assertThat(memberRepository.findMemberDtoByName("cache2")).containsExactly(new MemberDto("cache2", 120));
+        assertThat(memberRepository.findUserDtoByName("cache2")).containsExactly(new UserDto("cache2", 120));
+    }
+
+    @Test
+    public void anyRowEntryIsInvalidatedByAnyMemberChange() {
+        memberRepository.findUserDtoByName("cache1");
+
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Member("other", 99, null)));
+
+        assertThat(memberRepository.findUserDtoByName("cache1")).containsExactly(new UserDto("cache1", 99));
+    }
+
+    @Test
+    public void sameJpqlWithDifferentProjectionIsDifferentEntry() {
+        CacheTag tag = CacheTag.of(Member.class, "memberName", "cache1");
+        List<MemberDto> members = projectionCache.fetch(queryFactory
+                .select(new QMemberDto(member.memberName, member.age))
+                .from(member)
+                .where(member.memberName.eq("cache1")), tag);
+        List<UserDto> users = projectionCache.fetch(queryFactory
+                .select(Projections.constructor(UserDto.class, member.memberName, member.age))
+                .from(member)
+                .where(member.memberName.eq("cache1")), tag);
+
+        assertThat(members).containsExactly(new MemberDto("cache1", 10));
+        assertThat(users).containsExactly(new UserDto("cache1", 10));
+        assertThatThrownBy(() -> projectionCache.fetch(queryFactory.selectFrom(member)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
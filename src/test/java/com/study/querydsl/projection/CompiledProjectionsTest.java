@@ -0,0 +1,101 @@
+package com.study.querydsl.projection;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.UserDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.QMember;
+import com.study.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class CompiledProjectionsTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("memberA", 10, teamA));
+        em.persist(new Member("memberB", 20, teamA));
+        em.persist(new Member(null, 30, null));
+    }
+
+    @Test
+    public void beanMatchesProjectionsFields() {
+        QMember memberSub = new QMember("memberSub");
+
+        List<UserDto> compiled = queryFactory
+                .select(CompiledProjections.bean(UserDto.class,
+                        member.memberName.as("name"),
+                        ExpressionUtils.as(JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub), "age")))
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        List<UserDto> reflective = queryFactory
+                .select(Projections.fields(UserDto.class,
+                        member.memberName.as("name"),
+                        ExpressionUtils.as(JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub), "age")))
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        assertThat(compiled).isEqualTo(reflective);
+        assertThat(compiled).extracting("age").containsOnly(30);
+    }
+
+    @Test
+    public void constructorMatchesProjectionsConstructor() {
+        List<MemberDto> compiled = queryFactory
+                .select(CompiledProjections.constructor(MemberDto.class, member.memberName, member.age))
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        assertThat(compiled).extracting("memberName").containsExactly("memberA", "memberB", null);
+        assertThat(compiled).extracting("age").containsExactly(10, 20, 30);
+    }
+
+    @Test
+    public void mapperIsCompiledOncePerShape() {
+        CompiledProjection<UserDto> first = CompiledProjections.bean(UserDto.class, member.memberName.as("name"), member.age);
+        int cached = CompiledProjections.cachedMappers();
+        CompiledProjection<UserDto> second = CompiledProjections.bean(UserDto.class, member.memberName.as("name"), member.age);
+
+        assertThat(second.getMapper()).isSameAs(first.getMapper());
+        assertThat(CompiledProjections.cachedMappers()).isEqualTo(cached);
+        assertThat(second.newInstance("memberA", 10)).isEqualTo(new UserDto("memberA", 10));
+        assertThat(second.newInstance(null, null)).isEqualTo(new UserDto(null, 0));
+    }
+
+    @Test
+    public void unknownPropertyFails() {
+        assertThatThrownBy(() -> CompiledProjections.bean(UserDto.class, member.memberName))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("memberName");
+    }
+}
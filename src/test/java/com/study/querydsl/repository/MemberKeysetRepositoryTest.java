@@ -0,0 +1,97 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.KeysetPage;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberKeysetRepositoryTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MemberKeysetRepository memberKeysetRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + (i % 4), 10 + i, teamA));
+        }
+        em.persist(new Member(null, 100, null));
+        em.persist(new Member(null, 200, null));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void forwardMatchesOrderBy() {
+        List<Member> expected = em.createQuery(
+                "select m from Member m order by m.memberName desc nulls last, m.id desc", Member.class)
+                .getResultList();
+
+        List<Member> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<Member> page = memberKeysetRepository.findPage("memberName desc, id desc", cursor, 5);
+            walked.addAll(page.getContent());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(walked.stream().map(Member::getId).collect(Collectors.toList()))
+                .containsExactlyElementsOf(expected.stream().map(Member::getId).collect(Collectors.toList()));
+        assertThat(walked.get(walked.size() - 1).getMemberName()).isNull();
+    }
+
+    @Test
+    public void backwardReturnsPreviousPage() {
+        KeysetPage<Member> first = memberKeysetRepository.findPage("age asc", null, 4);
+        KeysetPage<Member> second = memberKeysetRepository.findPage("age asc", first.getNextCursor(), 4);
+        KeysetPage<Member> back = memberKeysetRepository.findPage("age asc", second.getPrevCursor(), 4);
+
+        assertThat(first.hasPrev()).isFalse();
+        assertThat(second.getContent()).extracting("age").containsExactly(14, 15, 16, 17);
+        assertThat(back.getContent()).extracting("age").containsExactly(10, 11, 12, 13);
+        assertThat(back.hasPrev()).isFalse();
+        assertThat(back.hasNext()).isTrue();
+    }
+
+    @Test
+    public void backwardOverNullNames() {
+        KeysetPage<Member> page = memberKeysetRepository.findPage("memberName asc", null, 11);
+        KeysetPage<Member> last = memberKeysetRepository.findPage("memberName asc", page.getNextCursor(), 11);
+        KeysetPage<Member> back = memberKeysetRepository.findPage("memberName asc", last.getPrevCursor(), 2);
+
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.getContent().get(0).getMemberName()).isNull();
+        assertThat(back.getContent()).extracting("memberName").containsExactly("member3", null);
+    }
+
+    @Test
+    public void cursorFromOtherSortIsRejected() {
+        KeysetPage<Member> page = memberKeysetRepository.findPage("age desc", null, 2);
+
+        assertThatThrownBy(() -> memberKeysetRepository.findPage("age asc", page.getNextCursor(), 2))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+}
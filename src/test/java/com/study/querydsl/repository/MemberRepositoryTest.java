@@ -0,0 +1,160 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 동시 count 는 별도 커넥션에서 실행되므로 데이터를 커밋하고 테스트가 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberRepositoryTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("memberA", 10, teamA));
+            em.persist(new Member("memberB", 20, teamA));
+            em.persist(new Member("memberC", 30, teamB));
+            em.persist(new Member("memberD", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+        condition.setTeamName("teamB");
+
+        assertThat(memberRepository.search(condition))
+                .extracting("memberName")
+                .containsExactlyInAnyOrder("memberC", "memberD");
+    }
+
+    @Test
+    public void searchPageCountsOnlyWhenNeeded() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        statistics.clear();
+        Page<MemberTeamDto> whole = memberRepository.searchPage(condition, PageRequest.of(0, 10));
+        assertThat(whole.getTotalElements()).isEqualTo(4);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+
+        statistics.clear();
+        Page<MemberTeamDto> first = memberRepository.searchPage(condition,
+                PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age")));
+        assertThat(first.getContent()).extracting("memberName")
+                .containsExactly("memberD", "memberC", "memberB");
+        assertThat(first.getTotalElements()).isEqualTo(4);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void searchPageConcurrently() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Page<MemberTeamDto> result = memberRepository.searchPageConcurrently(condition, PageRequest.of(0, 1));
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getTotalPages()).isEqualTo(2);
+    }
+
+    @Test
+    public void teamSearchPage() {
+        Page<Team> result = teamRepository.searchPage("team", PageRequest.of(1, 1, Sort.by("name")));
+
+        assertThat(result.getContent()).extracting("name").containsExactly("teamB");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void searchReusesPreparedQueryPerConditionShape() {
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("teamA");
+        teamA.setAgeGoe(15);
+        MemberSearchCondition teamB = new MemberSearchCondition();
+        teamB.setTeamName("teamB");
+        teamB.setAgeGoe(35);
+        MemberSearchCondition byName = new MemberSearchCondition();
+        byName.setMemberName("memberA");
+
+        double hitsBefore = preparedQueryCache("hit");
+        double missesBefore = preparedQueryCache("miss");
+        double planHitsBefore = planCache("hit");
+
+        assertThat(memberRepository.search(teamA)).extracting("memberName").containsExactly("memberB");
+        assertThat(memberRepository.search(teamB)).extracting("memberName").containsExactly("memberD");
+        assertThat(memberRepository.search(byName)).extracting("memberName").containsExactly("memberA");
+        assertThat(memberRepository.search(new MemberSearchCondition())).hasSize(4);
+
+        double hits = preparedQueryCache("hit") - hitsBefore;
+        double misses = preparedQueryCache("miss") - missesBefore;
+        assertThat(hits + misses).isEqualTo(4);
+        assertThat(hits).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("querydsl.prepared-query.shapes").tag("query", "member.search.id").gauge().value())
+                .isGreaterThanOrEqualTo(3);
+        // teamA 와 teamB 는 JPQL 이 같아서 플랜을 다시 만들지 않는다.
+        assertThat(planCache("hit") - planHitsBefore).isGreaterThanOrEqualTo(1);
+    }
+
+    private double preparedQueryCache(String result) {
+        return meterRegistry.get("querydsl.prepared-query.cache")
+                .tag("query", "member.search.id").tag("result", result)
+                .functionCounter().count();
+    }
+
+    private double planCache(String result) {
+        return meterRegistry.get("querydsl.prepared-query.plan-cache").tag("result", result).functionCounter().count();
+    }
+}
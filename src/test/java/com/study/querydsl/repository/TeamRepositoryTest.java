@@ -0,0 +1,129 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.support.SqlCountExtension;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static com.study.querydsl.entity.QTeam.team;
+import static com.study.querydsl.support.SqlCountExtension.*;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+@ExtendWith({SqlCountExtension.class, OutputCaptureExtension.class})
+class TeamRepositoryTest {
+
+    private static final int TEAMS = 12;
+    private static final int MEMBERS_PER_TEAM = 10;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void before() {
+        for (int t = 0; t < TEAMS; t++) {
+            Team paged = new Team(String.format("paged%02d", t));
+            em.persist(paged);
+            for (int m = 0; m < MEMBERS_PER_TEAM; m++) {
+                em.persist(new Member(paged.getName() + "-member" + m, m, paged));
+            }
+        }
+        em.flush();
+        em.clear();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        resetSqlCount();
+    }
+
+    @Test
+    public void pagingOverCollectionFetchFailsInsteadOfPaginatingInMemory() {
+        assertThatThrownBy(() -> queryFactory
+                .selectFrom(team)
+                .leftJoin(team.members).fetchJoin()
+                .where(team.name.startsWith("paged"))
+                .limit(5)
+                .fetch())
+                .hasStackTraceContaining("In memory pagination was about to be applied");
+    }
+
+    @Test
+    public void searchPageWithMembersLoadsOnlyThePage(CapturedOutput output) {
+        Page<Team> page = teamRepository.searchPageWithMembers("paged",
+                PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "name")));
+
+        assertThat(page.getContent()).extracting("name")
+                .containsExactly("paged06", "paged05", "paged04", "paged03", "paged02");
+        assertThat(page.getTotalElements()).isEqualTo(TEAMS);
+        assertThat(page.getContent()).allSatisfy(t -> {
+            assertThat(Hibernate.isInitialized(t.getMembers())).isTrue();
+            assertThat(t.getMembers()).hasSize(MEMBERS_PER_TEAM);
+        });
+        // id 페이지, fetch join, count
+        assertSqlCount(3);
+        // 이번 페이지의 팀 5개와 그 회원만 읽는다.
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(5 + 5 * MEMBERS_PER_TEAM);
+        assertThat(output).doesNotContain("HHH000104");
+    }
+
+    /**
+     * 공유 리포지토리는 설정값(500) 그대로 두고, IN 절 나누기는 따로 만든 인스턴스로 확인한다.
+     */
+    @Test
+    public void idsAreChunkedAndOrderIsKept() {
+        TeamRepositoryImpl chunked = new TeamRepositoryImpl();
+        context.getAutowireCapableBeanFactory().autowireBean(chunked);
+        chunked.setInChunkSize(2);
+
+        Page<Team> page = chunked.searchPageWithMembers("paged", PageRequest.of(0, 5, Sort.by("name")));
+
+        assertThat(page.getContent()).extracting("name")
+                .containsExactly("paged00", "paged01", "paged02", "paged03", "paged04");
+        assertThat(page.getContent()).allSatisfy(t -> assertThat(t.getMembers()).hasSize(MEMBERS_PER_TEAM));
+        // id 페이지, fetch join 3번 (2 + 2 + 1), count
+        assertSqlCount(5);
+    }
+
+    @Test
+    public void searchPageLoadsMembersInBatches() {
+        Page<Team> page = teamRepository.searchPage("paged", PageRequest.of(0, 10, Sort.by("name")));
+
+        int members = page.getContent().stream().mapToInt(t -> t.getMembers().size()).sum();
+
+        assertThat(members).isEqualTo(10 * MEMBERS_PER_TEAM);
+        // 본문, count, members 한 번 (@BatchSize)
+        assertSqlCount(3);
+    }
+}
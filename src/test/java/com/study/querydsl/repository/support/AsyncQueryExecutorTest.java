@@ -0,0 +1,206 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDashboardDto;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.TeamRepository;
+import com.study.querydsl.service.MemberDashboardService;
+import com.study.querydsl.sql.SqlStatementRecorder;
+import com.study.querydsl.sql.SqlStatementScope;
+import com.study.querydsl.statistics.TeamStatisticsCache;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeamStatistics.teamStatistics;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 비동기 쿼리는 다른 스레드/트랜잭션에서 실행되므로 데이터를 커밋하고 테스트가 끝나면 지운다.
+ */
+@SpringBootTest
+class AsyncQueryExecutorTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private MemberDashboardService memberDashboardService;
+
+    @Autowired
+    private TeamStatisticsCache teamStatisticsCache;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> queryFactory.delete(teamStatistics).execute());
+        teamStatisticsCache.invalidateAll();
+    }
+
+    @Test
+    public void runsConcurrentlyInOwnTransactions() {
+        AsyncQueryExecutor executor = new AsyncQueryExecutor(queryFactory, transactionManager, 3, Duration.ofSeconds(1));
+        Set<Object> sessions = ConcurrentHashMap.newKeySet();
+        try {
+            long start = System.nanoTime();
+            List<CompletableFuture<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(executor.query(qf -> {
+                    assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+                    assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+                    sessions.add(em.getDelegate());
+                    sleep(300);
+                    return qf.select(member.count()).from(member).fetchOne();
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertThat(futures).allSatisfy(f -> assertThat(f.join()).isEqualTo(3L));
+            assertThat(sessions).hasSize(3);
+            assertThat(elapsedMillis).isLessThan(800);
+            assertThat(executor.getAvailablePermits()).isEqualTo(3);
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void backPressure() {
+        AsyncQueryExecutor executor = new AsyncQueryExecutor(queryFactory, transactionManager, 1, Duration.ofMillis(100));
+        try {
+            CompletableFuture<Long> slow = executor.query(qf -> {
+                sleep(500);
+                return qf.select(member.count()).from(member).fetchOne();
+            });
+
+            assertThatThrownBy(() -> executor.query(qf -> 1))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(slow.join()).isEqualTo(3L);
+            assertThat(executor.query(qf -> 1).join()).isEqualTo(1);
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void failuresCompleteTheFuture() {
+        AsyncQueryExecutor executor = new AsyncQueryExecutor(queryFactory, transactionManager, 1, Duration.ofSeconds(1));
+        try {
+            CompletableFuture<Object> failed = executor.query(qf -> {
+                throw new IllegalStateException("boom");
+            });
+
+            assertThatThrownBy(failed::join).hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(executor.getAvailablePermits()).isEqualTo(1);
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void workerSqlCountsTowardCallerScope() {
+        AsyncQueryExecutor executor = new AsyncQueryExecutor(queryFactory, transactionManager, 1, Duration.ofSeconds(1));
+        try {
+            SqlStatementScope scope = SqlStatementRecorder.begin("caller");
+            try {
+                assertThat(executor.query(qf -> qf.select(member.count()).from(member).fetchOne()).join()).isEqualTo(3L);
+                assertThat(scope.getCount()).isEqualTo(1);
+            } finally {
+                SqlStatementRecorder.end(scope);
+            }
+            // 작업 스레드에는 범위가 남지 않는다.
+            assertThat(executor.query(qf -> SqlStatementRecorder.current()).join()).isNull();
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void maxConcurrencyFollowsPoolSize() throws Exception {
+        int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        AsyncQueryExecutor unwrapped = new AsyncQueryExecutor(queryFactory, transactionManager, dataSource,
+                0, 0, 2, Duration.ofSeconds(1));
+        AsyncQueryExecutor configured = new AsyncQueryExecutor(queryFactory, transactionManager, dataSource,
+                20, 0, 2, Duration.ofSeconds(1));
+        try {
+            assertThat(unwrapped.getMaxConcurrency()).isEqualTo(poolSize - 2);
+            assertThat(configured.getMaxConcurrency()).isEqualTo(18);
+        } finally {
+            unwrapped.destroy();
+            configured.destroy();
+        }
+    }
+
+    @Test
+    public void dashboard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        MemberDashboardDto dashboard = memberDashboardService.dashboard(condition);
+
+        assertThat(dashboard.getMembers()).extracting("memberName").containsExactly("member1", "member2");
+        assertThat(dashboard.getTotalMembers()).isEqualTo(3);
+        assertThat(dashboard.getTeams()).extracting("memberCount").contains(2L, 1L);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
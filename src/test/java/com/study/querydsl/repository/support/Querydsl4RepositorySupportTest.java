@@ -0,0 +1,109 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.dto.MemberIngestRow;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.QMember;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.TeamRepository;
+import com.study.querydsl.service.BulkIngestionService;
+import com.study.querydsl.statistics.TeamStatisticsCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeamStatistics.teamStatistics;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * count 쿼리는 다른 커넥션에서 실행되므로 데이터를 커밋하고 테스트가 끝나면 지운다.
+ */
+@SpringBootTest
+class Querydsl4RepositorySupportTest {
+
+    private static final int MEMBERS = 100;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private BulkIngestionService bulkIngestionService;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TeamStatisticsCache teamStatisticsCache;
+
+    @Autowired
+    @Qualifier("countQueryExecutor")
+    private ThreadPoolTaskExecutor countQueryExecutor;
+
+    private SlowCountRepository repository;
+
+    @BeforeEach
+    public void before() {
+        List<MemberIngestRow> rows = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            rows.add(new MemberIngestRow("member" + i, i, null));
+        }
+        bulkIngestionService.ingestMembers(rows);
+        repository = new SlowCountRepository();
+        context.getAutowireCapableBeanFactory().autowireBean(repository);
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> repository.getQueryFactory().delete(teamStatistics).execute());
+        teamStatisticsCache.invalidateAll();
+    }
+
+    @Test
+    public void unusedCountQueryIsCancelled() throws InterruptedException {
+        // 한 페이지에 모두 들어가므로 count 가 필요 없다.
+        Page<Member> page = transactionTemplate.execute(status -> repository.page(PageRequest.of(0, MEMBERS * 2)));
+
+        assertThat(page.getTotalElements()).isEqualTo(MEMBERS);
+        // 취소하지 않으면 100^4 행을 세는 동안 count 스레드가 계속 돈다.
+        long deadline = System.currentTimeMillis() + 3_000;
+        while (countQueryExecutor.getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(countQueryExecutor.getActiveCount()).isZero();
+    }
+
+    static class SlowCountRepository extends Querydsl4RepositorySupport {
+
+        SlowCountRepository() {
+            super(Member.class);
+        }
+
+        Page<Member> page(PageRequest pageable) {
+            QMember a = new QMember("a");
+            QMember b = new QMember("b");
+            QMember c = new QMember("c");
+            return applyPaginationConcurrently(pageable,
+                    qf -> qf.selectFrom(member).orderBy(member.id.asc()),
+                    qf -> qf.select(member.count()).from(member, a, b, c));
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.study.querydsl.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 스프링 컨텍스트 없이 H2 메모리 DB 들을 primary/복제본으로 두고 라우팅을 확인한다.
+ * 각 DB 의 node 테이블에 자기 이름이 들어 있다.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final MutableClock clock = new MutableClock();
+
+    private HikariDataSource primary;
+
+    @BeforeEach
+    public void before() {
+        primary = database("primary");
+    }
+
+    @AfterEach
+    public void after() {
+        pools.forEach(HikariDataSource::close);
+        RoutingContext.clear();
+    }
+
+    @Test
+    public void readOnlyGoesToReplica() {
+        Routing routing = routing(RoutingProperties.Balancing.ROUND_ROBIN, replicas("replica1"));
+
+        assertThat(routing.read()).isEqualTo("replica1");
+        assertThat(routing.write()).isEqualTo("primary");
+        assertThat(routing.jdbcTemplate.queryForObject("select name from node", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    public void roundRobin() {
+        Routing routing = routing(RoutingProperties.Balancing.ROUND_ROBIN, replicas("replica1", "replica2"));
+
+        assertThat(routing.read()).isEqualTo("replica1");
+        assertThat(routing.read()).isEqualTo("replica2");
+        assertThat(routing.read()).isEqualTo("replica1");
+    }
+
+    @Test
+    public void leastConnections() throws SQLException {
+        Map<String, DataSource> replicas = replicas("replica1", "replica2");
+        Routing routing = routing(RoutingProperties.Balancing.LEAST_CONNECTIONS, replicas);
+
+        try (Connection busy = replicas.get("replica1").getConnection()) {
+            assertThat(routing.read()).isEqualTo("replica2");
+            assertThat(routing.read()).isEqualTo("replica2");
+        }
+    }
+
+    @Test
+    public void fallsBackWhenReplicaFails() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("broken", new BrokenDataSource());
+        replicas.putAll(replicas("replica1"));
+        Routing routing = routing(RoutingProperties.Balancing.ROUND_ROBIN, replicas);
+
+        assertThat(routing.read()).isEqualTo("replica1");
+        assertThat(routing.read()).isEqualTo("replica1");
+
+        Map<String, DataSource> onlyBroken = new LinkedHashMap<>();
+        onlyBroken.put("broken", new BrokenDataSource());
+        assertThat(routing(RoutingProperties.Balancing.ROUND_ROBIN, onlyBroken).read()).isEqualTo("primary");
+    }
+
+    @Test
+    public void brokenReplicaIsRetriedLater() {
+        BrokenDataSource broken = new BrokenDataSource();
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("broken", broken);
+        Routing routing = routing(RoutingProperties.Balancing.ROUND_ROBIN, replicas);
+
+        assertThat(routing.read()).isEqualTo("primary");
+        assertThat(routing.read()).isEqualTo("primary");
+        assertThat(broken.attempts).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(31));
+        routing.read();
+        assertThat(broken.attempts).isEqualTo(2);
+    }
+
+    @Test
+    public void readYourWrites() {
+        Routing routing = routing(RoutingProperties.Balancing.ROUND_ROBIN, replicas("replica1"));
+        RoutingContext.begin();
+
+        assertThat(routing.write()).isEqualTo("primary");
+        assertThat(routing.read()).isEqualTo("primary");
+
+        clock.advance(Duration.ofSeconds(6));
+        assertThat(routing.read()).isEqualTo("replica1");
+    }
+
+    @Test
+    public void unscopedPinEndsWithTransaction() {
+        Routing routing = routing(RoutingProperties.Balancing.ROUND_ROBIN, replicas("replica1"));
+
+        // 요청 밖(@Async, @Scheduled)의 스레드는 쓰기 트랜잭션이 끝나면 고정이 남지 않는다.
+        assertThat(routing.write()).isEqualTo("primary");
+        assertThat(RoutingContext.pinnedUntil()).isZero();
+        assertThat(routing.read()).isEqualTo("replica1");
+    }
+
+    private Routing routing(RoutingProperties.Balancing balancing, Map<String, DataSource> replicas) {
+        RoutingContext.clear();
+        return new Routing(new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas,
+                balancing, Duration.ofSeconds(5), Duration.ofSeconds(30), clock)));
+    }
+
+    private Map<String, DataSource> replicas(String... names) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String name : names) {
+            replicas.put(name, database(name));
+        }
+        return replicas;
+    }
+
+    private HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(4);
+        pools.add(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(32))");
+        jdbcTemplate.update("delete from node");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    private static class Routing {
+
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate readOnly;
+        private final TransactionTemplate readWrite;
+
+        Routing(DataSource dataSource) {
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.readWrite = new TransactionTemplate(transactionManager);
+            this.readOnly = new TransactionTemplate(transactionManager);
+            this.readOnly.setReadOnly(true);
+        }
+
+        String read() {
+            return readOnly.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class));
+        }
+
+        String write() {
+            return readWrite.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class));
+        }
+    }
+
+    private static class BrokenDataSource extends AbstractDataSource {
+
+        private int attempts;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            attempts++;
+            throw new SQLException("replica down");
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private long millis = 1_000_000;
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
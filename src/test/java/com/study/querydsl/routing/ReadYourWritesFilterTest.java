@@ -0,0 +1,51 @@
+package com.study.querydsl.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.Cookie;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReadYourWritesFilterTest {
+
+    private final Clock clock = Clock.fixed(Instant.ofEpochMilli(1_000_000), ZoneOffset.UTC);
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5), clock);
+
+    @AfterEach
+    public void after() {
+        RoutingContext.clear();
+    }
+
+    @Test
+    public void cookieExpiryIsClampedToWindow() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(Long.MAX_VALUE)));
+
+        assertThat(pinnedDuring(request)).isEqualTo(1_000_000 + 5_000);
+        assertThat(RoutingContext.pinnedUntil()).isZero();
+    }
+
+    @Test
+    public void expiredCookieIsIgnored() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, "999999"));
+
+        assertThat(pinnedDuring(request)).isZero();
+    }
+
+    private long pinnedDuring(MockHttpServletRequest request) throws Exception {
+        AtomicLong pinned = new AtomicLong();
+        FilterChain chain = (req, res) -> pinned.set(RoutingContext.pinnedUntil());
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return pinned.get();
+    }
+}
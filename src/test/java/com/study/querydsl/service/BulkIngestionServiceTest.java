@@ -0,0 +1,98 @@
+package com.study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberIngestRow;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.support.SqlCountExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static com.study.querydsl.support.SqlCountExtension.*;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(SqlCountExtension.class)
+class BulkIngestionServiceTest {
+
+    private static final int ROWS = 5_000;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private BulkIngestionService bulkIngestionService;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int batchSize;
+
+    @Test
+    public void ingestMembers() {
+        List<Long> teamIds = bulkIngestionService.ingestTeams(Arrays.asList("teamA", "teamB"));
+
+        long count = bulkIngestionService.ingestMembers(rows(teamIds));
+
+        assertThat(count).isEqualTo(ROWS);
+        assertThat(queryFactory.select(member.count()).from(member).join(member.team, team)
+                .where(team.name.eq("teamA")).fetchOne()).isEqualTo(ROWS / 2);
+    }
+
+    /**
+     * 건건이 flush 하면 insert 한 건마다 DB 왕복이 한 번이다. (IDENTITY 전략도 persist 마다 insert 가 나가서 같다)
+     * 배치 적재는 시퀀스 id 로 insert 를 batch_size 건씩 묶어서 batch_size 건마다 한 번이다.
+     * 처리량(초당 행 수)은 실행 환경에 따라 달라서 IngestionBenchmark 로 재고, 테스트에서는 DB 왕복(JDBC 실행) 수만 확인한다.
+     */
+    @Test
+    public void batchesInserts() {
+        List<Long> teamIds = bulkIngestionService.ingestTeams(Arrays.asList("teamA", "teamB"));
+        em.clear();
+
+        resetSqlCount();
+        for (MemberIngestRow row : rows(teamIds)) {
+            em.persist(new Member(row.getMemberName(), row.getAge(), em.find(Team.class, row.getTeamId())));
+            em.flush();
+        }
+        assertThat(memberInserts()).isEqualTo(ROWS);
+        em.clear();
+
+        resetSqlCount();
+        bulkIngestionService.ingestMembers(rows(teamIds));
+        assertThat(memberInserts()).isEqualTo(ROWS / batchSize);
+
+        assertThat(queryFactory.select(member.count()).from(member).fetchOne()).isEqualTo(ROWS * 2);
+    }
+
+    /**
+     * member insert 를 실행한 횟수 (JDBC 배치 하나가 한 번)
+     */
+    private static int memberInserts() {
+        return sqlScope().getShapes().entrySet().stream()
+                .filter(e -> e.getKey().startsWith("insert into member "))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+    }
+
+    private List<MemberIngestRow> rows(List<Long> teamIds) {
+        List<MemberIngestRow> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new MemberIngestRow("member" + i, i % 100, teamIds.get(i % teamIds.size())));
+        }
+        return rows;
+    }
+}
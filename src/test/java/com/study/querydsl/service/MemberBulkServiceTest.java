@@ -0,0 +1,136 @@
+package com.study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.nearcache.ProjectionCache;
+import com.study.querydsl.snapshot.MemberSnapshotService;
+import com.study.querydsl.statistics.TeamStatisticsService;
+import com.study.querydsl.support.SqlCountExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.support.SqlCountExtension.*;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(SqlCountExtension.class)
+class MemberBulkServiceTest {
+
+    private static final int CHUNK_SIZE = 100;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TeamStatisticsService teamStatisticsService;
+
+    @Autowired
+    private MemberSnapshotService memberSnapshotService;
+
+    @Autowired
+    private ProjectionCache projectionCache;
+
+    private Team teamA;
+    private Team teamB;
+    private Member memberA;
+
+    @BeforeEach
+    public void before() {
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        memberA = new Member("memberA", 10, teamA);
+        em.persist(memberA);
+        em.persist(new Member("memberB", 20, teamA));
+        em.persist(new Member("memberC", 30, teamB));
+        em.persist(new Member("memberD", 40, teamB));
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("filler" + i, 50, teamB));
+        }
+    }
+
+    @Test
+    public void changeTeam() {
+        long count = memberBulkService.changeTeam(member.age.loe(20), teamB.getId());
+
+        assertThat(count).isEqualTo(2);
+        assertThat(em.contains(memberA)).isFalse();
+        Member reloaded = em.find(Member.class, memberA.getId());
+        assertThat(reloaded.getTeam().getName()).isEqualTo("teamB");
+    }
+
+    /**
+     * 공유 빈의 chunk-size 는 기본값(10000) 그대로 두고, 구간 나누기는 chunk-size 를 작게 준 인스턴스로 확인한다.
+     */
+    @Test
+    public void addAgeInChunks() {
+        for (int i = 0; i < 250; i++) {
+            em.persist(new Member("bulk" + i, 60, teamB));
+        }
+        MemberBulkService chunked = new MemberBulkService(em, queryFactory, transactionManager,
+                teamStatisticsService, memberSnapshotService, projectionCache, CHUNK_SIZE);
+
+        resetSqlCount();
+        long count = chunked.addAge(member.age.goe(30), 1);
+
+        assertThat(count).isEqualTo(257);
+        assertThat(memberUpdates()).isEqualTo(3);
+        assertThat(queryFactory.select(member.age.sum()).from(member).fetchOne())
+                .isEqualTo(10 + 20 + 31 + 41 + 51 * 5 + 61 * 250);
+        assertThat(em.find(Member.class, memberA.getId()).getAge()).isEqualTo(10);
+    }
+
+    @Test
+    public void deleteByPredicate() {
+        long count = memberBulkService.delete(member.memberName.startsWith("filler"));
+
+        assertThat(count).isEqualTo(5);
+        assertThat(queryFactory.select(member.count()).from(member).fetchOne()).isEqualTo(4);
+    }
+
+    @Test
+    public void detachesOnlyAffectedEntities() {
+        Member memberC = queryFactory.selectFrom(member).where(member.memberName.eq("memberC")).fetchOne();
+
+        memberBulkService.addAge(member.memberName.eq("memberA"), 1);
+
+        assertThat(em.contains(memberA)).isFalse();
+        assertThat(em.contains(memberC)).isTrue();
+        assertThat(em.contains(teamA)).isTrue();
+        assertThat(em.find(Member.class, memberA.getId()).getAge()).isEqualTo(11);
+    }
+
+    @Test
+    public void noMatch() {
+        assertThat(memberBulkService.delete(member.age.gt(1000))).isZero();
+    }
+
+    private static int memberUpdates() {
+        return sqlScope().getShapes().entrySet().stream()
+                .filter(e -> e.getKey().startsWith("update member "))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+    }
+}
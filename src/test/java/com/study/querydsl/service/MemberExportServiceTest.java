@@ -0,0 +1,112 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.dto.MemberIngestRow;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private BulkIngestionService bulkIngestionService;
+
+    @Autowired
+    private MemberExportService memberExportService;
+
+    @BeforeEach
+    public void before() {
+        List<Long> teamIds = bulkIngestionService.ingestTeams(Collections.singletonList("teamA"));
+        bulkIngestionService.ingestMembers(new AbstractList<MemberIngestRow>() {
+            @Override
+            public MemberIngestRow get(int index) {
+                return new MemberIngestRow(index == 0 ? "member,\"0\"" : "member" + index, index % 100, teamIds.get(0));
+            }
+
+            @Override
+            public int size() {
+                return ROWS;
+            }
+        });
+    }
+
+    @Test
+    public void exportCsv() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = memberExportService.exportCsv(out);
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(ROWS);
+        assertThat(lines).hasSize(ROWS + 1);
+        assertThat(lines[0]).isEqualTo("memberName,age");
+        assertThat(lines[1]).isEqualTo("\"member,\"\"0\"\"\",0");
+    }
+
+    /**
+     * 내보내는 동안 영속성 컨텍스트가 비어 있고 힙 사용량이 늘지 않아야 한다.
+     */
+    @Test
+    public void exportNdjsonWithFlatHeap() {
+        HeapSamplingOutputStream out = new HeapSamplingOutputStream(em.unwrap(Session.class));
+
+        long count = memberExportService.exportNdjson(out);
+
+        assertThat(count).isEqualTo(ROWS);
+        assertThat(out.lines).isEqualTo(ROWS);
+        assertThat(out.maxManagedEntities).isZero();
+        assertThat(out.maxHeapGrowth).isLessThan(32L * 1024 * 1024);
+    }
+
+    /**
+     * 출력은 버리고 줄 수만 세면서, 일정 줄마다 힙 사용량과 영속성 컨텍스트 크기를 기록한다.
+     */
+    private static class HeapSamplingOutputStream extends OutputStream {
+
+        private static final int SAMPLE_INTERVAL = 5_000;
+
+        private final Session session;
+        private final long baseline;
+        private long lines;
+        private long maxHeapGrowth;
+        private int maxManagedEntities;
+
+        HeapSamplingOutputStream(Session session) {
+            this.session = session;
+            this.baseline = usedHeap();
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines % SAMPLE_INTERVAL == 0) {
+                maxHeapGrowth = Math.max(maxHeapGrowth, usedHeap() - baseline);
+                maxManagedEntities = Math.max(maxManagedEntities, session.getStatistics().getEntityCount());
+            }
+        }
+
+        private static long usedHeap() {
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.AgeStatisticsDto;
+import com.study.querydsl.dto.MemberIngestRow;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.TeamRepository;
+import com.study.querydsl.repository.support.PartitionedQueryExecutor;
+import com.study.querydsl.statistics.TeamStatisticsCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeamStatistics.teamStatistics;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 구간은 다른 스레드/트랜잭션에서 실행되므로 데이터를 커밋하고 테스트가 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberReportServiceTest {
+
+    private static final int MEMBERS = 3000;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private TeamStatisticsCache teamStatisticsCache;
+
+    @Autowired
+    private BulkIngestionService bulkIngestionService;
+
+    @Autowired
+    private MemberReportService memberReportService;
+
+    @Autowired
+    private MemberExportService memberExportService;
+
+    @Autowired
+    private PartitionedQueryExecutor partitionedQueryExecutor;
+
+    @BeforeEach
+    public void before() {
+        List<Long> teamIds = bulkIngestionService.ingestTeams(Arrays.asList("teamA", "teamB", "teamC"));
+        bulkIngestionService.ingestMembers(new AbstractList<MemberIngestRow>() {
+            @Override
+            public MemberIngestRow get(int index) {
+                Long teamId = index % 10 == 0 ? null : teamIds.get(index % 3);
+                return new MemberIngestRow("member" + index, (index * 7) % 90, teamId);
+            }
+
+            @Override
+            public int size() {
+                return MEMBERS;
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> queryFactory.delete(teamStatistics).execute());
+        teamStatisticsCache.invalidateAll();
+        setPartitionWidth(50_000);
+    }
+
+    @Test
+    public void parallelismIsCappedByAsyncExecutor() {
+        assertThat(partitionedQueryExecutor.getParallelism()).isPositive();
+        assertThat(partitionedQueryExecutor.split(member.id, null, 7)).hasSize(7);
+        assertThat(partitionedQueryExecutor.split(member.id, member.age.lt(0), 7)).isEmpty();
+    }
+
+    @Test
+    public void ageStatisticsMatchesSingleQuery() {
+        Tuple expected = queryFactory
+                .select(member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .where(member.age.goe(20))
+                .fetchOne();
+
+        AgeStatisticsDto result = memberReportService.ageStatistics(member.age.goe(20));
+
+        assertThat(result.getMemberCount()).isEqualTo(expected.get(0, Long.class));
+        assertThat(result.getAgeSum()).isEqualTo(expected.get(1, Number.class).longValue());
+        assertThat(result.getMinAge()).isEqualTo(20);
+        assertThat(result.getMaxAge()).isEqualTo(89);
+        assertThat(memberReportService.ageStatistics(member.age.lt(0))).isEqualTo(AgeStatisticsDto.EMPTY);
+    }
+
+    @Test
+    public void ageStatisticsByTeamMatchesGroupBy() {
+        List<Tuple> expected = queryFactory
+                .select(member.team.id, member.count(), member.age.avg())
+                .from(member)
+                .where(member.team.isNotNull())
+                .groupBy(member.team.id)
+                .orderBy(member.team.id.asc())
+                .fetch();
+
+        Map<Long, AgeStatisticsDto> result = memberReportService.ageStatisticsByTeam(null);
+
+        assertThat(result).hasSize(3);
+        for (Tuple tuple : expected) {
+            AgeStatisticsDto statistics = result.get(tuple.get(member.team.id));
+            assertThat(statistics.getMemberCount()).isEqualTo(tuple.get(member.count()));
+            assertThat(statistics.getAverageAge()).isCloseTo(tuple.get(member.age.avg()), within(0.0001));
+        }
+    }
+
+    @Test
+    public void ageStatisticsByBucket() {
+        Map<Integer, AgeStatisticsDto> result = memberReportService.ageStatisticsByBucket(null, 10);
+
+        assertThat(result).containsOnlyKeys(0, 10, 20, 30, 40, 50, 60, 70, 80);
+        assertThat(result.values().stream().mapToLong(AgeStatisticsDto::getMemberCount).sum()).isEqualTo(MEMBERS);
+        AgeStatisticsDto twenties = result.get(20);
+        assertThat(twenties.getMemberCount())
+                .isEqualTo(queryFactory.selectFrom(member).where(member.age.between(20, 29)).fetchCount());
+        assertThat(twenties.getMinAge()).isEqualTo(20);
+        assertThat(twenties.getMaxAge()).isEqualTo(29);
+    }
+
+    @Test
+    public void partitionedExportIsSameAsCursorExport() throws Exception {
+        setPartitionWidth(100);
+        ByteArrayOutputStream cursor = new ByteArrayOutputStream();
+        ByteArrayOutputStream partitioned = new ByteArrayOutputStream();
+
+        long cursorRows = memberExportService.exportCsv(cursor);
+        long partitionedRows = memberExportService.exportCsvPartitioned(partitioned);
+
+        assertThat(partitionedRows).isEqualTo(cursorRows).isEqualTo(MEMBERS);
+        assertThat(partitioned.toString(StandardCharsets.UTF_8.name())).isEqualTo(cursor.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void partitionsRunOnSeveralThreads() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<Long> counts = new ArrayList<>();
+
+        partitionedQueryExecutor.forEachInOrder(member.id, partitionedQueryExecutor.split(member.id, null, 12),
+                (qf, range) -> {
+                    threads.add(Thread.currentThread().getName());
+                    return qf.select(member.count()).from(member).where(range).fetchOne();
+                }, counts::add);
+
+        assertThat(counts).hasSize(12);
+        assertThat(counts.stream().mapToLong(Long::longValue).sum()).isEqualTo(MEMBERS);
+        assertThat(threads).doesNotContain(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void failedPartitionFailsTheReport() {
+        assertThatThrownBy(() -> partitionedQueryExecutor.aggregate(member.id, null, AgeStatisticsDto.EMPTY,
+                (qf, range) -> {
+                    throw new IllegalStateException("partition failed");
+                }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("partition failed");
+    }
+
+    private void setPartitionWidth(long width) {
+        MemberExportService target = AopTestUtils.getTargetObject(memberExportService);
+        ReflectionTestUtils.setField(target, "partitionWidth", width);
+    }
+}
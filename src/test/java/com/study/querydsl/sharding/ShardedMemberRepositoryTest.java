@@ -0,0 +1,211 @@
+package com.study.querydsl.sharding;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.querydsl.core.Tuple;
+import com.study.querydsl.dto.AgeStatisticsDto;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberSearchSort;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 스프링 컨텍스트 없이 H2 메모리 DB 세 개를 샤드로 두고 라우팅과 scatter-gather 결과를 확인한다.
+ * 기대값은 저장한 회원 목록을 메모리에서 정렬/집계해서 만든다.
+ */
+class ShardedMemberRepositoryTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final int SHARDS = 3;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final List<Shard> shards = new ArrayList<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(SHARDS);
+    private final List<MemberTeamDto> saved = new ArrayList<>();
+
+    private ShardedMemberRepository repository;
+
+    @BeforeEach
+    public void before() {
+        int database = DATABASES.incrementAndGet();
+        for (int i = 0; i < SHARDS; i++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl("jdbc:h2:mem:shard" + database + "_" + i + ";DB_CLOSE_DELAY=-1");
+            pool.setUsername("sa");
+            pools.add(pool);
+            shards.add(Shard.create(i, pool, singletonMap("hibernate.hbm2ddl.auto", "create")));
+        }
+        AtomicLong sequence = new AtomicLong();
+        repository = new ShardedMemberRepository(shards, type -> sequence.incrementAndGet(), new ScatterGather(executor));
+
+        Random random = new Random(42);
+        for (int t = 0; t < 7; t++) {
+            Team saved = repository.saveTeam("team" + t);
+            for (int m = 0; m < 10 + t * 3; m++) {
+                save(random.nextInt(10) == 0 ? null : "member" + random.nextInt(40), 10 + random.nextInt(30), saved);
+            }
+        }
+        for (int m = 0; m < 5; m++) {
+            save("loner" + m, 10 + random.nextInt(30), null);
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        executor.shutdownNow();
+        shards.forEach(Shard::close);
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    public void membersLiveOnTheShardOfTheirTeam() {
+        for (Shard shard : shards) {
+            List<Tuple> rows = shard.read(queryFactory -> queryFactory
+                    .select(member.id, team.id)
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .fetch());
+            assertThat(rows).isNotEmpty();
+            for (Tuple row : rows) {
+                Long teamId = row.get(team.id);
+                long routingKey = teamId != null ? teamId : row.get(member.id);
+                assertThat(repository.shardOfTeam(routingKey)).isSameAs(shard);
+            }
+        }
+        assertThat(repository.count(new MemberSearchCondition())).isEqualTo(saved.size());
+    }
+
+    @Test
+    public void searchInTeamReadsOnlyTheTeamShard() {
+        Long teamId = saved.get(0).getTeamId();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setSort(MemberSearchSort.AGE);
+
+        // 다른 샤드가 닫혀 있어도 된다.
+        shards.stream().filter(shard -> shard != repository.shardOfTeam(teamId)).forEach(Shard::close);
+
+        assertThat(repository.searchInTeam(teamId, condition)).isEqualTo(saved.stream()
+                .filter(dto -> teamId.equals(dto.getTeamId()))
+                .sorted(Comparator.comparingInt(MemberTeamDto::getAge).thenComparing(MemberTeamDto::getMemberId))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void searchMergesShardPagesInGlobalOrder() {
+        Map<MemberSearchSort, Comparator<MemberTeamDto>> orders = new TreeMap<>();
+        Comparator<MemberTeamDto> byId = Comparator.comparing(MemberTeamDto::getMemberId);
+        orders.put(MemberSearchSort.ID, byId);
+        orders.put(MemberSearchSort.MEMBER_NAME, Comparator.comparing(MemberTeamDto::getMemberName,
+                Comparator.nullsFirst(Comparator.<String>naturalOrder())).thenComparing(byId));
+        orders.put(MemberSearchSort.AGE, Comparator.comparingInt(MemberTeamDto::getAge).thenComparing(byId));
+        orders.put(MemberSearchSort.AGE_DESC, Comparator.comparingInt(MemberTeamDto::getAge).reversed()
+                .thenComparing(byId.reversed()));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        List<MemberTeamDto> matching = saved.stream()
+                .filter(dto -> dto.getAge() >= 15)
+                .collect(Collectors.toList());
+        orders.forEach((sort, order) -> {
+            condition.setSort(sort);
+            List<MemberTeamDto> expected = new ArrayList<>(matching);
+            expected.sort(order);
+            for (int offset : Arrays.asList(0, 7, 40, expected.size() - 3, expected.size() + 1)) {
+                assertThat(repository.search(condition, offset, 10))
+                        .as("%s offset %d", sort, offset)
+                        .isEqualTo(expected.subList(Math.min(offset, expected.size()),
+                                Math.min(offset + 10, expected.size())));
+            }
+        });
+    }
+
+    @Test
+    public void countAndAggregatesCombineShards() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(30);
+        List<MemberTeamDto> matching = saved.stream()
+                .filter(dto -> dto.getAge() <= 30)
+                .collect(Collectors.toList());
+
+        assertThat(repository.count(condition)).isEqualTo(matching.size());
+        assertThat(repository.ageStatistics(condition)).isEqualTo(statistics(matching));
+
+        Map<Long, AgeStatisticsDto> byTeam = new TreeMap<>();
+        matching.stream()
+                .filter(dto -> dto.getTeamId() != null)
+                .collect(Collectors.groupingBy(MemberTeamDto::getTeamId))
+                .forEach((teamId, members) -> byTeam.put(teamId, statistics(members)));
+        assertThat(repository.ageStatisticsByTeam(condition)).isEqualTo(byTeam).hasSize(7);
+    }
+
+    @Test
+    public void failingShardFailsTheWholeQuery() {
+        shards.get(1).close();
+
+        assertThatThrownBy(() -> repository.search(new MemberSearchCondition(), 0, 10))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void closingShardKeepsSharedCacheManagerOpen() {
+        // 기본 DB 설정(application.yml)처럼 jcache 2차 캐시와 쿼리 캐시를 켠 속성을 넘긴다.
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.hbm2ddl.auto", "create");
+        properties.put("hibernate.cache.use_second_level_cache", true);
+        properties.put("hibernate.cache.use_query_cache", true);
+        properties.put("hibernate.cache.region.factory_class", "jcache");
+        properties.put("hibernate.javax.cache.provider", CaffeineCachingProvider.class.getName());
+        properties.put("hibernate.javax.cache.missing_cache_strategy", "create");
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+
+        Shard.create(SHARDS, pools.get(0), properties).close();
+
+        assertThat(cacheManager.isClosed()).isFalse();
+    }
+
+    @Test
+    public void mergeSkipsOffsetAcrossSortedLists() {
+        List<List<Integer>> sorted = Arrays.asList(Arrays.asList(1, 4, 7), Collections.emptyList(), Arrays.asList(2, 3, 9));
+
+        assertThat(ScatterGather.merge(sorted, Comparator.<Integer>naturalOrder(), 2, 3)).containsExactly(3, 4, 7);
+        assertThat(ScatterGather.merge(sorted, Comparator.<Integer>naturalOrder(), 5, 10)).containsExactly(9);
+    }
+
+    private void save(String memberName, int age, Team team) {
+        Long teamId = team != null ? team.getId() : null;
+        Member member = repository.saveMember(memberName, age, teamId);
+        saved.add(new MemberTeamDto(member.getId(), memberName, age, teamId, team != null ? team.getName() : null));
+    }
+
+    private static AgeStatisticsDto statistics(List<MemberTeamDto> members) {
+        return members.stream()
+                .map(dto -> AgeStatisticsDto.of(1, dto.getAge(), dto.getAge(), dto.getAge()))
+                .reduce(AgeStatisticsDto.EMPTY, AgeStatisticsDto::combine);
+    }
+}
@@ -0,0 +1,256 @@
+package com.study.querydsl.singleflight;
+
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberTemplate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.nearcache.CacheTag;
+import com.study.querydsl.nearcache.ProjectionCache;
+import com.study.querydsl.repository.MemberRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.singleflight.SingleFlightJPAQuery.coalesced;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 쿼리가 DB 안에서 멈추도록 where 에 H2 함수(SINGLE_FLIGHT_SLOW)를 걸고, 실행 횟수는 그 함수가 불린 횟수로 센다.
+ * H2 가 함수를 부를 수 있도록 클래스와 함수는 public 이다. slowQuery() 는 합치기를 고른(coalesced) 쿼리다.
+ */
+@SpringBootTest
+public class SingleFlightTest {
+
+    private static final AtomicInteger CALLS = new AtomicInteger();
+    private static volatile CountDownLatch release = new CountDownLatch(1);
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Autowired
+    private ProjectionCache projectionCache;
+
+    @Autowired
+    private SingleFlightProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private Long memberId;
+
+    public static int slow(int value) throws InterruptedException {
+        CALLS.incrementAndGet();
+        release.await(10, TimeUnit.SECONDS);
+        return value;
+    }
+
+    @BeforeEach
+    public void before() {
+        Member saved = new Member("flight", 10, null);
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createNativeQuery("create alias if not exists single_flight_slow for \""
+                    + SingleFlightTest.class.getName() + ".slow\"").executeUpdate();
+            em.persist(saved);
+        });
+        memberId = saved.getId();
+        CALLS.set(0);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    public void after() {
+        release.countDown();
+        executor.shutdownNow();
+        properties.setWaitTimeout(Duration.ofSeconds(2));
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void identicalConcurrentQueriesRunOnce() throws Exception {
+        double coalesced = count("querydsl.single-flight.coalesced");
+        List<Future<List<Integer>>> results = new ArrayList<>();
+
+        results.add(executor.submit(this::slowQuery));
+        await(() -> CALLS.get() == 1);
+        for (int i = 0; i < 5; i++) {
+            results.add(executor.submit(this::slowQuery));
+        }
+        await(() -> singleFlight.getWaitingCount() == 5);
+        release.countDown();
+
+        List<List<Integer>> rows = new ArrayList<>();
+        for (Future<List<Integer>> result : results) {
+            rows.add(result.get(10, TimeUnit.SECONDS));
+        }
+        assertThat(rows).allSatisfy(r -> assertThat(r).containsExactly(10));
+        assertThat(rows.get(1)).isNotSameAs(rows.get(2));
+        assertThat(CALLS.get()).isEqualTo(1);
+        assertThat(count("querydsl.single-flight.coalesced") - coalesced).isEqualTo(5);
+
+        // 끝난 쿼리는 다시 실행한다.
+        assertThat(slowQuery()).containsExactly(10);
+        assertThat(CALLS.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void followerRunsItselfAfterWaitTimeout() throws Exception {
+        properties.setWaitTimeout(Duration.ofMillis(100));
+        double timeouts = meterRegistry.get("querydsl.single-flight.fallbacks").tag("reason", "timeout").counter().count();
+
+        Future<List<Integer>> leader = executor.submit(this::slowQuery);
+        await(() -> CALLS.get() == 1);
+        Future<List<Integer>> follower = executor.submit(this::slowQuery);
+        await(() -> CALLS.get() == 2);
+        release.countDown();
+
+        assertThat(leader.get(10, TimeUnit.SECONDS)).containsExactly(10);
+        assertThat(follower.get(10, TimeUnit.SECONDS)).containsExactly(10);
+        assertThat(meterRegistry.get("querydsl.single-flight.fallbacks").tag("reason", "timeout").counter().count()
+                - timeouts).isEqualTo(1);
+    }
+
+    @Test
+    public void entityQueriesAndWriteTransactionsAreNotCoalesced() throws Exception {
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            results.add(executor.submit(() -> coalesced(queryFactory
+                    .selectFrom(member)
+                    .where(member.id.eq(memberId), slow().goe(0)))
+                    .fetch()));
+        }
+        for (int i = 0; i < 2; i++) {
+            results.add(executor.submit(() -> transactionTemplate.execute(status -> slowQuery())));
+        }
+        await(() -> CALLS.get() == 4);
+        release.countDown();
+
+        for (Future<?> result : results) {
+            assertThat((List<?>) result.get(10, TimeUnit.SECONDS)).hasSize(1);
+        }
+        assertThat(singleFlight.getWaitingCount()).isZero();
+    }
+
+    @Test
+    public void readAfterCommitDoesNotJoinEarlierFlight() throws Exception {
+        Future<List<Integer>> leader = executor.submit(this::slowQuery);
+        await(() -> CALLS.get() == 1);
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, 20)
+                .where(member.id.eq(memberId))
+                .execute());
+
+        // 합치기를 고르지 않은 같은 쿼리는 먼저 시작한 실행을 기다리지 않고 커밋된 값을 읽는다.
+        Future<List<Integer>> reader = executor.submit(this::plainSlowQuery);
+        await(() -> CALLS.get() == 2);
+        assertThat(singleFlight.getWaitingCount()).isZero();
+        release.countDown();
+
+        assertThat(reader.get(10, TimeUnit.SECONDS)).containsExactly(20);
+        assertThat(leader.get(10, TimeUnit.SECONDS)).hasSize(1);
+    }
+
+    @Test
+    public void projectionCacheMissesRunOnce() throws Exception {
+        Future<List<Integer>> leader = executor.submit(this::cachedSlowQuery);
+        await(() -> CALLS.get() == 1);
+        Future<List<Integer>> follower = executor.submit(this::cachedSlowQuery);
+        await(() -> singleFlight.getWaitingCount() == 1);
+        release.countDown();
+
+        assertThat(leader.get(10, TimeUnit.SECONDS)).containsExactly(10);
+        assertThat(follower.get(10, TimeUnit.SECONDS)).containsExactly(10);
+        assertThat(CALLS.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void projectionCacheMissAfterInvalidationDoesNotJoinEarlierFlight() throws Exception {
+        Future<List<Integer>> leader = executor.submit(this::cachedSlowQuery);
+        await(() -> CALLS.get() == 1);
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory
+                    .update(member)
+                    .set(member.age, 20)
+                    .where(member.id.eq(memberId))
+                    .execute();
+            projectionCache.invalidateAfterCommit(Member.class);
+        });
+
+        Future<List<Integer>> reader = executor.submit(this::cachedSlowQuery);
+        await(() -> CALLS.get() == 2);
+        assertThat(singleFlight.getWaitingCount()).isZero();
+        release.countDown();
+
+        assertThat(reader.get(10, TimeUnit.SECONDS)).containsExactly(20);
+        assertThat(leader.get(10, TimeUnit.SECONDS)).hasSize(1);
+        // 무효화 전에 시작한 실행의 결과는 캐시에 남지 않는다.
+        assertThat(cachedSlowQuery()).containsExactly(20);
+    }
+
+    private List<Integer> cachedSlowQuery() {
+        return projectionCache.fetch(slowAgeQuery(), CacheTag.of(Member.class, "id", memberId));
+    }
+
+    private List<Integer> slowQuery() {
+        return coalesced(slowAgeQuery()).fetch();
+    }
+
+    private List<Integer> plainSlowQuery() {
+        return slowAgeQuery().fetch();
+    }
+
+    private JPAQuery<Integer> slowAgeQuery() {
+        return queryFactory
+                .select(member.age)
+                .from(member)
+                .where(member.id.eq(memberId), slow().goe(0));
+    }
+
+    private static NumberTemplate<Integer> slow() {
+        return Expressions.numberTemplate(Integer.class, "function('single_flight_slow', {0})", member.age);
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
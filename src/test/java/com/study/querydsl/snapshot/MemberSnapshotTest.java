@@ -0,0 +1,240 @@
+package com.study.querydsl.snapshot;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.TeamRepository;
+import com.study.querydsl.service.MemberBulkService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 스냅샷은 커밋된 데이터만 반영하므로 트랜잭션을 커밋하고 확인한다.
+ */
+@SpringBootTest
+class MemberSnapshotTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    @Autowired
+    private MemberSnapshotService memberSnapshotService;
+
+    private Team teamA;
+    private Long teamAId;
+    private Long teamBId;
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        teamA = new Team("snapA");
+        Team teamB = new Team("snapB");
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            members.add(new Member(String.format("snap%02d", i), i * 5, i % 2 == 0 ? teamA : teamB));
+        }
+        members.add(new Member("snap20", 100, null));
+        members.add(new Member(null, 999, null));
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(teamA);
+            em.persist(teamB);
+            members.forEach(em::persist);
+        });
+        teamAId = teamA.getId();
+        teamBId = teamB.getId();
+        members.forEach(m -> memberIds.add(m.getId()));
+        memberSnapshotService.invalidateAll();
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        memberSnapshotService.invalidateAll();
+        memberIds.clear();
+    }
+
+    @Test
+    public void sameResultAsSql() {
+        memberSnapshotService.refresh();
+
+        assertSameAsSql(member.team.name.eq("snapA"), member.age.between(20, 60));
+        assertSameAsSql(member.memberName.like("snap1%"));
+        assertSameAsSql(member.memberName.startsWith("snap0"), member.age.goe(25));
+        assertSameAsSql(member.age.goe(50).or(member.team.id.eq(teamBId)));
+        assertSameAsSql(member.age.in(0, 5, 10).not(), member.age.lt(30));
+        assertSameAsSql(member.team.isNull());
+        assertSameAsSql(member.memberName.in("snap03", "snap04", "nobody").or(member.team.name.startsWith("snapB")));
+        assertSameAsSql(new BooleanBuilder(member.memberName.gt("snap15")).and(member.team.name.ne("snapA")));
+        assertSameAsSql(member.id.notIn(memberIds.subList(0, 10)), member.age.loe(80));
+        assertSameAsSql(new BooleanBuilder(), null);
+    }
+
+    @Test
+    public void teamEntityConstantsAreComparedById() {
+        memberSnapshotService.refresh();
+        Team teamB = em.getReference(Team.class, teamBId);
+
+        assertSameAsSql(member.team.eq(teamA));
+        assertSameAsSql(member.team.in(teamA, teamB), member.age.lt(50));
+        assertSameAsSql(member.team.ne(teamA));
+        assertThat(memberSnapshotService.count(member.team.eq(teamA))).isEqualTo(10);
+        assertThatThrownBy(() -> memberSnapshotService.findIds(member.team.eq(new Team("unsaved"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void findMembersReturnsDtos() {
+        memberSnapshotService.refresh();
+        List<MemberTeamDto> result = memberSnapshotService.findMembers(member.memberName.eq("snap03"));
+
+        assertThat(result).containsExactly(new MemberTeamDto(memberIds.get(3), "snap03", 15, teamBId, "snapB"));
+        assertThat(memberSnapshotService.findMembers(member.memberName.eq("snap20")))
+                .containsExactly(new MemberTeamDto(memberIds.get(20), "snap20", 100, null, null));
+    }
+
+    @Test
+    public void nullFollowsSqlSemantics() {
+        memberSnapshotService.refresh();
+        Predicate nullName = member.age.eq(999);
+
+        assertThat(memberSnapshotService.count(nullName, member.memberName.isNull())).isEqualTo(1);
+        assertThat(memberSnapshotService.count(nullName, member.memberName.ne("snap00"))).isZero();
+        assertThat(memberSnapshotService.count(nullName, member.memberName.eq("snap00").not())).isZero();
+        // unknown or true = true
+        assertThat(memberSnapshotService.count(nullName, member.memberName.eq("snap00").or(member.age.gt(0))))
+                .isEqualTo(1);
+        // 팀이 없는 회원은 팀 이름 조건의 not 에도 걸리지 않는다.
+        assertThat(memberSnapshotService.findIds(member.team.name.eq("snapA").not(), member.age.goe(100)))
+                .isEmpty();
+    }
+
+    @Test
+    public void unsupportedPredicatesAreRejected() {
+        assertThatThrownBy(() -> memberSnapshotService.findIds(member.memberName.contains("nap")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memberSnapshotService.findIds(member.memberName.like("%nap")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memberSnapshotService.findIds(member.age.gt(member.id.intValue())))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memberSnapshotService.findIds(team.name.eq("snapA")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void committedChangesAreAppliedIncrementally() {
+        MemberSnapshot before = memberSnapshotService.refresh();
+        Team teamC = new Team("snapC");
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(teamC);
+            em.persist(new Member("snap30", 30, teamC));
+            em.persist(new Member("new-name", 31, em.find(Team.class, teamAId)));
+            em.find(Member.class, memberIds.get(0)).changeTeam(teamC);
+            em.remove(em.find(Member.class, memberIds.get(1)));
+        });
+        // 롤백된 변경은 반영하지 않는다.
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("rolled-back", 1, null));
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberSnapshotService.snapshot()).isSameAs(before);
+        MemberSnapshot after = memberSnapshotService.refresh();
+
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.size()).isEqualTo(before.size() + 1);
+        assertThat(after.findIds(member.memberName.eq("rolled-back"))).isEmpty();
+        assertThat(after.findIds(member.id.eq(memberIds.get(1)))).isEmpty();
+        assertSameAsSql(member.team.name.eq("snapC"));
+        assertSameAsSql(member.memberName.startsWith("new"));
+        assertSameAsSql(member.team.name.in("snapA", "snapC"), member.age.lt(40));
+    }
+
+    @Test
+    public void bulkUpdateReloadsEverything() {
+        memberSnapshotService.refresh();
+
+        memberBulkService.addAge(member.memberName.startsWith("snap"), 1000);
+
+        assertThat(memberSnapshotService.count(member.age.goe(1000))).isZero();
+        memberSnapshotService.refresh();
+        assertThat(memberSnapshotService.count(member.age.goe(1000))).isEqualTo(21);
+        assertSameAsSql(member.age.between(1010, 1050));
+    }
+
+    @Test
+    public void snapshotWithKeepsIdOrderAndDictionary() {
+        MemberSnapshot snapshot = MemberSnapshot.of(
+                Arrays.asList(new MemberRow(3L, "c", 30, 1L), new MemberRow(1L, "a", 10, 1L), new MemberRow(5L, "e", 50, null)),
+                Arrays.asList(new TeamRow(1L, "t1")));
+
+        MemberSnapshot next = snapshot.with(
+                Arrays.asList(new MemberRow(2L, "b", 20, 2L), new MemberRow(5L, "aa", 55, 1L), new MemberRow(9L, "z", 90, null)),
+                Arrays.asList(3L),
+                Arrays.asList(new TeamRow(2L, "t2")),
+                Arrays.asList());
+
+        assertThat(next.findIds()).containsExactly(1L, 2L, 5L, 9L);
+        assertThat(next.findIds(member.memberName.startsWith("a"))).containsExactly(1L, 5L);
+        assertThat(next.findIds(member.team.name.eq("t2"))).containsExactly(2L);
+        assertThat(next.findMembers(member.id.eq(5L)))
+                .containsExactly(new MemberTeamDto(5L, "aa", 55, 1L, "t1"));
+        // 원래 스냅샷은 바뀌지 않는다.
+        assertThat(snapshot.findIds()).containsExactly(1L, 3L, 5L);
+        assertThat(snapshot.findIds(member.memberName.eq("c"))).containsExactly(3L);
+    }
+
+    private void assertSameAsSql(Predicate... where) {
+        List<MemberTeamDto> expected = queryFactory
+                .select(new QMemberTeamDto(member.id, member.memberName, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where)
+                .orderBy(member.id.asc())
+                .fetch();
+        List<Long> expectedIds = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(where)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        assertThat(memberSnapshotService.findIds(where)).isEqualTo(expectedIds);
+        assertThat(memberSnapshotService.findMembers(where))
+                .isEqualTo(expected.stream().filter(dto -> expectedIds.contains(dto.getMemberId())).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,126 @@
+package com.study.querydsl.sql;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberSearchSort;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.study.querydsl.entity.QItem.item;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class IndexAdvisorTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private IndexAdvisor indexAdvisor;
+
+    @Autowired
+    private IndexAdvisorListener indexAdvisorListener;
+
+    @Autowired
+    private IndexAdvisorProperties indexAdvisorProperties;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+        indexAdvisorListener.reset();
+        indexAdvisorProperties.setEnabled(true);
+    }
+
+    @AfterEach
+    public void after() {
+        indexAdvisorProperties.setEnabled(false);
+        indexAdvisorListener.reset();
+    }
+
+    @Test
+    public void searchShapesAreCoveredByIndexes() {
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("teamA");
+        byTeam.setAgeGoe(15);
+        MemberSearchCondition byName = new MemberSearchCondition();
+        byName.setMemberName("member1");
+        byName.setSort(MemberSearchSort.AGE);
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(10);
+        byAge.setAgeLoe(20);
+        byAge.setSort(MemberSearchSort.AGE_DESC);
+
+        assertThat(memberRepository.search(byTeam)).extracting("memberName").containsExactly("member2");
+        assertThat(memberRepository.search(byName)).extracting("memberName").containsExactly("member1");
+        assertThat(memberRepository.search(byAge)).extracting("memberName").containsExactly("member2", "member1");
+
+        List<IndexAdvice> advice = indexAdvisor.advise(1);
+
+        assertThat(advice).hasSize(3);
+        assertThat(advice).allSatisfy(a -> {
+            assertThat(a.getPlan()).isNotEmpty();
+            assertThat(a.getFullScans()).doesNotContain("member", "team");
+            assertThat(a.getRecommendations()).isEmpty();
+        });
+    }
+
+    @Test
+    public void recommendsMissingIndex() {
+        queryFactory.selectFrom(item).where(item.name.eq("itemA")).fetch();
+        queryFactory.selectFrom(item).where(item.name.eq("itemB")).fetch();
+
+        List<IndexAdvice> advice = indexAdvisor.advise(2);
+
+        assertThat(advice).hasSize(1);
+        assertThat(advice.get(0).getExecutions()).isEqualTo(2);
+        assertThat(advice.get(0).getFullScans()).containsExactly("item");
+        assertThat(advice.get(0).getRecommendations()).containsExactly("create index idx_item_name on item (name)");
+    }
+
+    @Test
+    public void keepsSqlWithoutValues() {
+        queryFactory.selectFrom(item).where(item.name.eq("secret")).offset(1).limit(10).fetch();
+
+        assertThat(indexAdvisorListener.shapes()).singleElement().satisfies(shape -> {
+            assertThat(shape.getSample()).contains("?").doesNotContain("secret");
+        });
+        List<IndexAdvice> advice = indexAdvisor.advise(1);
+        assertThat(advice.get(0).getPlan()).isNotEmpty();
+        assertThat(advice.get(0).getFullScans()).containsExactly("item");
+    }
+
+    @Test
+    public void recommenderColumnOrder() {
+        String sql = "select member0_.member_id as col_0_0_ from member member0_ left outer join team team1_ "
+                + "on member0_.team_id=team1_.team_id where member0_.age>=? and member0_.member_name=? "
+                + "and team1_.name=? order by member0_.age desc, member0_.member_id desc limit ?";
+
+        assertThat(IndexRecommender.tables(sql)).containsEntry("member0_", "member").containsEntry("team1_", "team");
+        assertThat(IndexRecommender.columns(sql, "member0_")).containsExactly("member_name", "age");
+        assertThat(IndexRecommender.columns(sql, "team1_")).containsExactly("name");
+        assertThat(IndexRecommender.columns("select * from member m order by m.age, m.member_id", "m"))
+                .containsExactly("age", "member_id");
+    }
+}
@@ -0,0 +1,184 @@
+package com.study.querydsl.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SampledSqlLogTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final List<String> lines = new CopyOnWriteArrayList<>();
+    private SqlLogWriter writer;
+
+    @AfterEach
+    public void after() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    public void redactsBoundValuesAndInlineLiterals() throws Exception {
+        SqlLogProperties properties = properties();
+        properties.setSampleRate(1);
+        SampledSqlLogListener listener = listener(properties, lines::add);
+
+        StatementInformation statement = statement("select * from member where username = 'kim' and age > ?");
+        listener.onAfterAnyExecute(statement, MILLIS, null);
+
+        awaitWritten(1);
+        assertThat(lines).containsExactly("sampled 1.0ms | select * from member where username = ? and age > ?");
+        verify(statement, never()).getSqlWithValues();
+    }
+
+    @Test
+    public void logsValuesWhenRedactionIsOff() throws Exception {
+        SqlLogProperties properties = properties();
+        properties.setSampleRate(1);
+        properties.setRedactParameters(false);
+        SampledSqlLogListener listener = listener(properties, lines::add);
+
+        StatementInformation statement = statement("select * from member where age > ?");
+        when(statement.getSqlWithValues()).thenReturn("select * from member where age > 20");
+        listener.onAfterAnyExecute(statement, MILLIS, null);
+
+        awaitWritten(1);
+        assertThat(lines).containsExactly("sampled 1.0ms | select * from member where age > 20");
+    }
+
+    @Test
+    public void onlySlowAndFailedStatementsWhenSamplingIsOff() throws Exception {
+        SqlLogProperties properties = properties();
+        properties.setSampleRate(0);
+        SampledSqlLogListener listener = listener(properties, lines::add);
+
+        listener.onAfterAnyExecute(statement("select * from member where member_id = ?"), MILLIS, null);
+        listener.onAfterAnyExecute(statement("select * from member where age > ?"), 300 * MILLIS, null);
+        listener.onAfterAnyExecute(statement("select * from nothing"), MILLIS, new SQLException("table not found"));
+
+        awaitWritten(2);
+        assertThat(lines).containsExactly(
+                "slow 300.0ms | select * from member where age > ?",
+                "failed 1.0ms | select * from nothing | table not found");
+    }
+
+    @Test
+    public void summaryAggregatesEveryStatementByShape() {
+        SqlLogProperties properties = properties();
+        properties.setSampleRate(0);
+        SampledSqlLogListener listener = listener(properties, lines::add);
+
+        listener.onAfterAnyExecute(statement("select * from member where age > 10"), 2 * MILLIS, null);
+        listener.onAfterAnyExecute(statement("select * from member where age > 20"), 4 * MILLIS, null);
+        listener.onAfterAnyExecute(statement("select * from team where team_id = ?"), MILLIS, null);
+
+        assertThat(writer.summarize()).containsExactly(
+                "summary shapes=2 dropped=0",
+                "count=2 total=6.0ms avg=3.000ms max=4.000ms | select * from member where age > ?",
+                "count=1 total=1.0ms avg=1.000ms max=1.000ms | select * from team where team_id = ?");
+        // 요약을 남기면 집계는 비워진다.
+        assertThat(writer.summarize()).isEmpty();
+    }
+
+    @Test
+    public void fullBufferDropsInsteadOfBlocking() throws Exception {
+        SqlLogProperties properties = properties();
+        properties.setSampleRate(1);
+        properties.setBufferSize(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        SampledSqlLogListener listener = listener(properties, line -> {
+            writing.countDown();
+            await(release);
+        });
+
+        StatementInformation statement = statement("select * from member");
+        listener.onAfterAnyExecute(statement, MILLIS, null);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 10; i++) {
+            listener.onAfterAnyExecute(statement, MILLIS, null);
+        }
+
+        assertThat(writer.getDropped()).isEqualTo(8);
+        release.countDown();
+        awaitWritten(3);
+    }
+
+    @Test
+    public void disabledListenerDoesNothing() {
+        SqlLogProperties properties = properties();
+        properties.setEnabled(false);
+        properties.setSampleRate(1);
+        SampledSqlLogListener listener = listener(properties, lines::add);
+
+        StatementInformation statement = statement("select * from member");
+        listener.onAfterAnyExecute(statement, 300 * MILLIS, null);
+
+        verify(statement, never()).getSql();
+        assertThat(writer.summarize()).isEmpty();
+        assertThat(writer.getWritten()).isZero();
+    }
+
+    @Test
+    public void writerThreadStartsOnlyWhenEnabled() {
+        SqlLogProperties properties = properties();
+        properties.setEnabled(false);
+        writer = new SqlLogWriter(properties, lines::add);
+
+        writer.start();
+        assertThat(writer.isRunning()).isFalse();
+
+        properties.setEnabled(true);
+        writer.start();
+        assertThat(writer.isRunning()).isTrue();
+        writer.stop();
+        assertThat(writer.isRunning()).isFalse();
+    }
+
+    private SqlLogProperties properties() {
+        SqlLogProperties properties = new SqlLogProperties();
+        properties.setEnabled(true);
+        properties.setSummaryInterval(Duration.ofHours(1));
+        return properties;
+    }
+
+    private SampledSqlLogListener listener(SqlLogProperties properties, Consumer<String> sink) {
+        writer = new SqlLogWriter(properties, sink);
+        writer.start();
+        return new SampledSqlLogListener(properties, writer);
+    }
+
+    private static StatementInformation statement(String sql) {
+        StatementInformation statement = mock(StatementInformation.class);
+        when(statement.getSql()).thenReturn(sql);
+        return statement;
+    }
+
+    private void awaitWritten(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getWritten() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(writer.getWritten()).isEqualTo(count);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
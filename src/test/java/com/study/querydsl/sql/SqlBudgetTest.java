@@ -0,0 +1,182 @@
+package com.study.querydsl.sql;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.support.SqlCountExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static com.study.querydsl.support.SqlCountExtension.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@Transactional
+@ExtendWith({SqlCountExtension.class, OutputCaptureExtension.class})
+class SqlBudgetTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private SqlBudgetProperties properties;
+
+    @Autowired
+    private SqlBudgetFilter sqlBudgetFilter;
+
+    @Autowired
+    private SqlBudget sqlBudget;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private SqlBudgetProperties.Mode mode;
+    private int maxRepeats;
+    private int maxStatements;
+
+    @BeforeEach
+    public void before() {
+        mode = properties.getMode();
+        maxRepeats = properties.getMaxRepeats();
+        maxStatements = properties.getMaxStatements();
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("memberA", 10, teamA));
+        em.persist(new Member("memberB", 20, teamA));
+        em.persist(new Member("memberC", 30, teamB));
+        em.persist(new Member("memberD", 40, teamB));
+        em.flush();
+        em.clear();
+        resetSqlCount();
+    }
+
+    @AfterEach
+    public void after() {
+        properties.setMode(mode);
+        properties.setMaxRepeats(maxRepeats);
+        properties.setMaxStatements(maxStatements);
+    }
+
+    @Test
+    public void fetchJoinIsOneStatement() {
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .fetch();
+        result.forEach(m -> m.getTeam().getName());
+
+        assertSqlCount(1);
+    }
+
+    @Test
+    public void lazyTeamIsNPlusOne() {
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .fetch();
+        result.forEach(m -> m.getTeam().getName());
+
+        assertSqlCount(3);
+        assertThat(sqlScope().repeatedShapes(2)).hasSize(1);
+    }
+
+    @Test
+    public void failModeStopsNPlusOne() {
+        properties.setMode(SqlBudgetProperties.Mode.FAIL);
+        properties.setMaxRepeats(1);
+
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .fetch();
+
+        assertThatThrownBy(() -> result.forEach(m -> m.getTeam().getName()))
+                .hasStackTraceContaining("possible N+1");
+    }
+
+    @Test
+    public void budgetsAllowUpToTheLimit() {
+        properties.setMaxStatements(2);
+        properties.setMaxRepeats(2);
+        SqlStatementScope scope = new SqlStatementScope("boundary", null);
+        scope.record("select a");
+        scope.record("select a");
+
+        assertThat(sqlBudget.violations(scope)).isEmpty();
+
+        scope.record("select a");
+        assertThat(sqlBudget.violations(scope))
+                .containsExactly("3 statements (budget 2)", "possible N+1, 3 x [select a]");
+    }
+
+    @Test
+    public void transactionOverBudgetIsLogged(CapturedOutput output) {
+        properties.setMaxRepeats(2);
+        TransactionTemplate job = new TransactionTemplate(transactionManager);
+        job.setName("reportJob");
+        job.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        job.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                queryFactory.selectFrom(team).where(team.name.eq("team" + i)).fetch();
+            }
+        });
+
+        assertThat(output).contains("SQL budget exceeded in transaction reportJob: [possible N+1, 3 x");
+    }
+
+    @Test
+    public void repositorySearch() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        memberRepository.search(condition);
+
+        assertSqlCount(1);
+    }
+
+    @Test
+    public void requestOverBudgetIsLogged(CapturedOutput output) throws Exception {
+        properties.setMaxStatements(0);
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(sqlBudgetFilter)
+                .build();
+
+        mockMvc.perform(get("/members/keyset").param("size", "2"))
+                .andExpect(status().isOk());
+
+        assertThat(output).contains("SQL budget exceeded in GET /members/keyset");
+    }
+}
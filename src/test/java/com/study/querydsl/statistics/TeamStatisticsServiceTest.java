@@ -0,0 +1,196 @@
+package com.study.querydsl.statistics;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.TeamStatisticsDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.TeamRepository;
+import com.study.querydsl.service.MemberBulkService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeamStatistics.teamStatistics;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 통계는 커밋 직전에 갱신되므로 트랜잭션을 커밋하고 확인한다.
+ */
+@SpringBootTest
+class TeamStatisticsServiceTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private TeamStatisticsService teamStatisticsService;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    @Autowired
+    private TeamStatisticsCache cache;
+
+    private Long teamAId;
+    private Long teamBId;
+    private Long memberAId;
+    private Long memberBId;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Member memberA = new Member("member1", 10, teamA);
+        Member memberB = new Member("member2", 20, teamA);
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(memberA);
+            em.persist(memberB);
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+        teamAId = teamA.getId();
+        teamBId = teamB.getId();
+        memberAId = memberA.getId();
+        memberBId = memberB.getId();
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> queryFactory.delete(teamStatistics).execute());
+        cache.invalidateAll();
+    }
+
+    @Test
+    public void maintainedOnInsert() {
+        assertStatistics(teamAId, 2, 30, 10, 20);
+        assertStatistics(teamBId, 2, 70, 30, 40);
+        assertThat(teamStatisticsService.find(teamAId).get().getAverageAge()).isEqualTo(15);
+        assertThat(teamStatisticsService.find(teamBId).get().getAverageAge()).isEqualTo(35);
+    }
+
+    @Test
+    public void teamWithoutMembers() {
+        Team teamC = new Team("teamC");
+        transactionTemplate.executeWithoutResult(status -> em.persist(teamC));
+
+        TeamStatisticsDto statistics = teamStatisticsService.find(teamC.getId()).get();
+        assertThat(statistics.getMemberCount()).isZero();
+        assertThat(statistics.getMinAge()).isNull();
+        assertThat(statistics.getAverageAge()).isNull();
+    }
+
+    @Test
+    public void maintainedOnChangeTeam() {
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, memberAId).changeTeam(em.find(Team.class, teamBId)));
+
+        assertStatistics(teamAId, 1, 20, 20, 20);
+        assertStatistics(teamBId, 3, 80, 10, 40);
+    }
+
+    @Test
+    public void maintainedOnDelete() {
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, memberBId)));
+
+        assertStatistics(teamAId, 1, 10, 10, 10);
+    }
+
+    @Test
+    public void rollbackLeavesStatistics() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("member5", 50, em.find(Team.class, teamAId)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertStatistics(teamAId, 2, 30, 10, 20);
+    }
+
+    @Test
+    public void servedFromCacheUntilChanged() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        teamStatisticsService.findAll();
+        statistics.clear();
+        teamStatisticsService.findAll();
+        teamStatisticsService.find(teamAId);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        transactionTemplate.executeWithoutResult(status ->
+                em.persist(new Member("member5", 5, em.find(Team.class, teamAId))));
+
+        assertStatistics(teamAId, 3, 35, 5, 20);
+        assertThat(teamStatisticsService.findAll())
+                .filteredOn(s -> s.getTeamId().equals(teamAId))
+                .extracting(TeamStatisticsDto::getMemberCount)
+                .containsExactly(3L);
+    }
+
+    @Test
+    public void reconcileFixesBulkChanges() {
+        assertThat(teamStatisticsService.reconcile()).isZero();
+
+        // 벌크 JPQL 은 이벤트 리스너를 거치지 않는다.
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+        assertStatistics(teamAId, 2, 30, 10, 20);
+
+        assertThat(teamStatisticsService.reconcile()).isGreaterThanOrEqualTo(2);
+        assertStatistics(teamAId, 2, 32, 11, 21);
+        assertStatistics(teamBId, 2, 72, 31, 41);
+    }
+
+    @Test
+    public void bulkRecomputesOnlyTouchedTeams() {
+        // teamB 통계를 일부러 틀리게 두고 teamA 회원만 벌크로 바꾼다.
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .update(teamStatistics)
+                .set(teamStatistics.memberCount, 99L)
+                .where(teamStatistics.teamId.eq(teamBId))
+                .execute());
+        cache.invalidateAll();
+
+        memberBulkService.addAge(member.team.id.eq(teamAId), 1);
+
+        assertStatistics(teamAId, 2, 32, 11, 21);
+        assertThat(teamStatisticsService.find(teamBId).get().getMemberCount()).isEqualTo(99);
+    }
+
+    private void assertStatistics(Long teamId, long count, long ageSum, Integer minAge, Integer maxAge) {
+        TeamStatisticsDto statistics = teamStatisticsService.find(teamId).orElseThrow(AssertionError::new);
+        assertThat(statistics.getMemberCount()).isEqualTo(count);
+        assertThat(statistics.getAgeSum()).isEqualTo(ageSum);
+        assertThat(statistics.getMinAge()).isEqualTo(minAge);
+        assertThat(statistics.getMaxAge()).isEqualTo(maxAge);
+    }
+}
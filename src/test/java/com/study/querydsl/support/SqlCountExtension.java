@@ -0,0 +1,56 @@
+package com.study.querydsl.support;
+
+import com.study.querydsl.sql.SqlStatementRecorder;
+import com.study.querydsl.sql.SqlStatementScope;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트 메서드 하나를 SQL 집계 범위로 묶는다.
+ * <pre>
+ * &#64;ExtendWith(SqlCountExtension.class)
+ * ...
+ * resetSqlCount();
+ * memberRepository.search(condition);
+ * assertSqlCount(1);
+ * </pre>
+ */
+public class SqlCountExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlCountExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        context.getStore(NAMESPACE).put("scope", SqlStatementRecorder.begin(context.getDisplayName()));
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        SqlStatementScope scope = context.getStore(NAMESPACE).remove("scope", SqlStatementScope.class);
+        if (scope != null) {
+            SqlStatementRecorder.end(scope);
+        }
+    }
+
+    public static SqlStatementScope sqlScope() {
+        SqlStatementScope scope = SqlStatementRecorder.current();
+        if (scope == null) {
+            throw new IllegalStateException("SqlCountExtension is not registered");
+        }
+        return scope;
+    }
+
+    public static void resetSqlCount() {
+        sqlScope().reset();
+    }
+
+    public static void assertSqlCount(int expected) {
+        SqlStatementScope scope = sqlScope();
+        assertThat(scope.getCount())
+                .as("executed SQL %s", scope.getShapes())
+                .isEqualTo(expected);
+    }
+}
@@ -0,0 +1,195 @@
+package com.study.querydsl.writebehind;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.TeamStatisticsDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.TeamRepository;
+import com.study.querydsl.statistics.TeamStatisticsCache;
+import com.study.querydsl.statistics.TeamStatisticsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeamStatistics.teamStatistics;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 버퍼는 자기 스레드/트랜잭션에서 쓰므로 데이터를 커밋하고 테스트가 끝나면 지운다.
+ * 주기 flush 가 중간에 끼어들 수 있어서 횟수가 아니라 최종 상태와 상한으로 확인한다.
+ */
+@SpringBootTest
+class MemberWriteBehindBufferTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private TeamStatisticsService teamStatisticsService;
+
+    @Autowired
+    private TeamStatisticsCache teamStatisticsCache;
+
+    @Autowired
+    private MemberWriteBehindBuffer writeBehind;
+
+    @Autowired
+    private WriteBehindProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long teamAId;
+    private Long teamBId;
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("wbA");
+        Team teamB = new Team("wbB");
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            members.add(new Member("wb" + i, 10, teamA));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(teamA);
+            em.persist(teamB);
+            members.forEach(em::persist);
+        });
+        teamAId = teamA.getId();
+        teamBId = teamB.getId();
+        members.forEach(m -> memberIds.add(m.getId()));
+    }
+
+    @AfterEach
+    public void after() {
+        properties.setDurability(WriteBehindProperties.Durability.ASYNC);
+        properties.setMaxBatch(500);
+        writeBehind.flush();
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> queryFactory.delete(teamStatistics).execute());
+        teamStatisticsCache.invalidateAll();
+        memberIds.clear();
+    }
+
+    @Test
+    public void coalescesUpdatesPerMemberInOrder() throws Exception {
+        double written = count("querydsl.write-behind.written");
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int age = 1; age <= 50; age++) {
+            for (Long memberId : memberIds.subList(0, 10)) {
+                futures.add(writeBehind.changeAge(memberId, age));
+            }
+        }
+        writeBehind.flush();
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertThat(writeBehind.getPendingCount()).isZero();
+        assertThat(ages(memberIds.subList(0, 10))).containsOnly(50);
+        assertThat(ages(memberIds.subList(10, 20))).containsOnly(10);
+        assertThat(count("querydsl.write-behind.written") - written).isLessThan(500);
+    }
+
+    @Test
+    public void sameChangeIsOneUpdateStatement() {
+        double statements = count("querydsl.write-behind.statements");
+
+        memberIds.forEach(memberId -> writeBehind.changeAge(memberId, 30));
+        writeBehind.flush();
+
+        assertThat(ages(memberIds)).containsOnly(30);
+        // 주기 flush 에 나뉘어도 두 번을 넘지 않는다.
+        assertThat(count("querydsl.write-behind.statements") - statements).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void batchesAreCappedByMaxBatch() {
+        properties.setMaxBatch(5);
+        double statements = count("querydsl.write-behind.statements");
+
+        memberIds.forEach(memberId -> writeBehind.changeAge(memberId, 40));
+        writeBehind.flush();
+
+        assertThat(ages(memberIds)).containsOnly(40);
+        assertThat(count("querydsl.write-behind.statements") - statements).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    public void teamChangeRecomputesStatistics() {
+        for (Long memberId : memberIds.subList(0, 5)) {
+            writeBehind.changeTeam(memberId, teamBId);
+            writeBehind.changeAge(memberId, 20);
+        }
+        writeBehind.changeTeam(memberIds.get(5), null);
+        writeBehind.flush();
+
+        TeamStatisticsDto teamA = teamStatisticsService.find(teamAId).get();
+        TeamStatisticsDto teamB = teamStatisticsService.find(teamBId).get();
+        assertThat(teamA.getMemberCount()).isEqualTo(14);
+        assertThat(teamA.getAgeSum()).isEqualTo(140);
+        assertThat(teamB.getMemberCount()).isEqualTo(5);
+        assertThat(teamB.getAgeSum()).isEqualTo(100);
+        assertThat(queryFactory.selectFrom(member).where(member.team.isNull()).fetchCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void syncDurabilityWaitsForCommit() {
+        properties.setDurability(WriteBehindProperties.Durability.SYNC);
+
+        CompletableFuture<Void> committed = writeBehind.changeAge(memberIds.get(0), 77);
+
+        assertThat(committed).isDone();
+        assertThat(ages(memberIds.subList(0, 1))).containsExactly(77);
+    }
+
+    @Test
+    public void failedMemberIsDroppedOthersAreWritten() {
+        double failed = count("querydsl.write-behind.failed");
+
+        CompletableFuture<Void> missingTeam = writeBehind.changeTeam(memberIds.get(0), -1L);
+        CompletableFuture<Void> age = writeBehind.changeAge(memberIds.get(1), 55);
+        writeBehind.flush();
+
+        assertThat(missingTeam).isCompletedExceptionally();
+        assertThat(age).isCompleted();
+        assertThat(ages(memberIds.subList(0, 2))).containsExactly(10, 55);
+        assertThat(count("querydsl.write-behind.failed") - failed).isEqualTo(1);
+
+        properties.setDurability(WriteBehindProperties.Durability.SYNC);
+        assertThatThrownBy(() -> writeBehind.changeTeam(memberIds.get(0), -1L)).isInstanceOf(RuntimeException.class);
+    }
+
+    private List<Integer> ages(List<Long> ids) {
+        return queryFactory.select(member.age).from(member).where(member.id.in(ids)).orderBy(member.id.asc()).fetch();
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+}